@@ -0,0 +1,77 @@
+package com.rental.payment.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    @Value("${payment.executor.core-size:8}")
+    private int coreSize;
+
+    @Value("${payment.executor.max-size:32}")
+    private int maxSize;
+
+    @Value("${payment.executor.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${payment.webhook.workers:4}")
+    private int webhookWorkers;
+
+    @Value("${payment.scheduler.pool-size:2}")
+    private int schedulerPoolSize;
+
+    /**
+     * Runs the database work that follows an asynchronous gateway call, so that
+     * JDBC never executes on the HTTP client's I/O reactor threads.
+     */
+    @Bean(name = "paymentTaskExecutor")
+    public ThreadPoolTaskExecutor paymentTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("payment-");
+        // Run on the completing thread rather than dropping work when saturated
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Applies claimed webhook partitions in parallel. Sized to the number of
+     * partitions the queue worker produces per poll.
+     */
+    @Bean(name = "webhookWorkerExecutor")
+    public ThreadPoolTaskExecutor webhookWorkerExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(webhookWorkers);
+        executor.setMaxPoolSize(webhookWorkers);
+        executor.setQueueCapacity(webhookWorkers);
+        executor.setThreadNamePrefix("webhook-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs the {@code @Scheduled} jobs. Declared explicitly because the Cashfree
+     * schedulers in {@link ResilienceConfig} would otherwise be picked up, or
+     * make Spring fall back to a single local thread.
+     */
+    @Bean(name = "taskScheduler")
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(schedulerPoolSize);
+        scheduler.setThreadNamePrefix("scheduling-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        return scheduler;
+    }
+}
@@ -1,8 +1,30 @@
 package com.rental.payment.config;
 
+import org.apache.hc.client5.http.ConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.message.BasicHeaderElementIterator;
+import org.apache.hc.core5.http.HeaderElement;
+import org.apache.hc.core5.http.HeaderElements;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.Iterator;
+
 @Configuration
 public class CashfreeConfig {
 
@@ -18,6 +40,140 @@ public class CashfreeConfig {
     @Value("${cashfree.webhook-secret}")
     private String webhookSecret;
 
+    // HTTP connection pool settings for the Cashfree gateway client
+    @Value("${cashfree.http.max-total:200}")
+    private int maxTotalConnections;
+
+    @Value("${cashfree.http.max-per-route:100}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${cashfree.http.connect-timeout:3s}")
+    private Duration connectTimeout;
+
+    @Value("${cashfree.http.response-timeout:10s}")
+    private Duration responseTimeout;
+
+    @Value("${cashfree.http.connection-request-timeout:2s}")
+    private Duration connectionRequestTimeout;
+
+    @Value("${cashfree.http.keep-alive:30s}")
+    private Duration keepAlive;
+
+    @Value("${cashfree.http.idle-eviction:30s}")
+    private Duration idleEviction;
+
+    @Value("${cashfree.http.time-to-live:5m}")
+    private Duration connectionTimeToLive;
+
+    @Value("${cashfree.http.validate-after-inactivity:2s}")
+    private Duration validateAfterInactivity;
+
+    // "async" sends gateway calls through the non-blocking client; "blocking" keeps
+    // the classic client on the calling thread
+    @Value("${cashfree.http.mode:async}")
+    private String httpMode;
+
+    @Value("${cashfree.http.io-threads:2}")
+    private int ioThreads;
+
+    /**
+     * Shared connection pool for all Cashfree API calls, so that order creation
+     * and verification reuse warm TLS connections instead of handshaking per call.
+     */
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager cashfreeConnectionManager() {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotalConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setPoolConcurrencyPolicy(PoolConcurrencyPolicy.STRICT)
+                .setDefaultConnectionConfig(connectionConfig())
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient cashfreeHttpClient(PoolingHttpClientConnectionManager cashfreeConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(cashfreeConnectionManager)
+                .setDefaultRequestConfig(requestConfig())
+                .setKeepAliveStrategy(keepAliveStrategy())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(idleEviction))
+                // Retries are left to ResilienceConfig so they count against the circuit breaker
+                .disableAutomaticRetries()
+                .build();
+    }
+
+    /**
+     * Non-blocking counterpart of {@link #cashfreeConnectionManager()}. Requests are
+     * multiplexed over a small number of I/O reactor threads, so a slow gateway does
+     * not hold one servlet thread per in-flight call.
+     */
+    @Bean(destroyMethod = "close")
+    public PoolingAsyncClientConnectionManager cashfreeAsyncConnectionManager() {
+        return PoolingAsyncClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotalConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setPoolConcurrencyPolicy(PoolConcurrencyPolicy.STRICT)
+                .setDefaultConnectionConfig(connectionConfig())
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpAsyncClient cashfreeAsyncHttpClient(
+            PoolingAsyncClientConnectionManager cashfreeAsyncConnectionManager) {
+        CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                .setConnectionManager(cashfreeAsyncConnectionManager)
+                .setIOReactorConfig(IOReactorConfig.custom()
+                        .setIoThreadCount(ioThreads)
+                        .build())
+                .setDefaultRequestConfig(requestConfig())
+                .setKeepAliveStrategy(keepAliveStrategy())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(idleEviction))
+                // Retries are left to ResilienceConfig so they count against the circuit breaker
+                .disableAutomaticRetries()
+                .build();
+        client.start();
+        return client;
+    }
+
+    private ConnectionConfig connectionConfig() {
+        return ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(connectTimeout))
+                .setSocketTimeout(Timeout.of(responseTimeout))
+                .setTimeToLive(TimeValue.of(connectionTimeToLive))
+                .setValidateAfterInactivity(TimeValue.of(validateAfterInactivity))
+                .build();
+    }
+
+    private RequestConfig requestConfig() {
+        return RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(connectionRequestTimeout))
+                .setResponseTimeout(Timeout.of(responseTimeout))
+                .build();
+    }
+
+    // Honour the server's Keep-Alive timeout, otherwise fall back to our default
+    private ConnectionKeepAliveStrategy keepAliveStrategy() {
+        TimeValue defaultKeepAlive = TimeValue.of(keepAlive);
+
+        return (response, context) -> {
+            Iterator<HeaderElement> it = new BasicHeaderElementIterator(
+                    response.headerIterator(HeaderElements.KEEP_ALIVE));
+            while (it.hasNext()) {
+                HeaderElement element = it.next();
+                if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                    try {
+                        return TimeValue.ofSeconds(Long.parseLong(element.getValue()));
+                    } catch (NumberFormatException ignored) {
+                        // fall through to the default
+                    }
+                }
+            }
+            return defaultKeepAlive;
+        };
+    }
+
     // Getters
     public String getAppId() {
         return appId;
@@ -34,4 +190,36 @@ public class CashfreeConfig {
     public String getWebhookSecret() {
         return webhookSecret;
     }
-}
\ No newline at end of file
+
+    public int getMaxTotalConnections() {
+        return maxTotalConnections;
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public Duration getResponseTimeout() {
+        return responseTimeout;
+    }
+
+    public Duration getConnectionRequestTimeout() {
+        return connectionRequestTimeout;
+    }
+
+    public Duration getKeepAlive() {
+        return keepAlive;
+    }
+
+    public Duration getIdleEviction() {
+        return idleEviction;
+    }
+
+    public boolean isAsyncMode() {
+        return "async".equalsIgnoreCase(httpMode);
+    }
+}
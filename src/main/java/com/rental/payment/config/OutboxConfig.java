@@ -0,0 +1,52 @@
+package com.rental.payment.config;
+
+import com.rental.payment.service.FileEventSink;
+import com.rental.payment.service.HttpCallbackEventSink;
+import com.rental.payment.service.InMemoryEventSink;
+import com.rental.payment.service.PaymentEventCodec;
+import com.rental.payment.service.PaymentEventSink;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+public class OutboxConfig {
+
+    // "http" posts batches to a callback URL, "file" appends JSON lines to a local
+    // file and "memory" hands events to in-process subscribers
+    @Value("${payment.outbox.sink:file}")
+    private String sink;
+
+    @Value("${payment.outbox.http.url:}")
+    private String callbackUrl;
+
+    @Value("${payment.outbox.http.secret:}")
+    private String callbackSecret;
+
+    @Value("${payment.outbox.http.timeout:5s}")
+    private Duration callbackTimeout;
+
+    @Value("${payment.outbox.file.path:payment-events.jsonl}")
+    private String filePath;
+
+    /**
+     * Destination of the events the outbox relay publishes.
+     */
+    @Bean
+    public PaymentEventSink paymentEventSink(PaymentEventCodec codec) throws IOException {
+        switch (sink.toLowerCase()) {
+            case "http":
+                return new HttpCallbackEventSink(callbackUrl, callbackSecret, callbackTimeout, codec);
+            case "file":
+                return new FileEventSink(Path.of(filePath), codec);
+            case "memory":
+                return new InMemoryEventSink();
+            default:
+                throw new IllegalStateException("Unknown payment.outbox.sink: " + sink);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.rental.payment.config;
+
+import com.rental.payment.entity.PooledIdGenerator;
+import com.rental.payment.service.IdBlockAllocator;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PersistenceConfig {
+
+    /**
+     * Makes the id block allocator available to {@link PooledIdGenerator},
+     * which Hibernate instantiates itself.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer idBlockAllocatorCustomizer(IdBlockAllocator idBlockAllocator) {
+        return properties -> properties.put(PooledIdGenerator.ALLOCATOR_SETTING, idBlockAllocator);
+    }
+}
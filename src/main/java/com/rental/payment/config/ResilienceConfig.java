@@ -0,0 +1,140 @@
+package com.rental.payment.config;
+
+import com.rental.payment.exception.RateLimitExceededException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.core.IntervalFunction;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedRetryMetrics;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Circuit breakers, bulkhead and retry policy for Cashfree calls. Breakers and
+ * retries are created per endpoint from the registries; the bulkhead is shared.
+ * All three publish {@code resilience4j.*} meters.
+ */
+@Configuration
+public class ResilienceConfig {
+
+    @Value("${cashfree.resilience.max-concurrent-calls:100}")
+    private int maxConcurrentCalls;
+
+    @Value("${cashfree.resilience.circuit-breaker.sliding-window-size:50}")
+    private int slidingWindowSize;
+
+    @Value("${cashfree.resilience.circuit-breaker.minimum-calls:20}")
+    private int minimumCalls;
+
+    @Value("${cashfree.resilience.circuit-breaker.failure-rate-threshold:50}")
+    private float failureRateThreshold;
+
+    @Value("${cashfree.resilience.circuit-breaker.slow-call-duration:5s}")
+    private Duration slowCallDuration;
+
+    @Value("${cashfree.resilience.circuit-breaker.slow-call-rate-threshold:80}")
+    private float slowCallRateThreshold;
+
+    @Value("${cashfree.resilience.circuit-breaker.open-duration:30s}")
+    private Duration openDuration;
+
+    @Value("${cashfree.resilience.circuit-breaker.half-open-calls:5}")
+    private int halfOpenCalls;
+
+    @Value("${cashfree.resilience.retry.max-attempts:3}")
+    private int retryMaxAttempts;
+
+    @Value("${cashfree.resilience.retry.initial-backoff:200ms}")
+    private Duration retryInitialBackoff;
+
+    @Value("${cashfree.resilience.retry.multiplier:2}")
+    private double retryMultiplier;
+
+    @Value("${cashfree.resilience.retry.jitter:0.5}")
+    private double retryJitter;
+
+    @Bean
+    public CircuitBreakerRegistry cashfreeCircuitBreakerRegistry(MeterRegistry meterRegistry) {
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumCalls)
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(slowCallDuration)
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .waitDurationInOpenState(openDuration)
+                .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+                // A full bulkhead says nothing about Cashfree's health
+                .ignoreExceptions(BulkheadFullException.class)
+                .build());
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    @Bean
+    public Bulkhead cashfreeBulkhead(MeterRegistry meterRegistry) {
+        BulkheadRegistry registry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry.bulkhead("cashfree");
+    }
+
+    @Bean
+    public RetryRegistry cashfreeRetryRegistry(MeterRegistry meterRegistry) {
+        RetryRegistry registry = RetryRegistry.of(RetryConfig.custom()
+                .maxAttempts(retryMaxAttempts)
+                .intervalFunction(IntervalFunction.ofExponentialRandomBackoff(
+                        retryInitialBackoff, retryMultiplier, retryJitter))
+                // Calls rejected locally never reached Cashfree; retrying them only adds load
+                .retryOnException(e -> !(e instanceof CallNotPermittedException)
+                        && !(e instanceof BulkheadFullException)
+                        && !(e instanceof RateLimitExceededException))
+                .build());
+        TaggedRetryMetrics.ofRetryRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    /**
+     * Waits out retry backoffs. In {@code blocking} HTTP mode the retried call
+     * itself also runs here, including its wait for a rate limit permit.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService cashfreeRetryScheduler() {
+        AtomicInteger threads = new AtomicInteger();
+        return Executors.newScheduledThreadPool(2, task -> {
+            Thread thread = new Thread(task, "cashfree-retry-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Releases and expires calls queued in the rate limiter. Kept apart from
+     * {@link #cashfreeRetryScheduler}, whose threads may be blocked waiting for
+     * exactly those permits.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService cashfreeRateLimitScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "cashfree-rate-limit");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
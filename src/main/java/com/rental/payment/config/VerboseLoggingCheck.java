@@ -0,0 +1,49 @@
+package com.rental.payment.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Warns at startup when SQL statements or every web request are being logged.
+ * Harmless on a laptop, but under production traffic the logging alone costs
+ * a significant share of each request.
+ */
+@Component
+public class VerboseLoggingCheck {
+
+    private static final Logger logger = LoggerFactory.getLogger(VerboseLoggingCheck.class);
+
+    private static final List<String> PER_REQUEST_LOGGERS = List.of(
+            "org.hibernate.SQL", "org.hibernate.orm.jdbc.bind", "org.springframework.web");
+
+    @Autowired
+    private Environment environment;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warnIfVerbose() {
+        List<String> enabled = new ArrayList<>();
+        if (environment.getProperty("spring.jpa.show-sql", Boolean.class, false)) {
+            enabled.add("spring.jpa.show-sql");
+        }
+        if (environment.getProperty("spring.jpa.properties.hibernate.format_sql", Boolean.class, false)) {
+            enabled.add("hibernate.format_sql");
+        }
+        for (String name : PER_REQUEST_LOGGERS) {
+            if (LoggerFactory.getLogger(name).isDebugEnabled()) {
+                enabled.add(name + " at DEBUG");
+            }
+        }
+        if (!enabled.isEmpty()) {
+            logger.warn("Verbose logging is enabled ({}); run with the prod profile under real traffic",
+                    String.join(", ", enabled));
+        }
+    }
+}
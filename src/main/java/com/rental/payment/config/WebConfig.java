@@ -0,0 +1,22 @@
+package com.rental.payment.config;
+
+import com.rental.payment.dto.ExportFormat;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Locale;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    /**
+     * Accepts {@code format=csv} as well as {@code format=CSV}; unknown names
+     * still fail conversion and are answered with 400.
+     */
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        registry.addConverter(String.class, ExportFormat.class,
+                value -> ExportFormat.valueOf(value.trim().toUpperCase(Locale.ROOT)));
+    }
+}
@@ -1,23 +1,48 @@
 package com.rental.payment.controller;
 
+import com.rental.payment.config.SampledLogFilter;
+import com.rental.payment.dto.BatchCreateOrderRequest;
+import com.rental.payment.dto.BatchPaymentResponse;
+import com.rental.payment.dto.BatchRefundRequest;
+import com.rental.payment.dto.BatchRefundResponse;
+import com.rental.payment.dto.BatchVerifyRequest;
+import com.rental.payment.dto.ExportFormat;
+import com.rental.payment.dto.PaymentPage;
 import com.rental.payment.dto.PaymentRequest;
 import com.rental.payment.dto.PaymentResponse;
+import com.rental.payment.dto.PaymentSearchFilter;
+import com.rental.payment.dto.RefundRequest;
+import com.rental.payment.dto.RefundResponse;
+import com.rental.payment.dto.RollupReport;
+import com.rental.payment.dto.RollupVerification;
 import com.rental.payment.entity.PaymentEntity;
+import com.rental.payment.service.LogContext;
+import com.rental.payment.service.PaymentSearchService;
+import com.rental.payment.service.PaymentRollupService;
 import com.rental.payment.service.PaymentService;
+import com.rental.payment.service.RefundService;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/payments")
@@ -30,57 +55,171 @@ public class PaymentController {
     @Autowired
     private PaymentService paymentService;
 
-    @PostMapping("/create-order")
-    public ResponseEntity<PaymentResponse> createPaymentOrder(@Valid @RequestBody PaymentRequest request) {
-        logger.info("Creating payment order for: {}", request.getOrderId());
+    @Autowired
+    private RefundService refundService;
 
-        PaymentResponse response = paymentService.createPaymentOrder(request);
+    @Autowired
+    private PaymentSearchService paymentSearchService;
 
-        if (response.isSuccess()) {
-            logger.info("Payment order created successfully: {}", request.getOrderId());
-            return ResponseEntity.ok(response);
-        } else {
-            logger.warn("Payment order creation failed: {}", response.getMessage());
-            return ResponseEntity.badRequest().body(response);
+    @Autowired
+    private PaymentRollupService paymentRollupService;
+
+    @PostMapping("/create-order")
+    public CompletableFuture<ResponseEntity<PaymentResponse>> createPaymentOrder(
+            @Valid @RequestBody PaymentRequest request) {
+        try (MDC.MDCCloseable ignored = MDC.putCloseable(LogContext.ORDER_ID, request.getOrderId())) {
+            logger.debug("Creating payment order for: {}", request.getOrderId());
+
+            return paymentService.createPaymentOrder(request).thenApply(response -> {
+                if (response.isSuccess()) {
+                    logger.info(SampledLogFilter.SAMPLED, "Payment order created successfully: {}",
+                            request.getOrderId());
+                    return ResponseEntity.ok(response);
+                } else {
+                    logger.warn("Payment order creation failed: {} - {}", request.getOrderId(),
+                            response.getMessage());
+                    return ResponseEntity.badRequest().body(response);
+                }
+            });
         }
     }
 
     @GetMapping("/verify/{orderId}")
-    public ResponseEntity<PaymentResponse> verifyPayment(
+    public CompletableFuture<ResponseEntity<PaymentResponse>> verifyPayment(
             @PathVariable @NotBlank(message = "Order ID is required") String orderId) {
-        logger.info("Verifying payment for order: {}", orderId);
+        try (MDC.MDCCloseable ignored = MDC.putCloseable(LogContext.ORDER_ID, orderId)) {
+            logger.debug("Verifying payment for order: {}", orderId);
+
+            return paymentService.verifyPayment(orderId).thenApply(response -> {
+                if (response.isSuccess()) {
+                    logger.info(SampledLogFilter.SAMPLED, "Payment verification successful: {}", orderId);
+                    return ResponseEntity.ok(response);
+                } else {
+                    if (response.getStatus() == null) {
+                        logger.warn("Payment verification failed: {} - {}", orderId, response.getMessage());
+                    } else {
+                        // Pending payments are polled repeatedly, so this is routine
+                        logger.info(SampledLogFilter.SAMPLED, "Payment not yet successful: {} - {}", orderId,
+                                response.getStatus());
+                    }
+                    return ResponseEntity.badRequest().body(response);
+                }
+            });
+        }
+    }
 
-        PaymentResponse response = paymentService.verifyPayment(orderId);
+    @PostMapping("/create-orders:batch")
+    public CompletableFuture<ResponseEntity<BatchPaymentResponse>> createPaymentOrders(
+            @Valid @RequestBody BatchCreateOrderRequest request) {
+        logger.debug("Creating {} payment orders", request.getOrders().size());
 
-        if (response.isSuccess()) {
-            logger.info("Payment verification successful: {}", orderId);
+        return paymentService.createPaymentOrders(request.getOrders()).thenApply(results -> {
+            BatchPaymentResponse response = new BatchPaymentResponse(results);
+            logger.info("Batch create-order: {} of {} created", response.getSucceeded(), response.getTotal());
             return ResponseEntity.ok(response);
-        } else {
-            logger.warn("Payment verification failed: {} - {}", orderId, response.getMessage());
-            return ResponseEntity.badRequest().body(response);
+        });
+    }
+
+    @PostMapping("/verify:batch")
+    public CompletableFuture<ResponseEntity<BatchPaymentResponse>> verifyPayments(
+            @Valid @RequestBody BatchVerifyRequest request) {
+        logger.debug("Verifying {} payments", request.getOrderIds().size());
+
+        return paymentService.verifyPayments(request.getOrderIds())
+                .thenApply(results -> ResponseEntity.ok(new BatchPaymentResponse(results)));
+    }
+
+    @PostMapping("/refunds")
+    public ResponseEntity<RefundResponse> createRefund(@Valid @RequestBody RefundRequest request) {
+        try (MDC.MDCCloseable ignored = MDC.putCloseable(LogContext.ORDER_ID, request.getOrderId())) {
+            RefundResponse response = refundService.createRefund(request);
+            if (response.isSuccess()) {
+                logger.info("Refund queued: {}", request.getRefundId());
+                return ResponseEntity.accepted().body(response);
+            } else {
+                logger.warn("Refund rejected: {} - {}", request.getRefundId(), response.getMessage());
+                return ResponseEntity.badRequest().body(response);
+            }
         }
     }
 
+    @PostMapping("/refunds:batch")
+    public ResponseEntity<BatchRefundResponse> createRefunds(@Valid @RequestBody BatchRefundRequest request) {
+        BatchRefundResponse response = new BatchRefundResponse(refundService.createRefunds(request.getRefunds()));
+        logger.info("Batch refund: {} of {} queued", response.getAccepted(), response.getTotal());
+        return ResponseEntity.accepted().body(response);
+    }
+
+    @GetMapping("/refunds/{refundId}")
+    public ResponseEntity<RefundResponse> getRefund(
+            @PathVariable @NotBlank(message = "Refund ID is required") String refundId) {
+        return refundService.getRefund(refundId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(new RefundResponse(false, "Refund not found")));
+    }
+
+    @GetMapping
+    public ResponseEntity<PaymentPage> searchPayments(
+            @ModelAttribute PaymentSearchFilter filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(500) int limit) {
+        return ResponseEntity.ok(paymentSearchService.search(filter, cursor, limit));
+    }
+
+    @GetMapping("/export")
+    public void exportPayments(
+            @ModelAttribute PaymentSearchFilter filter,
+            @RequestParam(defaultValue = "csv") ExportFormat format,
+            HttpServletResponse response) throws IOException {
+        // Written on this thread rather than as an async response, so a long
+        // export is not cut off by the async request timeout
+        response.setContentType(format.getContentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"payments." + format.getExtension() + "\"");
+        long rows = paymentSearchService.export(filter, format, response.getOutputStream());
+        logger.info("Exported {} payments as {}", rows, format);
+    }
+
+    @GetMapping("/rollups")
+    public ResponseEntity<RollupReport> getRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String currency,
+            @RequestParam(required = false) String paymentMethod) {
+        return ResponseEntity.ok(paymentRollupService.report(from, to, currency, paymentMethod));
+    }
+
+    @GetMapping("/rollups:verify")
+    public ResponseEntity<RollupVerification> verifyRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(paymentRollupService.verify(from, to));
+    }
+
+    @PostMapping("/rollups:rebuild")
+    public ResponseEntity<RollupVerification> rebuildRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        logger.info("Rebuilding payment rollups for {} to {}", from, to);
+        return ResponseEntity.ok(paymentRollupService.rebuild(from, to));
+    }
+
     @PostMapping("/webhook")
     public ResponseEntity<String> handleWebhook(HttpServletRequest request) {
         try {
-            // Read the raw payload
-            StringBuilder payload = new StringBuilder();
-            try (BufferedReader reader = request.getReader()) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    payload.append(line);
-                }
-            }
+            // Read the raw payload once; the signature covers these exact bytes
+            byte[] payload = readBody(request);
 
             String signature = request.getHeader("x-webhook-signature");
+            String timestamp = request.getHeader("x-webhook-timestamp");
 
-            logger.info("Processing webhook with signature: {}", signature);
+            logger.debug("Processing webhook of {} bytes", payload.length);
 
-            PaymentResponse response = paymentService.handleWebhook(payload.toString(), signature);
+            PaymentResponse response = paymentService.handleWebhook(payload, timestamp, signature);
 
             if (response.isSuccess()) {
-                return ResponseEntity.ok("Webhook processed successfully");
+                return ResponseEntity.ok("Webhook received");
             } else {
                 return ResponseEntity.badRequest().body("Webhook processing failed");
             }
@@ -92,6 +231,14 @@ public class PaymentController {
         }
     }
 
+    private static byte[] readBody(HttpServletRequest request) throws IOException {
+        int contentLength = request.getContentLength();
+        try (InputStream in = request.getInputStream()) {
+            // Size the buffer exactly when the length is known
+            return contentLength >= 0 ? in.readNBytes(contentLength) : in.readAllBytes();
+        }
+    }
+
     @GetMapping("/health")
     public ResponseEntity<String> healthCheck() {
         return ResponseEntity.ok("Payment service is healthy");
@@ -0,0 +1,29 @@
+package com.rental.payment.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class BatchCreateOrderRequest {
+
+    @NotEmpty(message = "At least one order is required")
+    @Size(max = 500, message = "At most 500 orders per batch")
+    private List<@NotNull @Valid PaymentRequest> orders;
+
+    public BatchCreateOrderRequest() {
+    }
+
+    public BatchCreateOrderRequest(List<PaymentRequest> orders) {
+        this.orders = orders;
+    }
+
+    public List<PaymentRequest> getOrders() {
+        return orders;
+    }
+
+    public void setOrders(List<PaymentRequest> orders) {
+        this.orders = orders;
+    }
+}
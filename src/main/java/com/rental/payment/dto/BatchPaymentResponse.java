@@ -0,0 +1,56 @@
+package com.rental.payment.dto;
+
+import java.util.List;
+
+/**
+ * Per-item results of a batch request, in request order. Each item succeeds or
+ * fails on its own; {@code failed} counts the items whose {@code success} is false.
+ */
+public class BatchPaymentResponse {
+    private int total;
+    private int succeeded;
+    private int failed;
+    private List<PaymentResponse> results;
+
+    public BatchPaymentResponse() {
+    }
+
+    public BatchPaymentResponse(List<PaymentResponse> results) {
+        this.results = results;
+        this.total = results.size();
+        this.succeeded = (int) results.stream().filter(PaymentResponse::isSuccess).count();
+        this.failed = total - succeeded;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(int succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<PaymentResponse> getResults() {
+        return results;
+    }
+
+    public void setResults(List<PaymentResponse> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,30 @@
+package com.rental.payment.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class BatchRefundRequest {
+
+    // Refunds are only queued here, so a batch can be far larger than a create-order batch
+    @NotEmpty(message = "At least one refund is required")
+    @Size(max = 10000, message = "At most 10000 refunds per batch")
+    private List<@NotNull @Valid RefundRequest> refunds;
+
+    public BatchRefundRequest() {
+    }
+
+    public BatchRefundRequest(List<RefundRequest> refunds) {
+        this.refunds = refunds;
+    }
+
+    public List<RefundRequest> getRefunds() {
+        return refunds;
+    }
+
+    public void setRefunds(List<RefundRequest> refunds) {
+        this.refunds = refunds;
+    }
+}
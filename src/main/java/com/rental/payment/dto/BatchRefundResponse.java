@@ -0,0 +1,57 @@
+package com.rental.payment.dto;
+
+import java.util.List;
+
+/**
+ * Per-item results of a refund batch, in request order. {@code accepted}
+ * counts the refunds queued for submission (or already known under the same
+ * refund ID); {@code rejected} those refused up front.
+ */
+public class BatchRefundResponse {
+    private int total;
+    private int accepted;
+    private int rejected;
+    private List<RefundResponse> results;
+
+    public BatchRefundResponse() {
+    }
+
+    public BatchRefundResponse(List<RefundResponse> results) {
+        this.results = results;
+        this.total = results.size();
+        this.accepted = (int) results.stream().filter(RefundResponse::isSuccess).count();
+        this.rejected = total - accepted;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getAccepted() {
+        return accepted;
+    }
+
+    public void setAccepted(int accepted) {
+        this.accepted = accepted;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+
+    public List<RefundResponse> getResults() {
+        return results;
+    }
+
+    public void setResults(List<RefundResponse> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,28 @@
+package com.rental.payment.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class BatchVerifyRequest {
+
+    @NotEmpty(message = "At least one order ID is required")
+    @Size(max = 500, message = "At most 500 order IDs per batch")
+    private List<@NotBlank(message = "Order ID is required") String> orderIds;
+
+    public BatchVerifyRequest() {
+    }
+
+    public BatchVerifyRequest(List<String> orderIds) {
+        this.orderIds = orderIds;
+    }
+
+    public List<String> getOrderIds() {
+        return orderIds;
+    }
+
+    public void setOrderIds(List<String> orderIds) {
+        this.orderIds = orderIds;
+    }
+}
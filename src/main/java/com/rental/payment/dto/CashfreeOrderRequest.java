@@ -0,0 +1,36 @@
+package com.rental.payment.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+
+/**
+ * Body of Cashfree's {@code POST /orders}, serialised by
+ * {@link com.rental.payment.service.CashfreeJsonCodec}.
+ */
+public record CashfreeOrderRequest(
+        @JsonProperty("order_id") String orderId,
+        @JsonProperty("order_amount") BigDecimal orderAmount,
+        @JsonProperty("order_currency") String orderCurrency,
+        @JsonProperty("customer_details") CustomerDetails customerDetails,
+        @JsonProperty("order_meta") OrderMeta orderMeta) {
+
+    public static CashfreeOrderRequest of(PaymentRequest request) {
+        String phone = request.getCustomerPhone();
+        return new CashfreeOrderRequest(request.getOrderId(), request.getAmount(), request.getCurrency(),
+                new CustomerDetails(request.getCustomerId(), request.getCustomerEmail(),
+                        phone == null || phone.trim().isEmpty() ? null : phone),
+                new OrderMeta(request.getReturnUrl()));
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record CustomerDetails(
+            @JsonProperty("customer_id") String customerId,
+            @JsonProperty("customer_email") String customerEmail,
+            @JsonProperty("customer_phone") String customerPhone) {
+    }
+
+    public record OrderMeta(@JsonProperty("return_url") String returnUrl) {
+    }
+}
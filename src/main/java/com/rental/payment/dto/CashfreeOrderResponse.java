@@ -0,0 +1,12 @@
+package com.rental.payment.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The fields of Cashfree's create-order response that the service keeps; the
+ * rest of the body is skipped while parsing.
+ */
+public record CashfreeOrderResponse(
+        @JsonProperty("cf_order_id") String cfOrderId,
+        @JsonProperty("payment_session_id") String paymentSessionId) {
+}
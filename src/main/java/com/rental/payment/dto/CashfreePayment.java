@@ -0,0 +1,49 @@
+package com.rental.payment.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import java.io.IOException;
+
+/**
+ * One payment attempt from Cashfree's {@code GET /orders/{id}/payments}. Only
+ * the fields the service acts on are read.
+ */
+public record CashfreePayment(
+        @JsonProperty("cf_payment_id") String cfPaymentId,
+        @JsonProperty("payment_status") String paymentStatus,
+        @JsonProperty("payment_message") String paymentMessage,
+        @JsonProperty("payment_method") @JsonDeserialize(using = PaymentMethodDeserializer.class)
+        String paymentMethod) {
+
+    /**
+     * Cashfree sends {@code payment_method} as an object keyed by method, e.g.
+     * {@code {"upi": {...}}}; this keeps the key. Plain strings are kept as is.
+     */
+    static class PaymentMethodDeserializer extends JsonDeserializer<String> {
+
+        @Override
+        public String deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            JsonToken token = parser.currentToken();
+            if (token == JsonToken.START_OBJECT) {
+                token = parser.nextToken();
+            } else if (token != JsonToken.FIELD_NAME) {
+                return parser.getValueAsString();
+            }
+            String method = null;
+            while (token == JsonToken.FIELD_NAME) {
+                if (method == null) {
+                    method = parser.currentName();
+                }
+                parser.nextToken();
+                parser.skipChildren();
+                token = parser.nextToken();
+            }
+            return method;
+        }
+    }
+}
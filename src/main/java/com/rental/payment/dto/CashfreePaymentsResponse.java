@@ -0,0 +1,15 @@
+package com.rental.payment.dto;
+
+import java.util.List;
+
+/**
+ * Parsed payment attempts for an order, with the raw body kept for the audit
+ * history.
+ */
+public record CashfreePaymentsResponse(List<CashfreePayment> payments, byte[] payload) {
+
+    /** The attempt Cashfree lists first, or {@code null} if there are none. */
+    public CashfreePayment latest() {
+        return payments == null || payments.isEmpty() ? null : payments.get(0);
+    }
+}
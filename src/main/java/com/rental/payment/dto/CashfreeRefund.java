@@ -0,0 +1,13 @@
+package com.rental.payment.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The fields of a Cashfree refund entity that the service keeps.
+ */
+public record CashfreeRefund(
+        @JsonProperty("cf_refund_id") String cfRefundId,
+        @JsonProperty("refund_id") String refundId,
+        @JsonProperty("refund_status") String refundStatus,
+        @JsonProperty("status_description") String statusDescription) {
+}
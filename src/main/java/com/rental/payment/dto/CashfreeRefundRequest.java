@@ -0,0 +1,17 @@
+package com.rental.payment.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+
+/**
+ * Body of Cashfree's {@code POST /orders/{order_id}/refunds}, serialised by
+ * {@link com.rental.payment.service.CashfreeJsonCodec}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CashfreeRefundRequest(
+        @JsonProperty("refund_amount") BigDecimal refundAmount,
+        @JsonProperty("refund_id") String refundId,
+        @JsonProperty("refund_note") String refundNote) {
+}
@@ -0,0 +1,23 @@
+package com.rental.payment.dto;
+
+/**
+ * The handful of webhook fields the service acts on, extracted by
+ * {@link com.rental.payment.service.WebhookPayloadParser} without building a tree.
+ * Refund webhooks carry the {@code refund*} fields instead of the payment ones.
+ */
+public record CashfreeWebhookEvent(
+        String type,
+        String cfOrderId,
+        String cfPaymentId,
+        String paymentStatus,
+        String paymentMethod,
+        String paymentMessage,
+        String refundId,
+        String cfRefundId,
+        String refundStatus,
+        String refundMessage) {
+
+    public boolean isRefund() {
+        return refundId != null;
+    }
+}
@@ -0,0 +1,25 @@
+package com.rental.payment.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.rental.payment.entity.PaymentStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * A payment status change as published to downstream consumers. Delivery is
+ * at least once; {@code event_id} increases with every change of one order, so
+ * a consumer can drop redeliveries and anything older than what it has seen.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PaymentEvent(
+        @JsonProperty("event_id") Long eventId,
+        @JsonProperty("type") String type,
+        @JsonProperty("order_id") String orderId,
+        @JsonProperty("payment_id") Long paymentId,
+        @JsonProperty("previous_status") PaymentStatus previousStatus,
+        @JsonProperty("status") PaymentStatus status,
+        @JsonProperty("occurred_at") LocalDateTime occurredAt) {
+
+    public static final String STATUS_CHANGED = "payment.status_changed";
+}
@@ -0,0 +1,10 @@
+package com.rental.payment.dto;
+
+import java.util.List;
+
+/**
+ * A page of payments, newest first. {@code nextCursor} is passed back as
+ * {@code cursor} for the following page and is {@code null} on the last one.
+ */
+public record PaymentPage(List<PaymentSummary> payments, String nextCursor) {
+}
@@ -0,0 +1,19 @@
+package com.rental.payment.dto;
+
+import com.rental.payment.entity.PaymentStatus;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filters shared by the payment listing and export, bound from query
+ * parameters. Every field is optional; {@code createdFrom} is inclusive and
+ * {@code createdTo} exclusive.
+ */
+public record PaymentSearchFilter(
+        PaymentStatus status,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+        String customerEmail,
+        String currency) {
+}
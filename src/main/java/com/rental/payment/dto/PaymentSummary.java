@@ -0,0 +1,16 @@
+package com.rental.payment.dto;
+
+import com.rental.payment.entity.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One payment as listed and exported. Selected column by column, so listing
+ * never loads whole entities into the persistence context.
+ */
+public record PaymentSummary(Long id, String orderId, String cfOrderId, BigDecimal amount, String currency,
+                             PaymentStatus status, String paymentMethod, String gatewayTransactionId,
+                             String customerEmail, String failureReason, LocalDateTime createdAt,
+                             LocalDateTime updatedAt) {
+}
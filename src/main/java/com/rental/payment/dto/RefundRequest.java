@@ -0,0 +1,69 @@
+package com.rental.payment.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import java.math.BigDecimal;
+
+public class RefundRequest {
+
+    @NotBlank(message = "Order ID is required")
+    private String orderId;
+
+    // Chosen by the caller so a resubmitted request does not refund twice
+    @NotBlank(message = "Refund ID is required")
+    @Size(max = 40, message = "Refund ID must be at most 40 characters")
+    private String refundId;
+
+    @NotNull(message = "Amount is required")
+    @Positive(message = "Amount must be positive")
+    private BigDecimal amount;
+
+    @Size(max = 100, message = "Note must be at most 100 characters")
+    private String note;
+
+    // Constructors
+    public RefundRequest() {
+    }
+
+    public RefundRequest(String orderId, String refundId, BigDecimal amount, String note) {
+        this.orderId = orderId;
+        this.refundId = refundId;
+        this.amount = amount;
+        this.note = note;
+    }
+
+    // Getters and Setters
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    public String getRefundId() {
+        return refundId;
+    }
+
+    public void setRefundId(String refundId) {
+        this.refundId = refundId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public String getNote() {
+        return note;
+    }
+
+    public void setNote(String note) {
+        this.note = note;
+    }
+}
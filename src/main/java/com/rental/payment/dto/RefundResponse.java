@@ -0,0 +1,101 @@
+package com.rental.payment.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import com.rental.payment.entity.RefundStatus;
+
+public class RefundResponse {
+    private boolean success;
+    private String message;
+    private String refundId;
+    private String orderId;
+    private String cfRefundId;
+    private BigDecimal amount;
+    private RefundStatus status;
+    private String failureReason;
+    private LocalDateTime timestamp;
+
+    // Constructors
+    public RefundResponse() {
+        this.timestamp = LocalDateTime.now();
+    }
+
+    public RefundResponse(boolean success, String message) {
+        this();
+        this.success = success;
+        this.message = message;
+    }
+
+    // Getters and Setters
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getRefundId() {
+        return refundId;
+    }
+
+    public void setRefundId(String refundId) {
+        this.refundId = refundId;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    public String getCfRefundId() {
+        return cfRefundId;
+    }
+
+    public void setCfRefundId(String cfRefundId) {
+        this.cfRefundId = cfRefundId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public RefundStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(RefundStatus status) {
+        this.status = status;
+    }
+
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    public void setFailureReason(String failureReason) {
+        this.failureReason = failureReason;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+}
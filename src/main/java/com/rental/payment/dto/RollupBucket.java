@@ -0,0 +1,15 @@
+package com.rental.payment.dto;
+
+import com.rental.payment.entity.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Count and total amount of paid payments in one rollup bucket. In report
+ * totals, {@code date} and {@code paymentMethod} are {@code null} because the
+ * bucket spans the whole range and every method.
+ */
+public record RollupBucket(LocalDate date, String currency, String paymentMethod, PaymentStatus status,
+                           long paymentCount, BigDecimal amount) {
+}
@@ -0,0 +1,11 @@
+package com.rental.payment.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Dashboard answer for a date range: the daily buckets, plus totals for each
+ * currency and status across the range.
+ */
+public record RollupReport(LocalDate from, LocalDate to, List<RollupBucket> buckets, List<RollupBucket> totals) {
+}
@@ -0,0 +1,19 @@
+package com.rental.payment.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Outcome of checking the rollups of a date range against the payments table.
+ * {@code expected} is recomputed from payments and {@code actual} is what the
+ * rollup holds; a missing side is reported with a zero count.
+ */
+public record RollupVerification(LocalDate from, LocalDate to, int daysChecked, List<Mismatch> mismatches) {
+
+    public boolean isConsistent() {
+        return mismatches.isEmpty();
+    }
+
+    public record Mismatch(RollupBucket expected, RollupBucket actual) {
+    }
+}
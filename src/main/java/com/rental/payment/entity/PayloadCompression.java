@@ -0,0 +1,6 @@
+package com.rental.payment.entity;
+
+public enum PayloadCompression {
+    NONE,
+    DEFLATE
+}
@@ -0,0 +1,116 @@
+package com.rental.payment.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One raw gateway or webhook payload received for a payment. Rows are only ever
+ * appended; the id gives the order in which payloads arrived.
+ */
+@Entity
+@Table(name = "payment_audit", indexes = {
+        @Index(name = "idx_payment_audit_payment", columnList = "payment_id, id")
+})
+public class PaymentAuditEntity {
+
+    @Id
+    @PooledId("payment_audit")
+    private Long id;
+
+    @Column(name = "payment_id", nullable = false)
+    private Long paymentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "source", nullable = false)
+    private PaymentAuditSource source;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "compression", nullable = false)
+    private PayloadCompression compression;
+
+    @Lob
+    @Column(name = "payload", nullable = false)
+    private byte[] payload;
+
+    // Uncompressed size in bytes
+    @Column(name = "payload_size", nullable = false)
+    private int payloadSize;
+
+    @Column(name = "recorded_at", nullable = false)
+    private LocalDateTime recordedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        recordedAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public PaymentAuditEntity() {
+    }
+
+    public PaymentAuditEntity(Long paymentId, PaymentAuditSource source, PayloadCompression compression,
+            byte[] payload, int payloadSize) {
+        this.paymentId = paymentId;
+        this.source = source;
+        this.compression = compression;
+        this.payload = payload;
+        this.payloadSize = payloadSize;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getPaymentId() {
+        return paymentId;
+    }
+
+    public void setPaymentId(Long paymentId) {
+        this.paymentId = paymentId;
+    }
+
+    public PaymentAuditSource getSource() {
+        return source;
+    }
+
+    public void setSource(PaymentAuditSource source) {
+        this.source = source;
+    }
+
+    public PayloadCompression getCompression() {
+        return compression;
+    }
+
+    public void setCompression(PayloadCompression compression) {
+        this.compression = compression;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public void setPayload(byte[] payload) {
+        this.payload = payload;
+    }
+
+    public int getPayloadSize() {
+        return payloadSize;
+    }
+
+    public void setPayloadSize(int payloadSize) {
+        this.payloadSize = payloadSize;
+    }
+
+    public LocalDateTime getRecordedAt() {
+        return recordedAt;
+    }
+
+    public void setRecordedAt(LocalDateTime recordedAt) {
+        this.recordedAt = recordedAt;
+    }
+}
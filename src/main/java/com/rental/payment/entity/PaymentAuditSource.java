@@ -0,0 +1,9 @@
+package com.rental.payment.entity;
+
+public enum PaymentAuditSource {
+    // Copied from payments.raw_response when the audit table was introduced
+    LEGACY,
+    GATEWAY_VERIFY,
+    WEBHOOK,
+    REFUND_WEBHOOK
+}
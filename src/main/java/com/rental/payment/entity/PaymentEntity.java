@@ -5,13 +5,28 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+        @Index(name = "idx_payments_cf_order_id", columnList = "cf_order_id"),
+        @Index(name = "idx_payments_gateway_transaction_id", columnList = "gateway_transaction_id"),
+        @Index(name = "idx_payments_status_created", columnList = "status, created_at"),
+        @Index(name = "idx_payments_customer_created", columnList = "customer_email, created_at"),
+        @Index(name = "idx_payments_created", columnList = "created_at"),
+        @Index(name = "idx_payments_status_updated", columnList = "status, updated_at"),
+        @Index(name = "idx_payments_reconcile_claim_token", columnList = "reconcile_claim_token")
+})
 public class PaymentEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Block-allocated so inserts can be JDBC-batched
+    @PooledId("payments")
     private Long id;
 
+    // Optimistic lock: a webhook and a status refresh can no longer overwrite
+    // each other's update unnoticed
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     @Column(name = "order_id", nullable = false, unique = true)
     private String orderId;
 
@@ -43,15 +58,20 @@ public class PaymentEntity {
     @Column(name = "failure_reason")
     private String failureReason;
 
-    @Column(name = "raw_response", columnDefinition = "TEXT")
-    private String rawResponse;
-
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Set while a reconciler node holds the row; the lease lets another node take
+    // it over if that node dies mid-sweep
+    @Column(name = "reconcile_claim_token")
+    private String reconcileClaimToken;
+
+    @Column(name = "reconcile_lease_until")
+    private LocalDateTime reconcileLeaseUntil;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -76,6 +96,14 @@ public class PaymentEntity {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getOrderId() {
         return orderId;
     }
@@ -156,14 +184,6 @@ public class PaymentEntity {
         this.failureReason = failureReason;
     }
 
-    public String getRawResponse() {
-        return rawResponse;
-    }
-
-    public void setRawResponse(String rawResponse) {
-        this.rawResponse = rawResponse;
-    }
-
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -179,4 +199,20 @@ public class PaymentEntity {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public String getReconcileClaimToken() {
+        return reconcileClaimToken;
+    }
+
+    public void setReconcileClaimToken(String reconcileClaimToken) {
+        this.reconcileClaimToken = reconcileClaimToken;
+    }
+
+    public LocalDateTime getReconcileLeaseUntil() {
+        return reconcileLeaseUntil;
+    }
+
+    public void setReconcileLeaseUntil(LocalDateTime reconcileLeaseUntil) {
+        this.reconcileLeaseUntil = reconcileLeaseUntil;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.rental.payment.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Count and total amount of the paid payments created on one day in one
+ * currency, payment method and status. Only written through
+ * {@code PaymentRollupRepository}'s upsert and rebuild queries.
+ */
+@Entity
+@Table(name = "payment_rollups")
+@IdClass(PaymentRollupKey.class)
+public class PaymentRollupEntity {
+
+    @Id
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    @Id
+    @Column(name = "currency", nullable = false)
+    private String currency;
+
+    @Id
+    @Column(name = "payment_method", nullable = false)
+    private String paymentMethod;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private PaymentStatus status;
+
+    @Column(name = "payment_count", nullable = false)
+    private long paymentCount;
+
+    @Column(name = "amount", nullable = false, precision = 38, scale = 2)
+    private BigDecimal amount;
+
+    // Constructors
+    public PaymentRollupEntity() {
+    }
+
+    public PaymentRollupKey getKey() {
+        return new PaymentRollupKey(rollupDate, currency, paymentMethod, status);
+    }
+
+    // Getters and Setters
+    public LocalDate getRollupDate() {
+        return rollupDate;
+    }
+
+    public void setRollupDate(LocalDate rollupDate) {
+        this.rollupDate = rollupDate;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public String getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public void setPaymentMethod(String paymentMethod) {
+        this.paymentMethod = paymentMethod;
+    }
+
+    public PaymentStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(PaymentStatus status) {
+        this.status = status;
+    }
+
+    public long getPaymentCount() {
+        return paymentCount;
+    }
+
+    public void setPaymentCount(long paymentCount) {
+        this.paymentCount = paymentCount;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+}
@@ -0,0 +1,80 @@
+package com.rental.payment.entity;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * Identifies one payment rollup bucket. Buckets sort in primary key order, the
+ * order in which a transaction updates them.
+ */
+public class PaymentRollupKey implements Serializable, Comparable<PaymentRollupKey> {
+
+    // Stands in for a payment without a recorded method, which the key cannot hold as NULL
+    public static final String UNKNOWN_METHOD = "UNKNOWN";
+
+    private static final Comparator<PaymentRollupKey> ORDER = Comparator
+            .comparing(PaymentRollupKey::getRollupDate)
+            .thenComparing(PaymentRollupKey::getCurrency)
+            .thenComparing(PaymentRollupKey::getPaymentMethod)
+            .thenComparing(key -> key.getStatus().name());
+
+    private LocalDate rollupDate;
+    private String currency;
+    private String paymentMethod;
+    private PaymentStatus status;
+
+    public PaymentRollupKey() {
+    }
+
+    public PaymentRollupKey(LocalDate rollupDate, String currency, String paymentMethod, PaymentStatus status) {
+        this.rollupDate = rollupDate;
+        this.currency = currency;
+        this.paymentMethod = paymentMethod == null ? UNKNOWN_METHOD : paymentMethod;
+        this.status = status;
+    }
+
+    public LocalDate getRollupDate() {
+        return rollupDate;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public String getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public PaymentStatus getStatus() {
+        return status;
+    }
+
+    @Override
+    public int compareTo(PaymentRollupKey other) {
+        return ORDER.compare(this, other);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PaymentRollupKey other)) {
+            return false;
+        }
+        return Objects.equals(rollupDate, other.rollupDate) && Objects.equals(currency, other.currency)
+                && Objects.equals(paymentMethod, other.paymentMethod) && status == other.status;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(rollupDate, currency, paymentMethod, status);
+    }
+
+    @Override
+    public String toString() {
+        return rollupDate + "/" + currency + "/" + paymentMethod + "/" + status;
+    }
+}
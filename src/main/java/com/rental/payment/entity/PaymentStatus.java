@@ -1,10 +1,44 @@
 package com.rental.payment.entity;
 
 public enum PaymentStatus {
-    PENDING,
-    SUCCESS,
-    FAILED,
-    CANCELLED,
-    PARTIAL_REFUNDED,
-    REFUNDED
+    // Row reserved locally, gateway order not yet confirmed. Rows left here by a
+    // crash are reused when the order is created again.
+    INITIATED(0),
+    PENDING(1),
+    SUCCESS(3),
+    FAILED(2),
+    CANCELLED(2),
+    PARTIAL_REFUNDED(4),
+    REFUNDED(5);
+
+    private final int rank;
+
+    PaymentStatus(int rank) {
+        this.rank = rank;
+    }
+
+    /**
+     * Whether a payment in this status may move to {@code next}. Status only moves
+     * forward, so a late or redelivered event (e.g. PENDING after SUCCESS) never
+     * regresses a payment; a failed attempt may still be followed by a success.
+     */
+    public boolean canTransitionTo(PaymentStatus next) {
+        return next == this || next.rank > rank;
+    }
+
+    /**
+     * Whether the payment attempt has settled at the gateway. Asking Cashfree for
+     * the payment status again cannot change a settled payment.
+     */
+    public boolean isTerminal() {
+        return rank >= FAILED.rank;
+    }
+
+    /**
+     * Whether the customer has paid, including payments refunded since. A paid
+     * order is never reopened for another attempt.
+     */
+    public boolean isPaid() {
+        return rank >= SUCCESS.rank;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.rental.payment.entity;
+
+import com.rental.payment.service.IdBlockAllocator;
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Assigns ids from blocks reserved in {@code id_generators} (see
+ * {@link IdBlockAllocator}). Unlike {@code IDENTITY}, the id is known before
+ * the insert, so Hibernate can batch inserts of the entity.
+ */
+@IdGeneratorType(PooledIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface PooledId {
+
+    /** Row in {@code id_generators}. */
+    String value();
+
+    int blockSize() default 50;
+}
@@ -0,0 +1,57 @@
+package com.rental.payment.entity;
+
+import com.rental.payment.service.IdBlockAllocator;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.AnnotationBasedGenerator;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.hibernate.generator.GeneratorCreationContext;
+
+import java.lang.reflect.Member;
+import java.util.EnumSet;
+
+/**
+ * Generator behind {@link PooledId}. Ids are handed out from the current block
+ * in memory; a new block is reserved when it runs out.
+ */
+public class PooledIdGenerator implements BeforeExecutionGenerator, AnnotationBasedGenerator<PooledId> {
+
+    /** Hibernate setting holding the {@link IdBlockAllocator} instance. */
+    public static final String ALLOCATOR_SETTING = "com.rental.payment.id-block-allocator";
+
+    private String name;
+    private int blockSize;
+    private IdBlockAllocator allocator;
+
+    private long next;
+    private long limit;
+
+    @Override
+    public void initialize(PooledId config, Member member, GeneratorCreationContext context) {
+        name = config.value();
+        blockSize = config.blockSize();
+        Object setting = context.getServiceRegistry().requireService(ConfigurationService.class)
+                .getSettings().get(ALLOCATOR_SETTING);
+        if (!(setting instanceof IdBlockAllocator configured)) {
+            throw new IllegalStateException("Hibernate setting " + ALLOCATOR_SETTING + " is not configured");
+        }
+        allocator = configured;
+    }
+
+    @Override
+    public synchronized Object generate(SharedSessionContractImplementor session, Object owner,
+                                        Object currentValue, EventType eventType) {
+        if (next == limit) {
+            next = allocator.reserve(name, blockSize);
+            limit = next + blockSize;
+        }
+        return next++;
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
@@ -0,0 +1,63 @@
+package com.rental.payment.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Records a webhook that has been applied, keyed by {@code cf_payment_id} and
+ * event type, so redeliveries can be recognised across restarts and nodes.
+ */
+@Entity
+@Table(name = "processed_webhook_events", indexes = {
+        @Index(name = "idx_processed_webhook_events_processed_at", columnList = "processed_at")
+})
+public class ProcessedWebhookEventEntity {
+
+    @Id
+    @PooledId("processed_webhook_events")
+    private Long id;
+
+    @Column(name = "event_key", nullable = false, unique = true)
+    private String eventKey;
+
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        processedAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public ProcessedWebhookEventEntity() {
+    }
+
+    public ProcessedWebhookEventEntity(String eventKey) {
+        this.eventKey = eventKey;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getEventKey() {
+        return eventKey;
+    }
+
+    public void setEventKey(String eventKey) {
+        this.eventKey = eventKey;
+    }
+
+    public LocalDateTime getProcessedAt() {
+        return processedAt;
+    }
+
+    public void setProcessedAt(LocalDateTime processedAt) {
+        this.processedAt = processedAt;
+    }
+}
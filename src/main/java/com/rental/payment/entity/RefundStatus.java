@@ -0,0 +1,39 @@
+package com.rental.payment.entity;
+
+public enum RefundStatus {
+    // Accepted locally, waiting for the refund processor to submit it
+    QUEUED(0),
+    // Accepted by Cashfree, waiting for the bank to settle it
+    PENDING(1),
+    SUCCESS(2),
+    FAILED(2);
+
+    private final int rank;
+
+    RefundStatus(int rank) {
+        this.rank = rank;
+    }
+
+    /**
+     * Whether a refund in this status may move to {@code next}. As with
+     * {@link PaymentStatus}, a webhook that overtakes the submission response
+     * is never undone by it.
+     */
+    public boolean canTransitionTo(RefundStatus next) {
+        return next == this || next.rank > rank;
+    }
+
+    /**
+     * Whether Cashfree has reported the final outcome of the refund.
+     */
+    public boolean isSettled() {
+        return rank >= SUCCESS.rank;
+    }
+
+    /**
+     * Whether the refund still counts against the payment's refundable amount.
+     */
+    public boolean isActive() {
+        return this != FAILED;
+    }
+}
@@ -0,0 +1,8 @@
+package com.rental.payment.entity;
+
+public enum WebhookEventStatus {
+    QUEUED,
+    PROCESSING,
+    PROCESSED,
+    FAILED
+}
@@ -0,0 +1,12 @@
+package com.rental.payment.exception;
+
+/**
+ * Raised when the configured number of payment exports is already running.
+ * Each export holds a database connection until it finishes.
+ */
+public class ExportLimitExceededException extends RuntimeException {
+
+    public ExportLimitExceededException(int limit) {
+        super("Payment export limit of " + limit + " concurrent exports reached");
+    }
+}
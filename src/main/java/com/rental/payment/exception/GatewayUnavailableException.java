@@ -0,0 +1,12 @@
+package com.rental.payment.exception;
+
+/**
+ * Raised when a Cashfree call could not be completed: its circuit breaker is
+ * open, too many calls are already in flight, or every retry failed.
+ */
+public class GatewayUnavailableException extends RuntimeException {
+
+    public GatewayUnavailableException(String operation, Throwable cause) {
+        super("Cashfree " + operation + " is unavailable: " + cause.getMessage(), cause);
+    }
+}
@@ -2,12 +2,15 @@ package com.rental.payment.exception;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import com.rental.payment.dto.PaymentResponse;
 
 import jakarta.validation.ConstraintViolationException;
@@ -40,6 +43,68 @@ public class GlobalExceptionHandler {
                 .body(new PaymentResponse(false, "Invalid request parameters"));
     }
 
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<PaymentResponse> handleMethodArgumentTypeMismatchException(
+            MethodArgumentTypeMismatchException ex) {
+        logger.warn("Invalid value for request parameter {}: {}", ex.getName(), ex.getValue());
+        return ResponseEntity.badRequest()
+                .body(new PaymentResponse(false, "Invalid value for " + ex.getName()));
+    }
+
+    @ExceptionHandler(MissingServletRequestParameterException.class)
+    public ResponseEntity<PaymentResponse> handleMissingServletRequestParameterException(
+            MissingServletRequestParameterException ex) {
+        return ResponseEntity.badRequest()
+                .body(new PaymentResponse(false, ex.getParameterName() + " is required"));
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<PaymentResponse> handleInvalidCursorException(InvalidCursorException ex) {
+        logger.warn(ex.getMessage());
+        return ResponseEntity.badRequest()
+                .body(new PaymentResponse(false, "Invalid cursor"));
+    }
+
+    @ExceptionHandler(InvalidDateRangeException.class)
+    public ResponseEntity<PaymentResponse> handleInvalidDateRangeException(InvalidDateRangeException ex) {
+        logger.warn(ex.getMessage());
+        return ResponseEntity.badRequest()
+                .body(new PaymentResponse(false, ex.getMessage()));
+    }
+
+    @ExceptionHandler(ExportLimitExceededException.class)
+    public ResponseEntity<PaymentResponse> handleExportLimitExceededException(ExportLimitExceededException ex) {
+        logger.warn(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "60")
+                .body(new PaymentResponse(false, "Too many payment exports in progress"));
+    }
+
+    @ExceptionHandler(WebhookQueueFullException.class)
+    public ResponseEntity<PaymentResponse> handleWebhookQueueFullException(WebhookQueueFullException ex) {
+        logger.warn(ex.getMessage());
+        // Cashfree redelivers unacknowledged webhooks, so ask it to back off
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "30")
+                .body(new PaymentResponse(false, "Webhook queue is full"));
+    }
+
+    @ExceptionHandler(OrderBusyException.class)
+    public ResponseEntity<PaymentResponse> handleOrderBusyException(OrderBusyException ex) {
+        logger.warn(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new PaymentResponse(false, "Another request for this order is in progress"));
+    }
+
+    @ExceptionHandler(GatewayUnavailableException.class)
+    public ResponseEntity<PaymentResponse> handleGatewayUnavailableException(GatewayUnavailableException ex) {
+        logger.warn(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "10")
+                .body(new PaymentResponse(false, "Payment gateway is temporarily unavailable"));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<PaymentResponse> handleGenericException(Exception ex) {
         logger.error("Unexpected error: ", ex);
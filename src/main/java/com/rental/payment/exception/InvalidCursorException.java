@@ -0,0 +1,11 @@
+package com.rental.payment.exception;
+
+/**
+ * Raised when a payment listing cursor was not issued by this service.
+ */
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String cursor) {
+        super("Invalid payment listing cursor: " + cursor);
+    }
+}
@@ -0,0 +1,13 @@
+package com.rental.payment.exception;
+
+import java.time.LocalDate;
+
+/**
+ * Raised when a rollup request's range is reversed or longer than allowed.
+ */
+public class InvalidDateRangeException extends RuntimeException {
+
+    public InvalidDateRangeException(LocalDate from, LocalDate to, int maxDays) {
+        super("Date range " + from + " to " + to + " must be ordered and at most " + maxDays + " days long");
+    }
+}
@@ -0,0 +1,12 @@
+package com.rental.payment.exception;
+
+/**
+ * Raised when another node holds the lock for an order and does not release it
+ * within the configured wait.
+ */
+public class OrderBusyException extends RuntimeException {
+
+    public OrderBusyException(String orderId) {
+        super("Another request for order " + orderId + " is in progress");
+    }
+}
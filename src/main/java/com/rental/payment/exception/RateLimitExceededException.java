@@ -0,0 +1,12 @@
+package com.rental.payment.exception;
+
+/**
+ * Raised when a Cashfree call could not get a rate limit permit: its traffic
+ * class queue is full, or it waited longer than {@code cashfree.rate-limit.max-wait}.
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    public RateLimitExceededException(String trafficClass) {
+        super("Cashfree request quota exhausted for " + trafficClass + " traffic", null, false, false);
+    }
+}
@@ -0,0 +1,12 @@
+package com.rental.payment.exception;
+
+/**
+ * Thrown when the webhook queue is at capacity. Cashfree retries webhooks that
+ * are not acknowledged, so rejecting early is safe and sheds load.
+ */
+public class WebhookQueueFullException extends RuntimeException {
+
+    public WebhookQueueFullException(long depth) {
+        super("Webhook queue is full (" + depth + " events pending)");
+    }
+}
@@ -0,0 +1,50 @@
+package com.rental.payment.repository;
+
+import com.rental.payment.entity.PaymentEntity;
+import com.rental.payment.entity.PaymentStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Order lookups across the hot {@code payments} table and
+ * {@code payments_archive}. Keys missing from payments are looked up in the
+ * archive, and archived rows found there are moved back into payments in the
+ * caller's transaction, so callers always get a managed entity they can
+ * update.
+ */
+public interface PaymentArchiveRepository {
+
+    Optional<PaymentEntity> findByOrderId(String orderId);
+
+    Optional<PaymentEntity> findByCfOrderId(String cfOrderId);
+
+    List<PaymentEntity> findAllByOrderIdIn(Collection<String> orderIds);
+
+    List<PaymentEntity> findAllByCfOrderIdIn(Collection<String> cfOrderIds);
+
+    /**
+     * Loads the payments and increments their version when the transaction
+     * commits, so a concurrent writer that read them first fails its commit.
+     */
+    List<PaymentEntity> lockAllByOrderIdIn(Collection<String> orderIds);
+
+    /**
+     * Moves the given payments to the archive. Each row is checked again under
+     * a row lock, and rows that have left {@code statuses}, were updated after
+     * {@code cutoff} or have a refund in flight stay in payments. Returns the
+     * number of payments archived.
+     */
+    int archive(Collection<Long> ids, Collection<PaymentStatus> statuses, LocalDateTime cutoff);
+
+    /**
+     * Data and index size of payments and the archive as reported by the
+     * database, or an empty list if it does not report table sizes.
+     */
+    List<TableSize> tableSizes();
+
+    record TableSize(String table, long dataBytes, long indexBytes) {
+    }
+}
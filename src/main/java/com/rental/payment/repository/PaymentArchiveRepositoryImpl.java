@@ -0,0 +1,227 @@
+package com.rental.payment.repository;
+
+import com.rental.payment.entity.PaymentEntity;
+import com.rental.payment.entity.PaymentStatus;
+import com.rental.payment.entity.RefundStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Rows move between the tables with {@code INSERT ... SELECT} and
+ * {@code DELETE} under row locks on the side they leave, so a payment is never
+ * in both tables once the moving transaction commits. The hot table lookup
+ * stays a single indexed query; the archive is only read for keys it missed.
+ */
+class PaymentArchiveRepositoryImpl implements PaymentArchiveRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentArchiveRepositoryImpl.class);
+
+    // Every payments column except the reconciler lease, which no settled payment holds
+    private static final String COLUMNS = "id, version, order_id, cf_order_id, amount, currency, customer_email, "
+            + "customer_phone, status, payment_method, gateway_transaction_id, failure_reason, created_at, updated_at";
+
+    private static final List<String> OPEN_REFUND_STATUSES = Arrays.stream(RefundStatus.values())
+            .filter(status -> !status.isSettled())
+            .map(RefundStatus::name)
+            .toList();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer restoredTimer;
+    private Timer absentTimer;
+    private Counter restoredCounter;
+
+    @PostConstruct
+    void init() {
+        restoredTimer = Timer.builder("payment.archive.lookup")
+                .tag("outcome", "restored")
+                .description("Archive lookups after a hot table miss")
+                .register(meterRegistry);
+        absentTimer = Timer.builder("payment.archive.lookup")
+                .tag("outcome", "absent")
+                .description("Archive lookups after a hot table miss")
+                .register(meterRegistry);
+        restoredCounter = Counter.builder("payment.archive.restored")
+                .description("Archived payments moved back to the payments table by a lookup")
+                .register(meterRegistry);
+    }
+
+    @Override
+    @Transactional
+    public Optional<PaymentEntity> findByOrderId(String orderId) {
+        return find("order_id", "orderId", PaymentEntity::getOrderId, List.of(orderId), LockModeType.NONE)
+                .stream().findFirst();
+    }
+
+    @Override
+    @Transactional
+    public Optional<PaymentEntity> findByCfOrderId(String cfOrderId) {
+        return find("cf_order_id", "cfOrderId", PaymentEntity::getCfOrderId, List.of(cfOrderId), LockModeType.NONE)
+                .stream().findFirst();
+    }
+
+    @Override
+    @Transactional
+    public List<PaymentEntity> findAllByOrderIdIn(Collection<String> orderIds) {
+        return find("order_id", "orderId", PaymentEntity::getOrderId, orderIds, LockModeType.NONE);
+    }
+
+    @Override
+    @Transactional
+    public List<PaymentEntity> findAllByCfOrderIdIn(Collection<String> cfOrderIds) {
+        return find("cf_order_id", "cfOrderId", PaymentEntity::getCfOrderId, cfOrderIds, LockModeType.NONE);
+    }
+
+    @Override
+    @Transactional
+    public List<PaymentEntity> lockAllByOrderIdIn(Collection<String> orderIds) {
+        return find("order_id", "orderId", PaymentEntity::getOrderId, orderIds,
+                LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+    }
+
+    @Override
+    @Transactional
+    public int archive(Collection<Long> ids, Collection<PaymentStatus> statuses, LocalDateTime cutoff) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Long> locked = ids(entityManager.createNativeQuery("SELECT id FROM payments p WHERE p.id IN (:ids) "
+                        + "AND p.status IN (:statuses) AND p.updated_at < :cutoff AND NOT EXISTS "
+                        + "(SELECT 1 FROM refunds r WHERE r.payment_id = p.id AND r.status IN (:refundStatuses)) "
+                        + "FOR UPDATE")
+                .setParameter("ids", ids)
+                .setParameter("statuses", statuses.stream().map(PaymentStatus::name).toList())
+                .setParameter("cutoff", cutoff)
+                .setParameter("refundStatuses", OPEN_REFUND_STATUSES)
+                .getResultList());
+        if (locked.isEmpty()) {
+            return 0;
+        }
+
+        entityManager.createNativeQuery("INSERT INTO payments_archive (" + COLUMNS + ", archived_at) SELECT "
+                        + COLUMNS + ", :archivedAt FROM payments WHERE id IN (:ids)")
+                .setParameter("archivedAt", LocalDateTime.now())
+                .setParameter("ids", locked)
+                .executeUpdate();
+        return entityManager.createNativeQuery("DELETE FROM payments WHERE id IN (:ids)")
+                .setParameter("ids", locked)
+                .executeUpdate();
+    }
+
+    @Override
+    public List<TableSize> tableSizes() {
+        try {
+            List<?> rows = entityManager.createNativeQuery("SELECT table_name, data_length, index_length "
+                            + "FROM information_schema.tables WHERE table_schema = DATABASE() "
+                            + "AND table_name IN ('payments', 'payments_archive')")
+                    .getResultList();
+            return rows.stream()
+                    .map(row -> (Object[]) row)
+                    .map(row -> new TableSize((String) row[0], ((Number) row[1]).longValue(),
+                            ((Number) row[2]).longValue()))
+                    .toList();
+        } catch (PersistenceException e) {
+            logger.debug("Database does not report table sizes: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    private List<PaymentEntity> find(String column, String attribute, Function<PaymentEntity, String> key,
+            Collection<String> keys, LockModeType lockMode) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        List<PaymentEntity> payments = select(attribute, keys, lockMode);
+        Set<String> found = payments.stream().map(key).collect(Collectors.toSet());
+        Set<String> missing = new LinkedHashSet<>(keys);
+        missing.removeAll(found);
+        if (missing.isEmpty()) {
+            return payments;
+        }
+
+        long started = System.nanoTime();
+        int restored = restore(column, missing);
+        (restored > 0 ? restoredTimer : absentTimer).record(System.nanoTime() - started,
+                TimeUnit.NANOSECONDS);
+        if (restored == 0) {
+            return payments;
+        }
+        restoredCounter.increment(restored);
+        List<PaymentEntity> all = new ArrayList<>(payments);
+        all.addAll(select(attribute, missing, lockMode));
+        return all;
+    }
+
+    private List<PaymentEntity> select(String attribute, Collection<String> keys, LockModeType lockMode) {
+        return entityManager.createQuery("select p from PaymentEntity p where p." + attribute + " in :keys",
+                        PaymentEntity.class)
+                .setParameter("keys", keys)
+                .setLockMode(lockMode)
+                .getResultList();
+    }
+
+    /**
+     * Moves the archived payments matching {@code keys} back to payments. Most
+     * misses are new orders with nothing archived, so the archive is probed
+     * with a plain read first: a locking read that finds nothing would take
+     * InnoDB gap locks that block the archiver's inserts. Rows found are then
+     * locked by id, so concurrent lookups of the same order restore it only
+     * once; one that lost the race finds nothing left to lock.
+     */
+    private int restore(String column, Collection<String> keys) {
+        List<Long> candidates = ids(entityManager.createNativeQuery("SELECT id FROM payments_archive WHERE "
+                        + column + " IN (:keys)")
+                .setParameter("keys", keys)
+                .getResultList());
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = ids(entityManager.createNativeQuery("SELECT id FROM payments_archive WHERE id IN (:ids) "
+                        + "FOR UPDATE")
+                .setParameter("ids", candidates)
+                .getResultList());
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        entityManager.createNativeQuery("INSERT INTO payments (" + COLUMNS + ") SELECT " + COLUMNS
+                        + " FROM payments_archive WHERE id IN (:ids)")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM payments_archive WHERE id IN (:ids)")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        logger.info("Restored {} archived payments", ids.size());
+        return ids.size();
+    }
+
+    private static List<Long> ids(List<?> rows) {
+        return rows.stream().map(id -> ((Number) id).longValue()).toList();
+    }
+}
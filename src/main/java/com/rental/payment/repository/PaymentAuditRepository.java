@@ -0,0 +1,13 @@
+package com.rental.payment.repository;
+
+import com.rental.payment.entity.PaymentAuditEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PaymentAuditRepository extends JpaRepository<PaymentAuditEntity, Long> {
+
+    List<PaymentAuditEntity> findByPaymentIdOrderByIdAsc(Long paymentId);
+}
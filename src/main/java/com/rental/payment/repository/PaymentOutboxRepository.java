@@ -0,0 +1,14 @@
+package com.rental.payment.repository;
+
+import com.rental.payment.entity.PaymentOutboxEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PaymentOutboxRepository extends JpaRepository<PaymentOutboxEntity, Long> {
+
+    List<PaymentOutboxEntity> findAllByOrderByIdAsc(Pageable pageable);
+}
@@ -1,13 +1,55 @@
 package com.rental.payment.repository;
 
 import com.rental.payment.entity.PaymentEntity;
+import com.rental.payment.entity.PaymentStatus;
+import com.rental.payment.entity.RefundStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import java.util.Optional;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 @Repository
-public interface PaymentRepository extends JpaRepository<PaymentEntity, Long> {
-    Optional<PaymentEntity> findByOrderId(String orderId);
+public interface PaymentRepository extends JpaRepository<PaymentEntity, Long>, PaymentSearchRepository,
+        PaymentArchiveRepository {
+
+    /**
+     * Keyset page of payments in {@code status} not touched since {@code cutoff},
+     * skipping rows another reconciler currently holds a lease on.
+     */
+    @Query("select p.id from PaymentEntity p where p.status = :status and p.updatedAt < :cutoff and p.id > :afterId "
+            + "and (p.reconcileLeaseUntil is null or p.reconcileLeaseUntil < :now) order by p.id")
+    List<Long> findReconcilableIds(@Param("status") PaymentStatus status, @Param("cutoff") LocalDateTime cutoff,
+            @Param("afterId") long afterId, @Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Leases the given payments to one reconciler. Rows whose lease another node
+     * took in the meantime are left alone.
+     */
+    @Transactional
+    @Modifying
+    @Query("update PaymentEntity p set p.reconcileClaimToken = :token, p.reconcileLeaseUntil = :leaseUntil "
+            + "where p.id in :ids and (p.reconcileLeaseUntil is null or p.reconcileLeaseUntil < :now)")
+    int claimForReconciliation(@Param("ids") Collection<Long> ids, @Param("token") String token,
+            @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    List<PaymentEntity> findByReconcileClaimTokenOrderByIdAsc(String reconcileClaimToken);
 
-    Optional<PaymentEntity> findByCfOrderId(String cfOrderId);
+    /**
+     * Keyset page of payments in {@code statuses} not updated since
+     * {@code cutoff} and without a refund in flight.
+     */
+    @Query("select p.id from PaymentEntity p where p.status in :statuses and p.updatedAt < :cutoff "
+            + "and p.id > :afterId and not exists (select r.id from RefundEntity r where r.paymentId = p.id "
+            + "and r.status in :openRefundStatuses) order by p.id")
+    List<Long> findArchivableIds(@Param("statuses") Collection<PaymentStatus> statuses,
+            @Param("cutoff") LocalDateTime cutoff,
+            @Param("openRefundStatuses") Collection<RefundStatus> openRefundStatuses,
+            @Param("afterId") long afterId, Pageable pageable);
 }
\ No newline at end of file
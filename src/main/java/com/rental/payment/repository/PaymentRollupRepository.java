@@ -0,0 +1,76 @@
+package com.rental.payment.repository;
+
+import com.rental.payment.entity.PaymentRollupEntity;
+import com.rental.payment.entity.PaymentRollupKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PaymentRollupRepository extends JpaRepository<PaymentRollupEntity, PaymentRollupKey> {
+
+    // Payments created in one day, hot or archived
+    String DAY_PAYMENTS = "(SELECT currency, payment_method, status, amount FROM payments "
+            + "WHERE created_at >= :dayStart AND created_at < :dayEnd "
+            + "UNION ALL SELECT currency, payment_method, status, amount FROM payments_archive "
+            + "WHERE created_at >= :dayStart AND created_at < :dayEnd) p ";
+
+    @Query("select r from PaymentRollupEntity r where r.rollupDate between :from and :to "
+            + "and (:currency is null or r.currency = :currency) "
+            + "and (:paymentMethod is null or r.paymentMethod = :paymentMethod) "
+            + "order by r.rollupDate, r.currency, r.paymentMethod, r.status")
+    List<PaymentRollupEntity> findRange(@Param("from") LocalDate from, @Param("to") LocalDate to,
+            @Param("currency") String currency, @Param("paymentMethod") String paymentMethod);
+
+    /**
+     * Adds {@code count} and {@code amount} (either may be negative) to one
+     * bucket, creating it if needed. Atomic per row, so concurrent transactions
+     * updating the same bucket never lose each other's change.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO payment_rollups (rollup_date, currency, payment_method, status, payment_count, amount) "
+            + "VALUES (:rollupDate, :currency, :paymentMethod, :status, :count, :amount) "
+            + "ON DUPLICATE KEY UPDATE payment_count = payment_count + :count, amount = amount + :amount",
+            nativeQuery = true)
+    int addToBucket(@Param("rollupDate") LocalDate rollupDate, @Param("currency") String currency,
+            @Param("paymentMethod") String paymentMethod, @Param("status") String status,
+            @Param("count") long count, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("delete from PaymentRollupEntity r where r.rollupDate = :rollupDate")
+    int deleteDay(@Param("rollupDate") LocalDate rollupDate);
+
+    /**
+     * Recomputes one day's buckets from payments and the archive; the day's old
+     * buckets must have been deleted in the same transaction.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO payment_rollups (rollup_date, currency, payment_method, status, payment_count, amount) "
+            + "SELECT :rollupDate, currency, COALESCE(payment_method, '" + PaymentRollupKey.UNKNOWN_METHOD + "'), "
+            + "status, COUNT(*), SUM(amount) FROM " + DAY_PAYMENTS
+            + "WHERE status IN (:statuses) "
+            + "GROUP BY currency, COALESCE(payment_method, '" + PaymentRollupKey.UNKNOWN_METHOD + "'), status",
+            nativeQuery = true)
+    int rebuildDay(@Param("rollupDate") LocalDate rollupDate, @Param("dayStart") LocalDateTime dayStart,
+            @Param("dayEnd") LocalDateTime dayEnd, @Param("statuses") Collection<String> statuses);
+
+    /**
+     * One day's buckets computed straight from payments and the archive, as
+     * {@code [currency, payment_method, status, count, amount]} rows.
+     */
+    @Query(value = "SELECT currency, COALESCE(payment_method, '" + PaymentRollupKey.UNKNOWN_METHOD + "'), status, "
+            + "COUNT(*), SUM(amount) FROM " + DAY_PAYMENTS
+            + "WHERE status IN (:statuses) "
+            + "GROUP BY currency, COALESCE(payment_method, '" + PaymentRollupKey.UNKNOWN_METHOD + "'), status",
+            nativeQuery = true)
+    List<Object[]> aggregateDay(@Param("dayStart") LocalDateTime dayStart, @Param("dayEnd") LocalDateTime dayEnd,
+            @Param("statuses") Collection<String> statuses);
+}
@@ -0,0 +1,27 @@
+package com.rental.payment.repository;
+
+import com.rental.payment.dto.PaymentSearchFilter;
+import com.rental.payment.dto.PaymentSummary;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Filtered payment listings ordered newest first by {@code (created_at, id)},
+ * across payments and payments_archive.
+ */
+public interface PaymentSearchRepository {
+
+    /**
+     * Returns up to {@code limit} payments that sort after the given position.
+     * Pass {@code null} for both to start from the newest payment.
+     */
+    List<PaymentSummary> search(PaymentSearchFilter filter, LocalDateTime afterCreatedAt, Long afterId, int limit);
+
+    /**
+     * Streams every matching payment, {@code fetchSize} rows per database round
+     * trip. Must be consumed and closed inside a transaction.
+     */
+    Stream<PaymentSummary> stream(PaymentSearchFilter filter, int fetchSize);
+}
@@ -0,0 +1,121 @@
+package com.rental.payment.repository;
+
+import com.rental.payment.dto.PaymentSearchFilter;
+import com.rental.payment.dto.PaymentSummary;
+import com.rental.payment.entity.PaymentStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.jpa.HibernateHints;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Builds the listing query from whichever filters are set, so each query only
+ * carries predicates the indexes on {@code (status, created_at)},
+ * {@code (customer_email, created_at)} and {@code (created_at)} can serve.
+ * Pages seek past the last row instead of using OFFSET, so every page costs
+ * the same however deep it is.
+ *
+ * Archived payments are listed too: the same query runs against payments and
+ * payments_archive, which carries the same indexes, and the two are merged
+ * with {@code UNION ALL}. A page takes at most {@code limit} rows from each
+ * table before merging.
+ */
+class PaymentSearchRepositoryImpl implements PaymentSearchRepository {
+
+    private static final String COLUMNS = "id, order_id, cf_order_id, amount, currency, status, payment_method, "
+            + "gateway_transaction_id, customer_email, failure_reason, created_at, updated_at";
+
+    private static final String ORDER_BY = " ORDER BY created_at DESC, id DESC";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<PaymentSummary> search(PaymentSearchFilter filter, LocalDateTime afterCreatedAt, Long afterId,
+            int limit) {
+        List<String> predicates = new ArrayList<>();
+        Map<String, Object> parameters = new HashMap<>();
+        addFilters(filter, predicates, parameters);
+        if (afterCreatedAt != null && afterId != null) {
+            predicates.add("(created_at < :afterCreatedAt OR (created_at = :afterCreatedAt AND id < :afterId))");
+            parameters.put("afterCreatedAt", afterCreatedAt);
+            parameters.put("afterId", afterId);
+        }
+        parameters.put("limit", limit);
+
+        List<?> rows = query(predicates, parameters, " LIMIT :limit").getResultList();
+        return rows.stream().map(row -> summary((Object[]) row)).toList();
+    }
+
+    @Override
+    public Stream<PaymentSummary> stream(PaymentSearchFilter filter, int fetchSize) {
+        List<String> predicates = new ArrayList<>();
+        Map<String, Object> parameters = new HashMap<>();
+        addFilters(filter, predicates, parameters);
+
+        Stream<?> rows = query(predicates, parameters, "")
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+        return rows.map(row -> summary((Object[]) row));
+    }
+
+    private Query query(List<String> predicates, Map<String, Object> parameters, String limit) {
+        String where = predicates.isEmpty() ? "" : " WHERE " + String.join(" AND ", predicates);
+        String sql = "SELECT " + COLUMNS + " FROM ("
+                + branch("payments", where, limit) + " UNION ALL " + branch("payments_archive", where, limit)
+                + ") p" + ORDER_BY + limit;
+        Query query = entityManager.createNativeQuery(sql);
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+
+    private static String branch(String table, String where, String limit) {
+        String select = "SELECT " + COLUMNS + " FROM " + table + where;
+        // Each side only needs its first rows of the page, read in index order
+        return limit.isEmpty() ? select : "(" + select + ORDER_BY + limit + ")";
+    }
+
+    private static void addFilters(PaymentSearchFilter filter, List<String> predicates,
+            Map<String, Object> parameters) {
+        if (filter.status() != null) {
+            predicates.add("status = :status");
+            parameters.put("status", filter.status().name());
+        }
+        if (filter.customerEmail() != null) {
+            predicates.add("customer_email = :customerEmail");
+            parameters.put("customerEmail", filter.customerEmail());
+        }
+        if (filter.currency() != null) {
+            predicates.add("currency = :currency");
+            parameters.put("currency", filter.currency());
+        }
+        if (filter.createdFrom() != null) {
+            predicates.add("created_at >= :createdFrom");
+            parameters.put("createdFrom", filter.createdFrom());
+        }
+        if (filter.createdTo() != null) {
+            predicates.add("created_at < :createdTo");
+            parameters.put("createdTo", filter.createdTo());
+        }
+    }
+
+    private static PaymentSummary summary(Object[] row) {
+        return new PaymentSummary(((Number) row[0]).longValue(), (String) row[1], (String) row[2],
+                (BigDecimal) row[3], (String) row[4], PaymentStatus.valueOf((String) row[5]), (String) row[6],
+                (String) row[7], (String) row[8], (String) row[9], dateTime(row[10]), dateTime(row[11]));
+    }
+
+    private static LocalDateTime dateTime(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+}
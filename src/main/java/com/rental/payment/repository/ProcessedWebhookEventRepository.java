@@ -0,0 +1,25 @@
+package com.rental.payment.repository;
+
+import com.rental.payment.entity.ProcessedWebhookEventEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProcessedWebhookEventRepository extends JpaRepository<ProcessedWebhookEventEntity, Long> {
+
+    @Query("select e.eventKey from ProcessedWebhookEventEntity e where e.eventKey in :eventKeys")
+    List<String> findExistingKeys(@Param("eventKeys") Collection<String> eventKeys);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ProcessedWebhookEventEntity e where e.processedAt < :cutoff")
+    int deleteProcessedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
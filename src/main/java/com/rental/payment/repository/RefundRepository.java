@@ -0,0 +1,55 @@
+package com.rental.payment.repository;
+
+import com.rental.payment.entity.RefundEntity;
+import com.rental.payment.entity.RefundStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RefundRepository extends JpaRepository<RefundEntity, Long> {
+
+    Optional<RefundEntity> findByRefundId(String refundId);
+
+    List<RefundEntity> findAllByRefundIdIn(Collection<String> refundIds);
+
+    List<RefundEntity> findAllByPaymentIdIn(Collection<Long> paymentIds);
+
+    @Query("select r.id from RefundEntity r where r.status = :status and r.availableAt <= :now "
+            + "and r.claimToken is null order by r.id")
+    List<Long> findAvailableIds(@Param("status") RefundStatus status, @Param("now") LocalDateTime now,
+            Pageable pageable);
+
+    /**
+     * Claims the given queued refunds for one processor. Rows another node
+     * claimed in the meantime are left alone. The version bump makes a webhook
+     * update racing the claim retry instead of clearing it.
+     */
+    @Transactional
+    @Modifying
+    @Query("update RefundEntity r set r.claimToken = :token, r.claimedAt = :now, r.version = r.version + 1 "
+            + "where r.id in :ids and r.status = com.rental.payment.entity.RefundStatus.QUEUED "
+            + "and r.claimToken is null")
+    int claim(@Param("ids") Collection<Long> ids, @Param("token") String token, @Param("now") LocalDateTime now);
+
+    List<RefundEntity> findByClaimTokenOrderByIdAsc(String claimToken);
+
+    /**
+     * Releases refunds whose processor died while submitting them. Resubmitting
+     * is safe because Cashfree deduplicates on the refund's idempotency key.
+     */
+    @Transactional
+    @Modifying
+    @Query("update RefundEntity r set r.claimToken = null, r.version = r.version + 1 "
+            + "where r.claimToken is not null and r.claimedAt < :cutoff")
+    int releaseStaleClaims(@Param("cutoff") LocalDateTime cutoff);
+}
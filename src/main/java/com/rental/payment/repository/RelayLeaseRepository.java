@@ -0,0 +1,32 @@
+package com.rental.payment.repository;
+
+import com.rental.payment.entity.RelayLeaseEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface RelayLeaseRepository extends JpaRepository<RelayLeaseEntity, String> {
+
+    /**
+     * Takes or renews the named lease for {@code owner}. Returns 0 while
+     * another owner's lease is still running.
+     */
+    @Transactional
+    @Modifying
+    @Query("update RelayLeaseEntity l set l.owner = :owner, l.leaseUntil = :until where l.name = :name "
+            + "and (l.owner = :owner or l.leaseUntil is null or l.leaseUntil < :now)")
+    int acquire(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now,
+            @Param("until") LocalDateTime until);
+
+    @Transactional
+    @Modifying
+    @Query("update RelayLeaseEntity l set l.owner = null, l.leaseUntil = null "
+            + "where l.name = :name and l.owner = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner);
+}
@@ -0,0 +1,62 @@
+package com.rental.payment.repository;
+
+import com.rental.payment.entity.WebhookEventEntity;
+import com.rental.payment.entity.WebhookEventStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WebhookEventRepository extends JpaRepository<WebhookEventEntity, Long> {
+
+    @Query("select e.id from WebhookEventEntity e where e.status = :status and e.availableAt <= :now order by e.id")
+    List<Long> findAvailableIds(@Param("status") WebhookEventStatus status, @Param("now") LocalDateTime now,
+            Pageable pageable);
+
+    /**
+     * Claims the given queued events for one worker. Only rows still QUEUED are
+     * taken, so concurrent pollers on other nodes never process the same event.
+     */
+    @Transactional
+    @Modifying
+    @Query("update WebhookEventEntity e set e.status = com.rental.payment.entity.WebhookEventStatus.PROCESSING, "
+            + "e.claimToken = :token, e.claimedAt = :now "
+            + "where e.id in :ids and e.status = com.rental.payment.entity.WebhookEventStatus.QUEUED")
+    int claim(@Param("ids") Collection<Long> ids, @Param("token") String token, @Param("now") LocalDateTime now);
+
+    List<WebhookEventEntity> findByClaimTokenOrderByIdAsc(String claimToken);
+
+    /**
+     * Returns events whose worker died mid-batch to the queue.
+     */
+    @Transactional
+    @Modifying
+    @Query("update WebhookEventEntity e set e.status = com.rental.payment.entity.WebhookEventStatus.QUEUED, "
+            + "e.claimToken = null "
+            + "where e.status = com.rental.payment.entity.WebhookEventStatus.PROCESSING and e.claimedAt < :cutoff")
+    int releaseStaleClaims(@Param("cutoff") LocalDateTime cutoff);
+
+    @Query("select e.id from WebhookEventEntity e where e.status in :statuses and e.processedAt < :cutoff "
+            + "order by e.id")
+    List<Long> findFinishedIds(@Param("statuses") Collection<WebhookEventStatus> statuses,
+            @Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("delete from WebhookEventEntity e where e.id in :ids and e.status in :statuses")
+    int deleteFinished(@Param("ids") Collection<Long> ids,
+            @Param("statuses") Collection<WebhookEventStatus> statuses);
+
+    long countByStatusIn(Collection<WebhookEventStatus> statuses);
+
+    @Query("select min(e.receivedAt) from WebhookEventEntity e where e.status = :status")
+    LocalDateTime findOldestReceivedAt(@Param("status") WebhookEventStatus status);
+}
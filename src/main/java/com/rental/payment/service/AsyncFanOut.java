@@ -0,0 +1,51 @@
+package com.rental.payment.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Runs an async call per item with at most {@code concurrency} calls in flight,
+ * starting the next item as each call completes. No thread waits on a permit.
+ */
+final class AsyncFanOut {
+
+    private AsyncFanOut() {
+    }
+
+    /**
+     * Returns the results in item order. {@code call} should handle its own
+     * errors; a call that completes exceptionally fails the whole fan-out.
+     */
+    static <T, R> CompletableFuture<List<R>> map(List<T> items, int concurrency,
+            Function<T, CompletableFuture<R>> call) {
+        AtomicReferenceArray<R> results = new AtomicReferenceArray<>(items.size());
+        AtomicInteger next = new AtomicInteger();
+        CompletableFuture<?>[] workers = new CompletableFuture<?>[Math.min(Math.max(1, concurrency), items.size())];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = runNext(items, call, results, next);
+        }
+        return CompletableFuture.allOf(workers).thenApply(ignored -> {
+            List<R> ordered = new ArrayList<>(items.size());
+            for (int i = 0; i < items.size(); i++) {
+                ordered.add(results.get(i));
+            }
+            return ordered;
+        });
+    }
+
+    private static <T, R> CompletableFuture<Void> runNext(List<T> items, Function<T, CompletableFuture<R>> call,
+            AtomicReferenceArray<R> results, AtomicInteger next) {
+        int index = next.getAndIncrement();
+        if (index >= items.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return call.apply(items.get(index)).thenCompose(result -> {
+            results.set(index, result);
+            return runNext(items, call, results, next);
+        });
+    }
+}
@@ -0,0 +1,452 @@
+package com.rental.payment.service;
+
+import com.rental.payment.config.CashfreeConfig;
+import com.rental.payment.dto.CashfreeOrderRequest;
+import com.rental.payment.dto.CashfreeOrderResponse;
+import com.rental.payment.dto.CashfreePaymentsResponse;
+import com.rental.payment.dto.CashfreeRefund;
+import com.rental.payment.dto.CashfreeRefundRequest;
+import com.rental.payment.dto.PaymentRequest;
+import com.rental.payment.exception.GatewayUnavailableException;
+import com.rental.payment.exception.RateLimitExceededException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Thin client for the Cashfree PG REST API. Calls share pooled HTTP clients, so
+ * connections are kept alive between requests. Requests use the non-blocking
+ * client unless {@code cashfree.http.mode=blocking}, in which case they run the
+ * classic client on the caller's thread and return a completed future.
+ *
+ * Every call passes through a per-endpoint retry and circuit breaker and the
+ * shared bulkhead from {@link com.rental.payment.config.ResilienceConfig}, and
+ * waits its turn in {@link GatewayRateLimiter}.
+ */
+@Component
+public class CashfreeGatewayClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(CashfreeGatewayClient.class);
+
+    private static final String API_VERSION = "2022-09-01";
+
+    // Status tag for calls that got no HTTP response
+    private static final String IO_ERROR = "IO_ERROR";
+
+    @Autowired
+    private CashfreeConfig cashfreeConfig;
+
+    @Autowired
+    private CloseableHttpClient cashfreeHttpClient;
+
+    @Autowired
+    private PoolingHttpClientConnectionManager cashfreeConnectionManager;
+
+    @Autowired
+    private CloseableHttpAsyncClient cashfreeAsyncHttpClient;
+
+    @Autowired
+    private PoolingAsyncClientConnectionManager cashfreeAsyncConnectionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PaymentMetrics paymentMetrics;
+
+    @Autowired
+    private CircuitBreakerRegistry cashfreeCircuitBreakerRegistry;
+
+    @Autowired
+    private Bulkhead cashfreeBulkhead;
+
+    @Autowired
+    private RetryRegistry cashfreeRetryRegistry;
+
+    @Autowired
+    private ScheduledExecutorService cashfreeRetryScheduler;
+
+    @Autowired
+    private GatewayRateLimiter gatewayRateLimiter;
+
+    @Autowired
+    private CashfreeJsonCodec cashfreeJsonCodec;
+
+    @PostConstruct
+    void registerPoolMetrics() {
+        registerPoolGauges("classic", () -> cashfreeConnectionManager.getTotalStats());
+        registerPoolGauges("async", () -> cashfreeAsyncConnectionManager.getTotalStats());
+    }
+
+    private void registerPoolGauges(String client, Supplier<PoolStats> stats) {
+        registerPoolGauge(client, "leased", stats, PoolStats::getLeased);
+        registerPoolGauge(client, "available", stats, PoolStats::getAvailable);
+        registerPoolGauge(client, "pending", stats, PoolStats::getPending);
+        registerPoolGauge(client, "max", stats, PoolStats::getMax);
+    }
+
+    private void registerPoolGauge(String client, String state, Supplier<PoolStats> stats,
+            ToDoubleFunction<PoolStats> value) {
+        Gauge.builder("cashfree.http.pool.connections", stats, s -> value.applyAsDouble(s.get()))
+                .tag("client", client)
+                .tag("state", state)
+                .description("Cashfree HTTP connection pool usage")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Creates an order with Cashfree and returns its {@code cf_order_id} and
+     * {@code payment_session_id}, or {@code null} if the gateway rejected it.
+     * Completes with {@link GatewayUnavailableException} if Cashfree could not be
+     * reached.
+     *
+     * This API version ignores {@code idempotencyKey}, so a retry after an
+     * attempt whose response was lost is rejected because the order ID already
+     * exists. That order is then fetched and returned as if the retry had
+     * created it.
+     */
+    public CompletableFuture<CashfreeOrderResponse> createOrderAsync(PaymentRequest request, String idempotencyKey,
+            GatewayTrafficClass trafficClass) {
+        byte[] body;
+        try {
+            body = buildCreateOrderBody(request);
+        } catch (IOException e) {
+            logger.error("Error creating Cashfree order: ", e);
+            return CompletableFuture.completedFuture(null);
+        }
+        String url = cashfreeConfig.getBaseUrl() + "/orders";
+
+        return call("create-order", trafficClass, () -> {
+            if (!cashfreeConfig.isAsyncMode()) {
+                HttpPost post = new HttpPost(url);
+                setHeaders(post, idempotencyKey);
+                post.setEntity(new ByteArrayEntity(body, ContentType.APPLICATION_JSON));
+                return executeTimed("create-order", post);
+            }
+            SimpleHttpRequest post = SimpleRequestBuilder.post(url)
+                    .setBody(body, ContentType.APPLICATION_JSON)
+                    .build();
+            setHeaders(post, idempotencyKey);
+            return execute("create-order", post);
+        }, response -> response).thenCompose(response -> {
+            if (response.code() == HttpStatus.SC_CONFLICT) {
+                logger.info("Cashfree order {} already exists, fetching it", request.getOrderId());
+                return getOrderAsync(request.getOrderId(), trafficClass);
+            }
+            try {
+                return CompletableFuture.completedFuture(parseCreateOrderResponse(response.code(), response.body()));
+            } catch (IOException | RuntimeException e) {
+                logger.error("Unreadable Cashfree create-order response: ", e);
+                return CompletableFuture.completedFuture(null);
+            }
+        });
+    }
+
+    /**
+     * Fetches an order Cashfree already holds under our {@code orderId} and
+     * returns its {@code cf_order_id} and {@code payment_session_id}, or
+     * {@code null} if the gateway returned an error. Completes with
+     * {@link GatewayUnavailableException} if Cashfree could not be reached.
+     */
+    public CompletableFuture<CashfreeOrderResponse> getOrderAsync(String orderId, GatewayTrafficClass trafficClass) {
+        String url = cashfreeConfig.getBaseUrl() + "/orders/" + orderId;
+
+        return call("get-order", trafficClass, () -> {
+            if (!cashfreeConfig.isAsyncMode()) {
+                HttpGet get = new HttpGet(url);
+                setHeaders(get, null);
+                return executeTimed("get-order", get);
+            }
+            SimpleHttpRequest get = SimpleRequestBuilder.get(url).build();
+            setHeaders(get, null);
+            return execute("get-order", get);
+        }, response -> parseGetOrderResponse(response.code(), response.body()));
+    }
+
+    /**
+     * Fetches the payment attempts for an order, or {@code null} if the gateway
+     * returned an error. Completes with {@link GatewayUnavailableException} if
+     * Cashfree could not be reached.
+     */
+    public CompletableFuture<CashfreePaymentsResponse> getOrderPaymentsAsync(String cfOrderId,
+            GatewayTrafficClass trafficClass) {
+        String url = orderPaymentsUrl(cfOrderId);
+
+        return call("get-payments", trafficClass, () -> {
+            if (!cashfreeConfig.isAsyncMode()) {
+                HttpGet get = new HttpGet(url);
+                setHeaders(get, null);
+                return executeTimed("get-payments", get);
+            }
+            SimpleHttpRequest get = SimpleRequestBuilder.get(url).build();
+            setHeaders(get, null);
+            return execute("get-payments", get);
+        }, response -> parseOrderPaymentsResponse(response.code(), response.body()));
+    }
+
+    /**
+     * Asks Cashfree to refund part of the order's payment and returns the refund
+     * it created, or {@code null} if the gateway rejected it. Cashfree rejects a
+     * second refund with the same refund ID, so a resubmitted refund is never
+     * paid twice.
+     * Completes with {@link GatewayUnavailableException} if Cashfree could not be
+     * reached.
+     */
+    public CompletableFuture<CashfreeRefund> createRefundAsync(String orderId, CashfreeRefundRequest request,
+            GatewayTrafficClass trafficClass) {
+        byte[] body;
+        try {
+            body = cashfreeJsonCodec.writeRefundRequest(request);
+        } catch (IOException e) {
+            logger.error("Error creating Cashfree refund: ", e);
+            return CompletableFuture.completedFuture(null);
+        }
+        String url = cashfreeConfig.getBaseUrl() + "/orders/" + orderId + "/refunds";
+
+        return call("create-refund", trafficClass, () -> {
+            if (!cashfreeConfig.isAsyncMode()) {
+                HttpPost post = new HttpPost(url);
+                setHeaders(post, request.refundId());
+                post.setEntity(new ByteArrayEntity(body, ContentType.APPLICATION_JSON));
+                return executeTimed("create-refund", post);
+            }
+            SimpleHttpRequest post = SimpleRequestBuilder.post(url)
+                    .setBody(body, ContentType.APPLICATION_JSON)
+                    .build();
+            setHeaders(post, request.refundId());
+            return execute("create-refund", post);
+        }, response -> parseRefundResponse(response.code(), response.body()));
+    }
+
+    public PoolStats getPoolStats() {
+        return cashfreeConfig.isAsyncMode()
+                ? cashfreeAsyncConnectionManager.getTotalStats()
+                : cashfreeConnectionManager.getTotalStats();
+    }
+
+    /**
+     * Runs {@code send} through the operation's retry, the rate limiter, the
+     * operation's circuit breaker and the shared bulkhead, then parses the final
+     * response. Transport errors, 5xx and 429 are retried; other responses go to
+     * {@code parser} as they are.
+     */
+    private <T> CompletableFuture<T> call(String operation, GatewayTrafficClass trafficClass,
+            Supplier<CompletableFuture<GatewayResponse>> send, ResponseParser<T> parser) {
+        String name = "cashfree-" + operation;
+        Supplier<CompletionStage<GatewayResponse>> attempt = () -> send.get().thenApply(this::checkRetryable);
+        attempt = Bulkhead.decorateCompletionStage(cashfreeBulkhead, attempt);
+        attempt = CircuitBreaker.decorateCompletionStage(cashfreeCircuitBreakerRegistry.circuitBreaker(name),
+                attempt);
+        attempt = rateLimited(trafficClass, attempt);
+        attempt = Retry.decorateCompletionStage(cashfreeRetryRegistry.retry(name), cashfreeRetryScheduler,
+                attempt);
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attempt.get().whenComplete((response, e) -> {
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                result.completeExceptionally(new GatewayUnavailableException(operation, cause));
+                return;
+            }
+            try {
+                result.complete(parser.parse(response));
+            } catch (IOException | RuntimeException ex) {
+                logger.error("Unreadable Cashfree {} response: ", operation, ex);
+                result.complete(null);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Waits for a rate limit permit before each attempt, so time spent queued
+     * does not count as a slow call. Blocking mode waits on the calling thread,
+     * or on a retry scheduler thread for retries, for at most {@code max-wait}.
+     */
+    private Supplier<CompletionStage<GatewayResponse>> rateLimited(GatewayTrafficClass trafficClass,
+            Supplier<CompletionStage<GatewayResponse>> attempt) {
+        return () -> {
+            if (cashfreeConfig.isAsyncMode()) {
+                return gatewayRateLimiter.acquire(trafficClass).thenCompose(ignored -> attempt.get());
+            }
+            try {
+                gatewayRateLimiter.acquireBlocking(trafficClass);
+            } catch (RateLimitExceededException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            return attempt.get();
+        };
+    }
+
+    private GatewayResponse checkRetryable(GatewayResponse response) {
+        if (response.code() >= 500 || response.code() == 429) {
+            throw new RetryableResponseException(response);
+        }
+        return response;
+    }
+
+    /**
+     * Blocking mode: runs the classic client on the calling thread, or on
+     * {@code cashfreeRetryScheduler} for retries.
+     */
+    private CompletableFuture<GatewayResponse> executeTimed(String operation, ClassicHttpRequest request) {
+        Timer.Sample sample = paymentMetrics.start();
+        String status = IO_ERROR;
+        try {
+            GatewayResponse response = cashfreeHttpClient.execute(request, r -> {
+                gatewayRateLimiter.observe(r);
+                return new GatewayResponse(r.getCode(), EntityUtils.toByteArray(r.getEntity()));
+            });
+            status = String.valueOf(response.code());
+            return CompletableFuture.completedFuture(response);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        } finally {
+            paymentMetrics.gatewayCallCompleted(sample, operation, status);
+        }
+    }
+
+    private CompletableFuture<GatewayResponse> execute(String operation, SimpleHttpRequest request) {
+        Timer.Sample sample = paymentMetrics.start();
+        CompletableFuture<GatewayResponse> future = new CompletableFuture<>();
+        cashfreeAsyncHttpClient.execute(request, new FutureCallback<>() {
+            @Override
+            public void completed(SimpleHttpResponse response) {
+                paymentMetrics.gatewayCallCompleted(sample, operation, String.valueOf(response.getCode()));
+                gatewayRateLimiter.observe(response);
+                byte[] body = response.getBodyBytes();
+                future.complete(new GatewayResponse(response.getCode(), body != null ? body : new byte[0]));
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                paymentMetrics.gatewayCallCompleted(sample, operation, IO_ERROR);
+                future.completeExceptionally(ex);
+            }
+
+            @Override
+            public void cancelled() {
+                paymentMetrics.gatewayCallCompleted(sample, operation, IO_ERROR);
+                future.cancel(false);
+            }
+        });
+        return future;
+    }
+
+    private byte[] buildCreateOrderBody(PaymentRequest request) throws IOException {
+        byte[] body = cashfreeJsonCodec.writeOrderRequest(CashfreeOrderRequest.of(request));
+        if (logger.isDebugEnabled()) {
+            logger.debug("Cashfree request: {}", PiiMasker.mask(new String(body, StandardCharsets.UTF_8)));
+        }
+        return body;
+    }
+
+    private CashfreeOrderResponse parseCreateOrderResponse(int code, byte[] responseBody) throws IOException {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Cashfree response {}: {}", code, PiiMasker.mask(text(responseBody)));
+        }
+
+        if (code == 200) {
+            return cashfreeJsonCodec.readOrderResponse(responseBody);
+        } else {
+            logger.error("Cashfree order creation failed with HTTP {}: {}", code, PiiMasker.mask(text(responseBody)));
+            return null;
+        }
+    }
+
+    private CashfreeOrderResponse parseGetOrderResponse(int code, byte[] responseBody) throws IOException {
+        if (code == 200) {
+            return cashfreeJsonCodec.readOrderResponse(responseBody);
+        } else {
+            logger.error("Failed to fetch Cashfree order, HTTP {}: {}", code, PiiMasker.mask(text(responseBody)));
+            return null;
+        }
+    }
+
+    private CashfreePaymentsResponse parseOrderPaymentsResponse(int code, byte[] responseBody) throws IOException {
+        if (code == 200) {
+            return new CashfreePaymentsResponse(cashfreeJsonCodec.readPayments(responseBody), responseBody);
+        } else {
+            logger.error("Failed to get payment status, HTTP {}: {}", code, PiiMasker.mask(text(responseBody)));
+            return null;
+        }
+    }
+
+    private CashfreeRefund parseRefundResponse(int code, byte[] responseBody) throws IOException {
+        if (code == 200) {
+            return cashfreeJsonCodec.readRefund(responseBody);
+        } else {
+            logger.error("Cashfree refund failed with HTTP {}: {}", code, PiiMasker.mask(text(responseBody)));
+            return null;
+        }
+    }
+
+    private static String text(byte[] body) {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    private String orderPaymentsUrl(String cfOrderId) {
+        return cashfreeConfig.getBaseUrl() + "/orders/" + cfOrderId + "/payments";
+    }
+
+    private void setHeaders(HttpRequest request, String idempotencyKey) {
+        request.setHeader("x-client-id", cashfreeConfig.getAppId());
+        request.setHeader("x-client-secret", cashfreeConfig.getSecretKey());
+        request.setHeader("x-api-version", API_VERSION);
+        if (idempotencyKey != null) {
+            request.setHeader("x-idempotency-key", idempotencyKey);
+        }
+    }
+
+    private record GatewayResponse(int code, byte[] body) {
+    }
+
+    @FunctionalInterface
+    private interface ResponseParser<T> {
+        T parse(GatewayResponse response) throws IOException;
+    }
+
+    /** A response worth retrying, raised inside the resilience chain only. */
+    private static class RetryableResponseException extends RuntimeException {
+
+        RetryableResponseException(GatewayResponse response) {
+            super("HTTP " + response.code() + ": " + PiiMasker.mask(text(response.body())), null, false, false);
+        }
+    }
+}
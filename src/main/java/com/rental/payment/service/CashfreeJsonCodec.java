@@ -0,0 +1,66 @@
+package com.rental.payment.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.rental.payment.dto.CashfreeOrderRequest;
+import com.rental.payment.dto.CashfreeOrderResponse;
+import com.rental.payment.dto.CashfreePayment;
+import com.rental.payment.dto.CashfreeRefund;
+import com.rental.payment.dto.CashfreeRefundRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Reads and writes Cashfree request and response bodies as typed records. The
+ * readers and writers are built once and are thread-safe; Blackbird replaces
+ * reflective accessor calls with generated lambdas. Fields the records do not
+ * declare are skipped without being materialised.
+ */
+@Component
+public class CashfreeJsonCodec {
+
+    private final ObjectWriter orderRequestWriter;
+    private final ObjectReader orderResponseReader;
+    private final ObjectReader paymentsReader;
+    private final ObjectWriter refundRequestWriter;
+    private final ObjectReader refundReader;
+
+    public CashfreeJsonCodec() {
+        JsonMapper mapper = JsonMapper.builder()
+                .addModule(new BlackbirdModule())
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+        orderRequestWriter = mapper.writerFor(CashfreeOrderRequest.class);
+        orderResponseReader = mapper.readerFor(CashfreeOrderResponse.class);
+        paymentsReader = mapper.readerFor(new TypeReference<List<CashfreePayment>>() {
+        });
+        refundRequestWriter = mapper.writerFor(CashfreeRefundRequest.class);
+        refundReader = mapper.readerFor(CashfreeRefund.class);
+    }
+
+    public byte[] writeOrderRequest(CashfreeOrderRequest request) throws IOException {
+        return orderRequestWriter.writeValueAsBytes(request);
+    }
+
+    public CashfreeOrderResponse readOrderResponse(byte[] body) throws IOException {
+        return orderResponseReader.readValue(body);
+    }
+
+    public List<CashfreePayment> readPayments(byte[] body) throws IOException {
+        return paymentsReader.readValue(body);
+    }
+
+    public byte[] writeRefundRequest(CashfreeRefundRequest request) throws IOException {
+        return refundRequestWriter.writeValueAsBytes(request);
+    }
+
+    public CashfreeRefund readRefund(byte[] body) throws IOException {
+        return refundReader.readValue(body);
+    }
+}
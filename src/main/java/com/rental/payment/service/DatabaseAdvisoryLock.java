@@ -0,0 +1,110 @@
+package com.rental.payment.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Named MySQL advisory locks ({@code GET_LOCK}/{@code RELEASE_LOCK}). A lock
+ * belongs to the session that took it, so each lease keeps its own connection
+ * until it is closed; outside any Spring transaction.
+ */
+@Component
+public class DatabaseAdvisoryLock {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseAdvisoryLock.class);
+
+    // MySQL rejects lock names longer than 64 characters
+    private static final int MAX_NAME_LENGTH = 64;
+
+    @Autowired
+    private DataSource dataSource;
+
+    /**
+     * Waits up to {@code timeout} for the named lock. Returns {@code null} if
+     * another session still holds it.
+     */
+    public Lease acquire(String name, Duration timeout) throws SQLException {
+        String lockName = lockName(name);
+        Connection connection = dataSource.getConnection();
+        try (PreparedStatement statement = connection.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            statement.setString(1, lockName);
+            statement.setLong(2, Math.max(0, timeout.toSeconds()));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next() && resultSet.getInt(1) == 1) {
+                    return new Lease(dataSource, connection, lockName);
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+        connection.close();
+        return null;
+    }
+
+    private static String lockName(String name) {
+        String lockName = "payment:" + name;
+        if (lockName.length() <= MAX_NAME_LENGTH) {
+            return lockName;
+        }
+        // A collision only serialises two unrelated orders
+        return "payment:" + Integer.toHexString(name.hashCode());
+    }
+
+    public static final class Lease implements AutoCloseable {
+
+        private final DataSource dataSource;
+        private final Connection connection;
+        private final String lockName;
+
+        private Lease(DataSource dataSource, Connection connection, String lockName) {
+            this.dataSource = dataSource;
+            this.connection = connection;
+            this.lockName = lockName;
+        }
+
+        @Override
+        public void close() {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+                statement.setString(1, lockName);
+                statement.execute();
+            } catch (SQLException e) {
+                logger.warn("Error releasing advisory lock {}, discarding its connection: ", lockName, e);
+                discard();
+                return;
+            }
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logger.warn("Error closing advisory lock connection: ", e);
+            }
+        }
+
+        /**
+         * Closing a pooled connection only returns it to the pool, where the
+         * session would keep the lock for its next borrower. Ending the session
+         * is the only other way to release it.
+         */
+        private void discard() {
+            try {
+                if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                    dataSource.unwrap(HikariDataSource.class).evictConnection(connection);
+                } else {
+                    connection.abort(Runnable::run);
+                }
+            } catch (SQLException | RuntimeException e) {
+                logger.error("Error discarding connection holding advisory lock {}: ", lockName, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.rental.payment.service;
+
+import com.rental.payment.dto.PaymentEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends events to a file as JSON lines. A batch is written with one call and
+ * forced to disk before it counts as delivered, so a crash can only repeat
+ * events, never lose them.
+ */
+public class FileEventSink implements PaymentEventSink, Closeable {
+
+    private final PaymentEventCodec codec;
+    private final FileChannel channel;
+
+    public FileEventSink(Path path, PaymentEventCodec codec) throws IOException {
+        this.codec = codec;
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public synchronized void publish(List<PaymentEvent> events) throws IOException {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream(events.size() * 200);
+        for (PaymentEvent event : events) {
+            lines.write(codec.writeEvent(event));
+            lines.write('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,309 @@
+package com.rental.payment.service;
+
+import com.rental.payment.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Token bucket in front of every Cashfree call, shared by all endpoints. When
+ * the bucket is empty, requests queue per {@link GatewayTrafficClass} and are
+ * released in class order as tokens refill; background classes ({@code REFUND},
+ * {@code RECONCILE}) also leave {@code background-reserve} of the bucket for
+ * interactive traffic.
+ *
+ * Cashfree's {@code x-ratelimit-remaining} header caps the local bucket, and a
+ * 429 or an exhausted quota pauses all traffic until the advertised reset.
+ */
+@Component
+public class GatewayRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(GatewayRateLimiter.class);
+
+    private static final CompletableFuture<Void> GRANTED = CompletableFuture.completedFuture(null);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ScheduledExecutorService cashfreeRateLimitScheduler;
+
+    @Value("${cashfree.rate-limit.requests-per-second:50}")
+    private double requestsPerSecond;
+
+    @Value("${cashfree.rate-limit.burst:50}")
+    private int burst;
+
+    @Value("${cashfree.rate-limit.background-reserve:0.2}")
+    private double backgroundReserve;
+
+    @Value("${cashfree.rate-limit.max-queue-size:500}")
+    private int maxQueueSize;
+
+    @Value("${cashfree.rate-limit.max-wait:2s}")
+    private Duration maxWait;
+
+    @Value("${cashfree.rate-limit.default-pause:1s}")
+    private Duration defaultPause;
+
+    private final Object lock = new Object();
+    private final Map<GatewayTrafficClass, ArrayDeque<Waiter>> queues = new EnumMap<>(GatewayTrafficClass.class);
+    private final Map<GatewayTrafficClass, Timer> waitTimers = new EnumMap<>(GatewayTrafficClass.class);
+    private final Map<GatewayTrafficClass, Counter> rejections = new EnumMap<>(GatewayTrafficClass.class);
+
+    private double tokens;
+    private long refilledAtNanos;
+    private long pausedUntilNanos;
+    private boolean drainScheduled;
+
+    private Counter pauses;
+
+    @PostConstruct
+    void init() {
+        tokens = burst;
+        refilledAtNanos = System.nanoTime();
+        for (GatewayTrafficClass trafficClass : GatewayTrafficClass.values()) {
+            ArrayDeque<Waiter> queue = new ArrayDeque<>();
+            queues.put(trafficClass, queue);
+            String tag = trafficClass.name().toLowerCase();
+            waitTimers.put(trafficClass, Timer.builder("cashfree.rate-limit.wait")
+                    .tag("class", tag)
+                    .description("Time Cashfree calls waited for a rate limit permit")
+                    .register(meterRegistry));
+            rejections.put(trafficClass, Counter.builder("cashfree.rate-limit.rejected")
+                    .tag("class", tag)
+                    .description("Cashfree calls rejected because their rate limit queue was full or timed out")
+                    .register(meterRegistry));
+            Gauge.builder("cashfree.rate-limit.queue", this, limiter -> limiter.queueSize(trafficClass))
+                    .tag("class", tag)
+                    .description("Cashfree calls waiting for a rate limit permit")
+                    .register(meterRegistry);
+        }
+        pauses = Counter.builder("cashfree.rate-limit.pauses")
+                .description("Times Cashfree reported an exhausted quota and traffic was paused")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns a future that completes once a call of {@code trafficClass} may be
+     * sent, or fails with {@link RateLimitExceededException} if the class queue
+     * is full or the permit does not come within {@code max-wait}.
+     */
+    public CompletableFuture<Void> acquire(GatewayTrafficClass trafficClass) {
+        synchronized (lock) {
+            long now = System.nanoTime();
+            refill(now);
+            if (!queuedAtOrAbove(trafficClass) && tryTake(trafficClass, now)) {
+                waitTimers.get(trafficClass).record(0, TimeUnit.NANOSECONDS);
+                return GRANTED;
+            }
+            ArrayDeque<Waiter> queue = queues.get(trafficClass);
+            if (queue.size() >= maxQueueSize) {
+                rejections.get(trafficClass).increment();
+                return CompletableFuture.failedFuture(new RateLimitExceededException(trafficClass.name()));
+            }
+            Waiter waiter = new Waiter(trafficClass, new CompletableFuture<>(), now, now + maxWait.toNanos());
+            queue.add(waiter);
+            scheduleDrain(now);
+            return waiter.permit();
+        }
+    }
+
+    /**
+     * Blocking form of {@link #acquire} for callers that wait on their own
+     * thread. The wait ends after {@code max-wait} even if no drain comes to
+     * expire the permit.
+     */
+    public void acquireBlocking(GatewayTrafficClass trafficClass) {
+        CompletableFuture<Void> permit = acquire(trafficClass);
+        try {
+            permit.get(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } catch (TimeoutException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            RateLimitExceededException rejected = new RateLimitExceededException(trafficClass.name());
+            // Lost the race with the drain; the permit is ours after all
+            if (permit.completeExceptionally(rejected)) {
+                rejections.get(trafficClass).increment();
+                throw rejected;
+            }
+            permit.join();
+        }
+    }
+
+    /**
+     * Adapts to the quota Cashfree reports on {@code response}: the bucket never
+     * holds more than {@code x-ratelimit-remaining}, and a 429 or a remaining
+     * count of zero pauses traffic until the reset or {@code Retry-After}.
+     */
+    public void observe(HttpResponse response) {
+        Long remaining = longHeader(response, "x-ratelimit-remaining");
+        boolean throttled = response.getCode() == 429;
+        if (remaining == null && !throttled) {
+            return;
+        }
+
+        synchronized (lock) {
+            long now = System.nanoTime();
+            refill(now);
+            if (remaining != null) {
+                tokens = Math.min(tokens, remaining);
+            }
+            if (throttled || (remaining != null && remaining <= 0)) {
+                Long resetSeconds = longHeader(response, "Retry-After");
+                if (resetSeconds == null) {
+                    resetSeconds = longHeader(response, "x-ratelimit-reset");
+                }
+                long pauseNanos = resetSeconds != null
+                        ? TimeUnit.SECONDS.toNanos(Math.max(1, resetSeconds))
+                        : defaultPause.toNanos();
+                if (now + pauseNanos > pausedUntilNanos) {
+                    pausedUntilNanos = now + pauseNanos;
+                    pauses.increment();
+                    logger.warn("Cashfree quota exhausted (HTTP {}), pausing gateway calls for {} ms",
+                            response.getCode(), TimeUnit.NANOSECONDS.toMillis(pauseNanos));
+                }
+            }
+        }
+    }
+
+    public int queueSize(GatewayTrafficClass trafficClass) {
+        synchronized (lock) {
+            return queues.get(trafficClass).size();
+        }
+    }
+
+    private void drain() {
+        List<Waiter> granted = new ArrayList<>();
+        List<Waiter> expired = new ArrayList<>();
+        synchronized (lock) {
+            drainScheduled = false;
+            long now = System.nanoTime();
+            refill(now);
+            for (GatewayTrafficClass trafficClass : GatewayTrafficClass.values()) {
+                ArrayDeque<Waiter> queue = queues.get(trafficClass);
+                while (!queue.isEmpty() && (queue.peek().deadlineNanos() <= now || queue.peek().permit().isDone())) {
+                    Waiter waiter = queue.poll();
+                    // A blocking caller that gave up has already failed its own permit
+                    if (!waiter.permit().isDone()) {
+                        expired.add(waiter);
+                    }
+                }
+            }
+            // Strict class order: lower classes only run once higher queues are empty
+            for (GatewayTrafficClass trafficClass : GatewayTrafficClass.values()) {
+                ArrayDeque<Waiter> queue = queues.get(trafficClass);
+                while (!queue.isEmpty() && tryTake(trafficClass, now)) {
+                    granted.add(queue.poll());
+                }
+                if (!queue.isEmpty()) {
+                    break;
+                }
+            }
+            scheduleDrain(now);
+        }
+
+        // Complete outside the lock; dependent stages run on this thread
+        for (Waiter waiter : expired) {
+            rejections.get(waiter.trafficClass()).increment();
+            waiter.permit().completeExceptionally(new RateLimitExceededException(waiter.trafficClass().name()));
+        }
+        for (Waiter waiter : granted) {
+            waitTimers.get(waiter.trafficClass()).record(System.nanoTime() - waiter.queuedAtNanos(),
+                    TimeUnit.NANOSECONDS);
+            waiter.permit().complete(null);
+        }
+    }
+
+    private void scheduleDrain(long now) {
+        if (drainScheduled) {
+            return;
+        }
+        long delayNanos = Long.MAX_VALUE;
+        for (GatewayTrafficClass trafficClass : GatewayTrafficClass.values()) {
+            Waiter head = queues.get(trafficClass).peek();
+            if (head == null) {
+                continue;
+            }
+            long untilToken = (long) (Math.max(0, required(trafficClass) - tokens)
+                    / requestsPerSecond * TimeUnit.SECONDS.toNanos(1));
+            delayNanos = Math.min(delayNanos, Math.max(untilToken, pausedUntilNanos - now));
+            delayNanos = Math.min(delayNanos, head.deadlineNanos() - now);
+        }
+        if (delayNanos == Long.MAX_VALUE) {
+            return;
+        }
+        drainScheduled = true;
+        cashfreeRateLimitScheduler.schedule(this::drain, Math.max(delayNanos, TimeUnit.MILLISECONDS.toNanos(1)),
+                TimeUnit.NANOSECONDS);
+    }
+
+    private boolean queuedAtOrAbove(GatewayTrafficClass trafficClass) {
+        for (GatewayTrafficClass other : GatewayTrafficClass.values()) {
+            if (!queues.get(other).isEmpty()) {
+                return true;
+            }
+            if (other == trafficClass) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private boolean tryTake(GatewayTrafficClass trafficClass, long now) {
+        if (now < pausedUntilNanos || tokens < required(trafficClass)) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    private double required(GatewayTrafficClass trafficClass) {
+        return trafficClass.isBackground() ? 1 + burst * backgroundReserve : 1;
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(burst, tokens + (now - refilledAtNanos) / 1e9 * requestsPerSecond);
+        refilledAtNanos = now;
+    }
+
+    private static Long longHeader(HttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(header.getValue().trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private record Waiter(GatewayTrafficClass trafficClass, CompletableFuture<Void> permit, long queuedAtNanos,
+                          long deadlineNanos) {
+    }
+}
@@ -0,0 +1,37 @@
+package com.rental.payment.service;
+
+/**
+ * Kinds of Cashfree traffic, in the order {@link GatewayRateLimiter} serves them
+ * when the quota runs short.
+ */
+public enum GatewayTrafficClass {
+
+    /** Checkout waiting on a new gateway order. */
+    CREATE_ORDER(false),
+
+    /** Frontend polling a payment's status. */
+    VERIFY(false),
+
+    /** Bulk create-order and verify requests, e.g. monthly rent runs. */
+    BATCH(false),
+
+    /** Queued refund submissions, e.g. deposits returned at lease end. */
+    REFUND(true),
+
+    /** Background sweeps; only runs while headroom is left for the classes above. */
+    RECONCILE(true);
+
+    private final boolean background;
+
+    GatewayTrafficClass(boolean background) {
+        this.background = background;
+    }
+
+    /**
+     * Whether the class must leave {@code background-reserve} of the bucket to
+     * interactive traffic.
+     */
+    public boolean isBackground() {
+        return background;
+    }
+}
@@ -0,0 +1,98 @@
+package com.rental.payment.service;
+
+import com.rental.payment.dto.PaymentEvent;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.util.Timeout;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * POSTs each batch of events as a JSON array to a callback URL. Any 2xx
+ * response acknowledges the whole batch. With a secret configured, the body's
+ * HMAC-SHA256 is sent base64-encoded in {@code x-payment-signature}; each
+ * thread keeps its own initialised {@link Mac}, as in
+ * {@link WebhookSignatureVerifier}.
+ */
+public class HttpCallbackEventSink implements PaymentEventSink, Closeable {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final String url;
+    private final SecretKeySpec secretKey;
+    private final PaymentEventCodec codec;
+    private final CloseableHttpClient httpClient;
+
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    public HttpCallbackEventSink(String url, String secret, Duration timeout, PaymentEventCodec codec) {
+        if (url == null || url.isBlank()) {
+            throw new IllegalStateException("payment.outbox.http.url must be set for the http event sink");
+        }
+        this.url = url;
+        this.secretKey = secret == null || secret.isBlank()
+                ? null
+                : new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        if (secretKey != null) {
+            // Fail at startup rather than on the first batch if the key is unusable
+            newMac();
+        }
+        this.codec = codec;
+        this.httpClient = HttpClients.custom()
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(timeout))
+                        .setResponseTimeout(Timeout.of(timeout))
+                        .build())
+                .build();
+    }
+
+    @Override
+    public void publish(List<PaymentEvent> events) throws IOException {
+        byte[] body = codec.writeEvents(events);
+        HttpPost post = new HttpPost(url);
+        post.setEntity(new ByteArrayEntity(body, ContentType.APPLICATION_JSON));
+        if (secretKey != null) {
+            post.setHeader("x-payment-signature", sign(body));
+        }
+
+        int code = httpClient.execute(post, response -> {
+            EntityUtils.consume(response.getEntity());
+            return response.getCode();
+        });
+        if (code < 200 || code >= 300) {
+            throw new IOException("Event callback returned HTTP " + code);
+        }
+    }
+
+    private String sign(byte[] body) {
+        return Base64.getEncoder().encodeToString(macs.get().doFinal(body));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(secretKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to initialise event callback HMAC", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+}
@@ -0,0 +1,87 @@
+package com.rental.payment.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Hands out blocks of ids from the {@code id_generators} table. Each block is
+ * reserved in its own short transaction on a small pool of its own: the caller
+ * is usually inside a transaction already, and borrowing a second connection
+ * from the main pool deadlocks once every connection is held by a thread
+ * waiting for an id.
+ */
+@Component
+public class IdBlockAllocator {
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Value("${payment.id-allocation.pool-size:2}")
+    private int poolSize;
+
+    private HikariDataSource dataSource;
+
+    @PostConstruct
+    void init() {
+        dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("id-allocation");
+        dataSource.setMaximumPoolSize(poolSize);
+        dataSource.setMinimumIdle(1);
+    }
+
+    @PreDestroy
+    void close() {
+        dataSource.close();
+    }
+
+    /**
+     * Reserves {@code size} consecutive ids for {@code name} and returns the
+     * first. The reservation commits immediately, so ids are never reused even
+     * if the caller's transaction rolls back.
+     */
+    public long reserve(String name, int size) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                long next = advance(connection, name, size);
+                connection.commit();
+                return next - size;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Unable to reserve ids for " + name, e);
+        }
+    }
+
+    private static long advance(Connection connection, String name, int size) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE id_generators SET next_val = next_val + ? WHERE name = ?")) {
+            update.setInt(1, size);
+            update.setString(2, name);
+            if (update.executeUpdate() != 1) {
+                throw new IllegalStateException("No id generator named " + name);
+            }
+        }
+        // The row stays locked until commit, so this reads our own increment
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT next_val FROM id_generators WHERE name = ?")) {
+            select.setString(1, name);
+            try (ResultSet resultSet = select.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        }
+    }
+}
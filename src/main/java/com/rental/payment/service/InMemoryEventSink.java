@@ -0,0 +1,34 @@
+package com.rental.payment.service;
+
+import com.rental.payment.dto.PaymentEvent;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process broker for tests and local runs: hands every event to each
+ * subscriber on the relay thread. Nothing is retained, so events published
+ * before a subscriber registers are not replayed to it.
+ */
+public class InMemoryEventSink implements PaymentEventSink {
+
+    private final List<Consumer<PaymentEvent>> subscribers = new CopyOnWriteArrayList<>();
+
+    public void subscribe(Consumer<PaymentEvent> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public void unsubscribe(Consumer<PaymentEvent> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    @Override
+    public void publish(List<PaymentEvent> events) {
+        for (PaymentEvent event : events) {
+            for (Consumer<PaymentEvent> subscriber : subscribers) {
+                subscriber.accept(event);
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.rental.payment.service;
+
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * MDC keys that correlate log lines with a payment, and the plumbing to carry
+ * them across the asynchronous hops of a gateway call.
+ */
+public final class LogContext {
+
+    public static final String ORDER_ID = "orderId";
+    public static final String CF_ORDER_ID = "cfOrderId";
+
+    private LogContext() {
+    }
+
+    /**
+     * Returns an executor that runs tasks with the MDC of the calling thread as
+     * it is now. Completion stages are submitted from HTTP client I/O threads,
+     * which have no MDC of their own, so the context has to be captured up front
+     * rather than when the task is submitted.
+     */
+    public static Executor propagating(Executor executor) {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        if (context == null) {
+            return executor;
+        }
+        return task -> executor.execute(() -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            MDC.setContextMap(context);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    MDC.clear();
+                } else {
+                    MDC.setContextMap(previous);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,64 @@
+package com.rental.payment.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Runs a payment write in its own transaction and, if another writer updated
+ * the same payment first ({@code @Version} conflict), runs it again so the
+ * change is re-applied on top of the newer state. Callbacks must therefore
+ * re-read what they modify.
+ */
+@Component
+public class OptimisticRetry {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimisticRetry.class);
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${payment.optimistic-retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${payment.optimistic-retry.backoff:20ms}")
+    private Duration backoff;
+
+    public <T> T execute(String operation, TransactionCallback<T> callback) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(callback);
+            } catch (OptimisticLockingFailureException e) {
+                meterRegistry.counter("payment.write.conflicts", "operation", operation).increment();
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                logger.info("Concurrent update in {}, retrying (attempt {} of {})", operation, attempt + 1, maxAttempts);
+                pause(attempt);
+            }
+        }
+    }
+
+    private void pause(int attempt) {
+        // Jittered linear backoff so two conflicting writers do not collide again
+        long millis = backoff.toMillis() * attempt;
+        try {
+            Thread.sleep(millis + ThreadLocalRandom.current().nextLong(millis + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying " + getClass().getSimpleName(), e);
+        }
+    }
+}
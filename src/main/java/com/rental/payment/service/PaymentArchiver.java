@@ -0,0 +1,187 @@
+package com.rental.payment.service;
+
+import com.rental.payment.entity.PaymentStatus;
+import com.rental.payment.entity.RefundStatus;
+import com.rental.payment.repository.PaymentArchiveRepository;
+import com.rental.payment.repository.PaymentRepository;
+import com.rental.payment.repository.RelayLeaseRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves settled payments nobody has updated for {@code retention} from
+ * payments to payments_archive, so the hot table and its indexes only grow
+ * with recent traffic. Each tick archives one batch of {@code batch-size}
+ * payments in its own short transaction, which throttles the move to one batch
+ * per {@code batch-interval}; after a full pass the archiver waits
+ * {@code interval} before looking again. One node archives at a time, holding
+ * the {@code payment-archive} lease.
+ *
+ * Payments with a refund in flight are skipped. Archived payments are moved
+ * back by the first order lookup that needs them, see
+ * {@link PaymentArchiveRepository}.
+ */
+@Component
+public class PaymentArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentArchiver.class);
+
+    private static final String LEASE_NAME = "payment-archive";
+
+    private static final List<RefundStatus> OPEN_REFUND_STATUSES = Arrays.stream(RefundStatus.values())
+            .filter(status -> !status.isSettled())
+            .toList();
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private RelayLeaseRepository relayLeaseRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${payment.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${payment.archive.retention:365d}")
+    private Duration retention;
+
+    @Value("${payment.archive.statuses:SUCCESS,FAILED,CANCELLED,REFUNDED}")
+    private List<PaymentStatus> statuses;
+
+    @Value("${payment.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${payment.archive.interval:1h}")
+    private Duration interval;
+
+    @Value("${payment.archive.lease:5m}")
+    private Duration lease;
+
+    private final String owner = UUID.randomUUID().toString();
+
+    private final Map<String, AtomicLong> tableSizes = new ConcurrentHashMap<>();
+
+    private LocalDateTime pausedUntil = LocalDateTime.MIN;
+    private long afterId;
+    private long passArchived;
+
+    private Counter archived;
+
+    @PostConstruct
+    void init() {
+        for (PaymentStatus status : statuses) {
+            if (!status.isTerminal()) {
+                throw new IllegalStateException("payment.archive.statuses may only list settled statuses, not "
+                        + status);
+            }
+        }
+        archived = Counter.builder("payment.archive.archived")
+                .description("Payments moved to the archive table")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.archive.batch-interval:1s}",
+            initialDelayString = "${payment.archive.initial-delay:5m}")
+    public void poll() {
+        if (!enabled || LocalDateTime.now().isBefore(pausedUntil) || !holdLease()) {
+            return;
+        }
+        try {
+            if (afterId == 0) {
+                refreshTableSizes();
+            }
+            List<Long> ids = archiveBatch(afterId);
+            if (ids.size() == batchSize) {
+                afterId = ids.get(ids.size() - 1);
+                return;
+            }
+            logger.info("Archived {} payments", passArchived);
+            afterId = 0;
+            passArchived = 0;
+            pausedUntil = LocalDateTime.now().plus(interval);
+            refreshTableSizes();
+        } catch (RuntimeException e) {
+            pausedUntil = LocalDateTime.now().plus(interval);
+            logger.error("Error archiving payments, retrying in {}: ", interval, e);
+        }
+    }
+
+    /**
+     * Archives the next batch of eligible payments with ids above
+     * {@code afterId}, in id order. Returns the ids picked; fewer than
+     * {@code batch-size} means none are left after them.
+     */
+    public List<Long> archiveBatch(long afterId) {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        List<Long> ids = paymentRepository.findArchivableIds(statuses, cutoff, OPEN_REFUND_STATUSES, afterId,
+                PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return ids;
+        }
+        int moved = paymentRepository.archive(ids, statuses, cutoff);
+        archived.increment(moved);
+        passArchived += moved;
+        return ids;
+    }
+
+    /**
+     * Publishes the data and index size of payments and the archive. Refreshed
+     * at the start and end of every pass, so the gauges show what each pass
+     * took off the hot table.
+     */
+    void refreshTableSizes() {
+        for (PaymentArchiveRepository.TableSize size : paymentRepository.tableSizes()) {
+            tableSize(size.table(), "data").set(size.dataBytes());
+            tableSize(size.table(), "index").set(size.indexBytes());
+        }
+    }
+
+    private AtomicLong tableSize(String table, String part) {
+        return tableSizes.computeIfAbsent(table + "/" + part, key -> {
+            AtomicLong bytes = new AtomicLong();
+            Gauge.builder("payment.archive.table.size", bytes, AtomicLong::get)
+                    .tag("table", table)
+                    .tag("part", part)
+                    .baseUnit("bytes")
+                    .description("Size of the payments and payments_archive tables as reported by the database")
+                    .register(meterRegistry);
+            return bytes;
+        });
+    }
+
+    private boolean holdLease() {
+        LocalDateTime now = LocalDateTime.now();
+        return relayLeaseRepository.acquire(LEASE_NAME, owner, now, now.plus(lease)) == 1;
+    }
+
+    @PreDestroy
+    void releaseLease() {
+        try {
+            relayLeaseRepository.release(LEASE_NAME, owner);
+        } catch (RuntimeException e) {
+            // The lease lapses on its own
+            logger.warn("Error releasing payment archive lease: ", e);
+        }
+    }
+}
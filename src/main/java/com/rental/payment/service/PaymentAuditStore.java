@@ -0,0 +1,51 @@
+package com.rental.payment.service;
+
+import com.rental.payment.entity.PayloadCompression;
+import com.rental.payment.entity.PaymentAuditEntity;
+import com.rental.payment.entity.PaymentAuditSource;
+import com.rental.payment.repository.PaymentAuditRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.Deflater;
+
+/**
+ * Append-only history of the raw payloads received for each payment, kept out
+ * of the {@code payments} row so lookups and status updates never read or
+ * rewrite them. Payloads are deflate-compressed; the service only writes
+ * them, they are read back from payment_audit when investigating a payment.
+ */
+@Component
+public class PaymentAuditStore {
+
+    @Autowired
+    private PaymentAuditRepository paymentAuditRepository;
+
+    // zlib streams allocate sizeable native buffers, so each thread reuses one
+    private final ThreadLocal<Deflater> deflaters = ThreadLocal.withInitial(Deflater::new);
+
+    /**
+     * Appends {@code payload} to the payment's history. Runs in the caller's
+     * transaction, so the entry commits together with the status change.
+     */
+    public void append(Long paymentId, PaymentAuditSource source, byte[] payload) {
+        paymentAuditRepository.save(new PaymentAuditEntity(paymentId, source, PayloadCompression.DEFLATE,
+                deflate(payload), payload.length));
+    }
+
+    private byte[] deflate(byte[] payload) {
+        Deflater deflater = deflaters.get();
+        deflater.reset();
+        deflater.setInput(payload);
+        deflater.finish();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, payload.length / 2));
+        byte[] buffer = new byte[4096];
+        while (!deflater.finished()) {
+            int length = deflater.deflate(buffer);
+            out.write(buffer, 0, length);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,43 @@
+package com.rental.payment.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.rental.payment.dto.PaymentEvent;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes published payment events: a JSON array per HTTP callback batch, or one
+ * object per line for the file log. Timestamps are ISO-8601 strings.
+ */
+@Component
+public class PaymentEventCodec {
+
+    private final ObjectWriter eventWriter;
+    private final ObjectWriter batchWriter;
+
+    public PaymentEventCodec() {
+        JsonMapper mapper = JsonMapper.builder()
+                .addModule(new BlackbirdModule())
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        eventWriter = mapper.writerFor(PaymentEvent.class);
+        batchWriter = mapper.writerFor(new TypeReference<List<PaymentEvent>>() {
+        });
+    }
+
+    public byte[] writeEvent(PaymentEvent event) throws IOException {
+        return eventWriter.writeValueAsBytes(event);
+    }
+
+    public byte[] writeEvents(List<PaymentEvent> events) throws IOException {
+        return batchWriter.writeValueAsBytes(events);
+    }
+}
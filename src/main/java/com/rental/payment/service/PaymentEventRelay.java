@@ -0,0 +1,146 @@
+package com.rental.payment.service;
+
+import com.rental.payment.dto.PaymentEvent;
+import com.rental.payment.entity.PaymentOutboxEntity;
+import com.rental.payment.repository.PaymentOutboxRepository;
+import com.rental.payment.repository.RelayLeaseRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Publishes the payment outbox to the configured {@link PaymentEventSink}.
+ * Rows go out in id order, {@code batch-size} at a time, and are deleted only
+ * after the sink has accepted the batch; a failed batch is sent again whole
+ * after {@code retry-delay}, so nothing queued behind it overtakes it.
+ *
+ * One node relays at a time, holding the {@code payment-outbox} lease; the
+ * others take over once it lapses. Together with database-assigned outbox ids
+ * this keeps each order's events in commit order.
+ */
+@Component
+public class PaymentEventRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentEventRelay.class);
+
+    private static final String LEASE_NAME = "payment-outbox";
+
+    @Autowired
+    private PaymentOutboxRepository paymentOutboxRepository;
+
+    @Autowired
+    private RelayLeaseRepository relayLeaseRepository;
+
+    @Autowired
+    private PaymentEventSink paymentEventSink;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${payment.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${payment.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${payment.outbox.lease:30s}")
+    private Duration lease;
+
+    @Value("${payment.outbox.retry-delay:5s}")
+    private Duration retryDelay;
+
+    private final String owner = UUID.randomUUID().toString();
+
+    private LocalDateTime pausedUntil = LocalDateTime.MIN;
+
+    private Counter published;
+    private Counter failures;
+    private Timer publishTimer;
+
+    @PostConstruct
+    void init() {
+        published = Counter.builder("payment.outbox.published")
+                .description("Payment events delivered to the event sink")
+                .register(meterRegistry);
+        failures = Counter.builder("payment.outbox.failures")
+                .description("Event batches the sink did not accept")
+                .register(meterRegistry);
+        publishTimer = Timer.builder("payment.outbox.publish")
+                .description("Time to deliver one batch of payment events")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.outbox.poll-interval:500ms}")
+    public void poll() {
+        if (!enabled || LocalDateTime.now().isBefore(pausedUntil)) {
+            return;
+        }
+        try {
+            int relayed;
+            do {
+                if (!holdLease()) {
+                    return;
+                }
+                relayed = publishBatch();
+            } while (relayed == batchSize);
+        } catch (Exception e) {
+            failures.increment();
+            pausedUntil = LocalDateTime.now().plus(retryDelay);
+            logger.error("Error publishing payment events, retrying in {}: ", retryDelay, e);
+        }
+    }
+
+    /**
+     * Publishes the oldest batch of outbox rows and removes them. Returns the
+     * number of events published. Callers must hold the relay lease.
+     */
+    public int publishBatch() throws Exception {
+        List<PaymentOutboxEntity> entries = paymentOutboxRepository.findAllByOrderByIdAsc(
+                PageRequest.of(0, batchSize));
+        if (entries.isEmpty()) {
+            return 0;
+        }
+
+        List<PaymentEvent> events = entries.stream()
+                .map(entry -> new PaymentEvent(entry.getId(), PaymentEvent.STATUS_CHANGED, entry.getOrderId(),
+                        entry.getPaymentId(), entry.getPreviousStatus(), entry.getStatus(), entry.getCreatedAt()))
+                .toList();
+        publishTimer.recordCallable(() -> {
+            paymentEventSink.publish(events);
+            return null;
+        });
+
+        paymentOutboxRepository.deleteAllByIdInBatch(entries.stream().map(PaymentOutboxEntity::getId).toList());
+        published.increment(events.size());
+        return events.size();
+    }
+
+    private boolean holdLease() {
+        LocalDateTime now = LocalDateTime.now();
+        return relayLeaseRepository.acquire(LEASE_NAME, owner, now, now.plus(lease)) == 1;
+    }
+
+    @PreDestroy
+    void releaseLease() {
+        try {
+            relayLeaseRepository.release(LEASE_NAME, owner);
+        } catch (RuntimeException e) {
+            // The lease lapses on its own
+            logger.warn("Error releasing payment outbox lease: ", e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.rental.payment.service;
+
+import com.rental.payment.dto.PaymentEvent;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination of the payment event stream, chosen with
+ * {@code payment.outbox.sink}. {@link #publish} returns only once the whole
+ * batch is delivered; if it throws, the relay sends the same batch again.
+ */
+public interface PaymentEventSink {
+
+    void publish(List<PaymentEvent> events) throws IOException;
+}
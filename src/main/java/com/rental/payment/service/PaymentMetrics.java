@@ -0,0 +1,88 @@
+package com.rental.payment.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.function.Supplier;
+
+/**
+ * Timers and counters for the payment hot paths. Tags are limited to small
+ * fixed sets (operation names, outcomes, statuses, HTTP codes) so the series
+ * count does not grow with traffic; order IDs never become tags.
+ */
+@Component
+public class PaymentMetrics {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    /** End-to-end create-order latency, including database and Cashfree time. */
+    public void createOrderCompleted(Timer.Sample sample, boolean success) {
+        sample.stop(Timer.builder("payment.create-order")
+                .description("Create-order latency")
+                .tag("outcome", success ? "success" : "failure")
+                .register(meterRegistry));
+    }
+
+    /** Verify latency by where the status came from: cache, database or gateway. */
+    public void verifyCompleted(Timer.Sample sample, String source, boolean success) {
+        sample.stop(Timer.builder("payment.verify")
+                .description("Payment verification latency")
+                .tag("source", source)
+                .tag("outcome", success ? "success" : "failure")
+                .register(meterRegistry));
+    }
+
+    /** Time spent inside one database unit of work of a payment operation. */
+    public <T> T timeDatabase(String operation, Supplier<T> work) {
+        return Timer.builder("payment.db")
+                .description("Database time per payment operation")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(work);
+    }
+
+    /**
+     * One Cashfree API call. {@code status} is the HTTP status code, or
+     * {@code IO_ERROR} when no response arrived.
+     */
+    public void gatewayCallCompleted(Timer.Sample sample, String operation, String status) {
+        sample.stop(Timer.builder("payment.gateway.requests")
+                .description("Cashfree API latency")
+                .tag("operation", operation)
+                .tag("status", status)
+                .register(meterRegistry));
+    }
+
+    public void webhookReceived(Timer.Sample sample, String outcome) {
+        sample.stop(Timer.builder("payment.webhook.ingest")
+                .description("Webhook verification and enqueue latency")
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    public void webhookBatchApplied(Timer.Sample sample) {
+        sample.stop(Timer.builder("payment.webhook.apply")
+                .description("Time to apply one batch of queued webhooks")
+                .register(meterRegistry));
+    }
+
+    public void signatureRejected(String reason) {
+        meterRegistry.counter("payment.webhook.signature.failures", "reason", reason).increment();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onStatusChanged(PaymentStatusChangedEvent event) {
+        meterRegistry.counter("payment.status.transitions",
+                        "from", event.previous() == null ? "NONE" : event.previous().name(),
+                        "to", event.current().name())
+                .increment();
+    }
+}
@@ -0,0 +1,33 @@
+package com.rental.payment.service;
+
+import com.rental.payment.entity.PaymentOutboxEntity;
+import com.rental.payment.repository.PaymentOutboxRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Records every payment status change in the outbox. The listener runs on the
+ * publishing thread inside the transaction that changes the payment, so the
+ * outbox row commits or rolls back with it; a change made outside a
+ * transaction fails rather than going unpublished.
+ */
+@Component
+public class PaymentOutbox {
+
+    @Autowired
+    private PaymentOutboxRepository paymentOutboxRepository;
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onStatusChanged(PaymentStatusChangedEvent event) {
+        PaymentOutboxEntity entry = new PaymentOutboxEntity();
+        entry.setPaymentId(event.paymentId());
+        entry.setOrderId(event.orderId());
+        entry.setPreviousStatus(event.previous());
+        entry.setStatus(event.current());
+        paymentOutboxRepository.save(entry);
+    }
+}
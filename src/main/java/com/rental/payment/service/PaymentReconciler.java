@@ -0,0 +1,214 @@
+package com.rental.payment.service;
+
+import com.rental.payment.dto.CashfreePaymentsResponse;
+import com.rental.payment.entity.PaymentEntity;
+import com.rental.payment.entity.PaymentStatus;
+import com.rental.payment.repository.PaymentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sweeps PENDING payments whose webhook never arrived. Each page of stale rows
+ * is leased to this node, refreshed from Cashfree with bounded parallelism and
+ * a request rate cap, and written back in one batched transaction.
+ *
+ * Also fails INITIATED rows whose create-order call never completed, and
+ * cancels PENDING rows whose order is past {@code pending-expiry} without a
+ * single payment attempt. Without that, an abandoned checkout would be fetched
+ * again every {@code stale-after} forever, since releasing the lease counts as
+ * an update. {@code pending-expiry} should match the order expiry set in
+ * Cashfree.
+ */
+@Component
+public class PaymentReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentReconciler.class);
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private CashfreeGatewayClient cashfreeGatewayClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${payment.reconciler.enabled:true}")
+    private boolean enabled;
+
+    @Value("${payment.reconciler.stale-after:15m}")
+    private Duration staleAfter;
+
+    @Value("${payment.reconciler.batch-size:100}")
+    private int batchSize;
+
+    @Value("${payment.reconciler.max-concurrency:8}")
+    private int maxConcurrency;
+
+    @Value("${payment.reconciler.max-requests-per-second:20}")
+    private int maxRequestsPerSecond;
+
+    @Value("${payment.reconciler.lease:5m}")
+    private Duration lease;
+
+    @Value("${payment.reconciler.initiated-expiry:15m}")
+    private Duration initiatedExpiry;
+
+    @Value("${payment.reconciler.pending-expiry:24h}")
+    private Duration pendingExpiry;
+
+    private Counter swept;
+    private Counter updated;
+    private Counter failed;
+    private Counter expired;
+    private Timer sweepTimer;
+
+    @PostConstruct
+    void init() {
+        swept = outcomeCounter("swept");
+        updated = outcomeCounter("updated");
+        failed = outcomeCounter("failed");
+        expired = outcomeCounter("expired");
+        sweepTimer = Timer.builder("payment.reconciler.sweep")
+                .description("Duration of one reconciliation sweep")
+                .register(meterRegistry);
+    }
+
+    private Counter outcomeCounter(String outcome) {
+        return Counter.builder("payment.reconciler.payments")
+                .tag("outcome", outcome)
+                .description("Payments handled by the reconciler")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.reconciler.interval:1m}",
+            initialDelayString = "${payment.reconciler.initial-delay:1m}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            expireInitiated(now.minus(initiatedExpiry));
+
+            LocalDateTime cutoff = now.minus(staleAfter);
+            long afterId = 0;
+            int pageSize;
+            do {
+                List<Long> ids = paymentRepository.findReconcilableIds(PaymentStatus.PENDING, cutoff, afterId,
+                        LocalDateTime.now(), PageRequest.of(0, batchSize));
+                pageSize = ids.size();
+                if (pageSize > 0) {
+                    afterId = ids.get(pageSize - 1);
+                    reconcilePage(ids);
+                }
+            } while (pageSize == batchSize);
+
+        } catch (Exception e) {
+            logger.error("Error reconciling pending payments: ", e);
+        } finally {
+            sample.stop(sweepTimer);
+        }
+    }
+
+    /**
+     * Fails abandoned INITIATED rows page by page through {@link PaymentService},
+     * so that each one publishes its status change like any other transition.
+     */
+    private void expireInitiated(LocalDateTime cutoff) {
+        long afterId = 0;
+        int pageSize;
+        do {
+            List<Long> ids = paymentRepository.findReconcilableIds(PaymentStatus.INITIATED, cutoff, afterId,
+                    LocalDateTime.now(), PageRequest.of(0, batchSize));
+            pageSize = ids.size();
+            if (pageSize > 0) {
+                afterId = ids.get(pageSize - 1);
+                expired.increment(paymentService.expireInitiatedPayments(ids, cutoff,
+                        "Gateway order creation did not complete"));
+            }
+        } while (pageSize == batchSize);
+    }
+
+    private void reconcilePage(List<Long> ids) {
+        LocalDateTime now = LocalDateTime.now();
+        String claimToken = UUID.randomUUID().toString();
+        paymentRepository.claimForReconciliation(ids, claimToken, now, now.plus(lease));
+        List<PaymentEntity> payments = paymentRepository.findByReconcileClaimTokenOrderByIdAsc(claimToken);
+        if (payments.isEmpty()) {
+            return;
+        }
+
+        Map<Long, CashfreePaymentsResponse> gatewayStatuses = fetchGatewayStatuses(payments);
+        int changed = paymentService.applyReconciledStatuses(claimToken, gatewayStatuses,
+                now.minus(pendingExpiry));
+
+        swept.increment(payments.size());
+        updated.increment(changed);
+        failed.increment(payments.size() - gatewayStatuses.size());
+        logger.info("Reconciled {} pending payments: {} updated, {} failed",
+                payments.size(), changed, payments.size() - gatewayStatuses.size());
+    }
+
+    private Map<Long, CashfreePaymentsResponse> fetchGatewayStatuses(List<PaymentEntity> payments) {
+        Map<Long, CashfreePaymentsResponse> gatewayStatuses = new ConcurrentHashMap<>();
+        Semaphore permits = new Semaphore(maxConcurrency);
+        long intervalNanos = maxRequestsPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / maxRequestsPerSecond : 0;
+        long nextStart = System.nanoTime();
+
+        List<CompletableFuture<Void>> calls = new ArrayList<>();
+        for (PaymentEntity payment : payments) {
+            if (payment.getCfOrderId() == null) {
+                continue;
+            }
+
+            // Space out call starts to stay under the rate cap
+            long wait = nextStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            nextStart = Math.max(nextStart, System.nanoTime()) + intervalNanos;
+
+            permits.acquireUninterruptibly();
+            Long paymentId = payment.getId();
+            calls.add(cashfreeGatewayClient.getOrderPaymentsAsync(payment.getCfOrderId(),
+                    GatewayTrafficClass.RECONCILE)
+                    .handle((paymentDetails, error) -> {
+                        permits.release();
+                        if (paymentDetails != null) {
+                            gatewayStatuses.put(paymentId, paymentDetails);
+                        }
+                        return null;
+                    }));
+        }
+
+        CompletableFuture.allOf(calls.toArray(new CompletableFuture[0])).join();
+        return gatewayStatuses;
+    }
+}
@@ -0,0 +1,152 @@
+package com.rental.payment.service;
+
+import com.rental.payment.dto.RollupBucket;
+import com.rental.payment.dto.RollupReport;
+import com.rental.payment.dto.RollupVerification;
+import com.rental.payment.entity.PaymentRollupEntity;
+import com.rental.payment.entity.PaymentRollupKey;
+import com.rental.payment.entity.PaymentStatus;
+import com.rental.payment.exception.InvalidDateRangeException;
+import com.rental.payment.repository.PaymentRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Reads the payment rollups for finance dashboards, and checks or rebuilds
+ * them from the payments table. A report reads at most one bucket per day,
+ * currency, method and paid status, however many payments they cover.
+ *
+ * Verify and rebuild work one created day at a time, each rebuild day in its
+ * own transaction, so a long range never holds locks for long.
+ */
+@Service
+public class PaymentRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentRollupService.class);
+
+    private static final List<String> COUNTED_STATUSES = Arrays.stream(PaymentStatus.values())
+            .filter(PaymentRollups::isCounted)
+            .map(Enum::name)
+            .toList();
+
+    @Autowired
+    private PaymentRollupRepository paymentRollupRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${payment.rollup.max-range-days:366}")
+    private int maxRangeDays;
+
+    public RollupReport report(LocalDate from, LocalDate to, String currency, String paymentMethod) {
+        checkRange(from, to);
+        List<RollupBucket> buckets = new ArrayList<>();
+        Map<String, RollupBucket> totals = new TreeMap<>();
+        for (PaymentRollupEntity rollup : paymentRollupRepository.findRange(from, to, currency, paymentMethod)) {
+            if (rollup.getPaymentCount() == 0 && rollup.getAmount().signum() == 0) {
+                continue;
+            }
+            buckets.add(bucket(rollup.getKey(), rollup.getPaymentCount(), rollup.getAmount()));
+            totals.merge(rollup.getCurrency() + "/" + rollup.getStatus(),
+                    new RollupBucket(null, rollup.getCurrency(), null, rollup.getStatus(),
+                            rollup.getPaymentCount(), rollup.getAmount()),
+                    (a, b) -> new RollupBucket(null, a.currency(), null, a.status(),
+                            a.paymentCount() + b.paymentCount(), a.amount().add(b.amount())));
+        }
+        return new RollupReport(from, to, buckets, List.copyOf(totals.values()));
+    }
+
+    /**
+     * Compares every bucket in the range with the same totals computed from the
+     * payments table. Changes committing while it runs may show up as transient
+     * mismatches; a second run tells them apart from real drift.
+     */
+    public RollupVerification verify(LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        List<RollupVerification.Mismatch> mismatches = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            mismatches.addAll(verifyDay(day));
+        }
+        if (!mismatches.isEmpty()) {
+            logger.warn("Payment rollups for {} to {} differ from payments in {} buckets",
+                    from, to, mismatches.size());
+        }
+        return new RollupVerification(from, to, (int) ChronoUnit.DAYS.between(from, to) + 1, mismatches);
+    }
+
+    /**
+     * Recomputes the range's buckets from the payments table, replacing what
+     * the rollup holds, and returns a fresh verification.
+     */
+    public RollupVerification rebuild(LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            LocalDate rollupDate = day;
+            int buckets = transactionTemplate.execute(status -> {
+                paymentRollupRepository.deleteDay(rollupDate);
+                return paymentRollupRepository.rebuildDay(rollupDate, rollupDate.atStartOfDay(),
+                        rollupDate.plusDays(1).atStartOfDay(), COUNTED_STATUSES);
+            });
+            logger.debug("Rebuilt {} payment rollup buckets for {}", buckets, rollupDate);
+        }
+        logger.info("Rebuilt payment rollups for {} to {}", from, to);
+        return verify(from, to);
+    }
+
+    private List<RollupVerification.Mismatch> verifyDay(LocalDate day) {
+        LocalDateTime dayStart = day.atStartOfDay();
+        Map<PaymentRollupKey, RollupBucket> expected = new HashMap<>();
+        for (Object[] row : paymentRollupRepository.aggregateDay(dayStart, dayStart.plusDays(1), COUNTED_STATUSES)) {
+            PaymentRollupKey key = new PaymentRollupKey(day, (String) row[0], (String) row[1],
+                    PaymentStatus.valueOf((String) row[2]));
+            expected.put(key, bucket(key, ((Number) row[3]).longValue(), (BigDecimal) row[4]));
+        }
+        Map<PaymentRollupKey, RollupBucket> actual = new HashMap<>();
+        for (PaymentRollupEntity rollup : paymentRollupRepository.findRange(day, day, null, null)) {
+            if (rollup.getPaymentCount() != 0 || rollup.getAmount().signum() != 0) {
+                actual.put(rollup.getKey(), bucket(rollup.getKey(), rollup.getPaymentCount(), rollup.getAmount()));
+            }
+        }
+
+        Set<PaymentRollupKey> keys = new TreeSet<>(expected.keySet());
+        keys.addAll(actual.keySet());
+        List<RollupVerification.Mismatch> mismatches = new ArrayList<>();
+        for (PaymentRollupKey key : keys) {
+            RollupBucket expectedBucket = expected.getOrDefault(key, bucket(key, 0, BigDecimal.ZERO));
+            RollupBucket actualBucket = actual.getOrDefault(key, bucket(key, 0, BigDecimal.ZERO));
+            if (expectedBucket.paymentCount() != actualBucket.paymentCount()
+                    || expectedBucket.amount().compareTo(actualBucket.amount()) != 0) {
+                mismatches.add(new RollupVerification.Mismatch(expectedBucket, actualBucket));
+            }
+        }
+        return mismatches;
+    }
+
+    private static RollupBucket bucket(PaymentRollupKey key, long count, BigDecimal amount) {
+        return new RollupBucket(key.getRollupDate(), key.getCurrency(), key.getPaymentMethod(), key.getStatus(),
+                count, amount);
+    }
+
+    private void checkRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) >= maxRangeDays) {
+            throw new InvalidDateRangeException(from, to, maxRangeDays);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.rental.payment.service;
+
+import com.rental.payment.entity.PaymentEntity;
+import com.rental.payment.entity.PaymentRollupKey;
+import com.rental.payment.entity.PaymentStatus;
+import com.rental.payment.repository.PaymentRepository;
+import com.rental.payment.repository.PaymentRollupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps {@code payment_rollups} in step with payment status changes. The
+ * changes of one transaction are collected and applied just before it
+ * commits: by then the payment method the same update records is set, and
+ * moves within one transaction (e.g. SUCCESS to REFUNDED) net out. Buckets are
+ * updated in key order, so concurrent transactions never deadlock on them.
+ */
+@Component
+public class PaymentRollups {
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentRollupRepository paymentRollupRepository;
+
+    @EventListener
+    public void onStatusChanged(PaymentStatusChangedEvent event) {
+        if (!isCounted(event.previous()) && !isCounted(event.current())) {
+            return;
+        }
+        pendingChanges().events.add(event);
+    }
+
+    /**
+     * Whether payments in {@code status} are included in the rollups.
+     */
+    public static boolean isCounted(PaymentStatus status) {
+        return status != null && status.isPaid();
+    }
+
+    private PendingChanges pendingChanges() {
+        PendingChanges changes = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            changes = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(changes);
+        }
+        return changes;
+    }
+
+    private void apply(List<PaymentStatusChangedEvent> events) {
+        Map<PaymentRollupKey, Delta> deltas = new TreeMap<>();
+        for (PaymentStatusChangedEvent event : events) {
+            // Already in this transaction's persistence context, so no query
+            PaymentEntity payment = paymentRepository.findById(event.paymentId()).orElse(null);
+            if (payment == null) {
+                continue;
+            }
+            if (isCounted(event.previous())) {
+                deltas.merge(key(payment, event.previous()), new Delta(-1, payment.getAmount().negate()), Delta::plus);
+            }
+            if (isCounted(event.current())) {
+                deltas.merge(key(payment, event.current()), new Delta(1, payment.getAmount()), Delta::plus);
+            }
+        }
+
+        deltas.forEach((key, delta) -> {
+            if (!delta.isZero()) {
+                paymentRollupRepository.addToBucket(key.getRollupDate(), key.getCurrency(), key.getPaymentMethod(),
+                        key.getStatus().name(), delta.count(), delta.amount());
+            }
+        });
+    }
+
+    private static PaymentRollupKey key(PaymentEntity payment, PaymentStatus status) {
+        return new PaymentRollupKey(payment.getCreatedAt().toLocalDate(), payment.getCurrency(),
+                payment.getPaymentMethod(), status);
+    }
+
+    private record Delta(long count, BigDecimal amount) {
+
+        Delta plus(Delta other) {
+            return new Delta(count + other.count, amount.add(other.amount));
+        }
+
+        boolean isZero() {
+            return count == 0 && amount.signum() == 0;
+        }
+    }
+
+    private final class PendingChanges implements TransactionSynchronization {
+
+        private final List<PaymentStatusChangedEvent> events = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            apply(events);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResource(PaymentRollups.this);
+        }
+    }
+}
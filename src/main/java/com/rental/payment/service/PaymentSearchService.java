@@ -0,0 +1,196 @@
+package com.rental.payment.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.rental.payment.dto.ExportFormat;
+import com.rental.payment.dto.PaymentPage;
+import com.rental.payment.dto.PaymentSearchFilter;
+import com.rental.payment.dto.PaymentSummary;
+import com.rental.payment.exception.ExportLimitExceededException;
+import com.rental.payment.exception.InvalidCursorException;
+import com.rental.payment.repository.PaymentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Payment listing for ops and finance, covering archived payments as well as
+ * the hot table. Pages are addressed by an opaque cursor holding the
+ * {@code (created_at, id)} of the last row returned.
+ *
+ * Exports stream every matching row from one read-only query, {@code fetch-size}
+ * rows at a time, straight to the response; memory use does not grow with the
+ * number of rows. At most {@code max-concurrent} exports run at once, since
+ * each holds a database connection until it finishes.
+ */
+@Service
+public class PaymentSearchService {
+
+    private static final String CSV_HEADER = "id,order_id,cf_order_id,amount,currency,status,payment_method,"
+            + "gateway_transaction_id,customer_email,failure_reason,created_at,updated_at";
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${payment.export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${payment.export.max-concurrent:2}")
+    private int maxConcurrentExports;
+
+    private TransactionTemplate readOnlyTransaction;
+    private ObjectWriter summaryWriter;
+    private Semaphore exports;
+
+    @PostConstruct
+    void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        summaryWriter = objectMapper.writerFor(PaymentSummary.class);
+        exports = new Semaphore(maxConcurrentExports);
+    }
+
+    public PaymentPage search(PaymentSearchFilter filter, String cursor, int limit) {
+        LocalDateTime afterCreatedAt = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            try {
+                afterCreatedAt = LocalDateTime.parse(position[0]);
+                afterId = Long.parseLong(position[1]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new InvalidCursorException(cursor);
+            }
+        }
+
+        // One extra row tells whether another page follows
+        List<PaymentSummary> rows = paymentRepository.search(filter, afterCreatedAt, afterId, limit + 1);
+        if (rows.size() <= limit) {
+            return new PaymentPage(rows, null);
+        }
+        List<PaymentSummary> page = List.copyOf(rows.subList(0, limit));
+        PaymentSummary last = page.get(limit - 1);
+        return new PaymentPage(page, encodeCursor(last));
+    }
+
+    /**
+     * Writes every payment matching {@code filter} to {@code out}, newest first.
+     * Returns the number of rows written.
+     */
+    public long export(PaymentSearchFilter filter, ExportFormat format, OutputStream out) throws IOException {
+        if (!exports.tryAcquire()) {
+            throw new ExportLimitExceededException(maxConcurrentExports);
+        }
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            if (format == ExportFormat.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            Long rows = readOnlyTransaction.execute(status -> {
+                try (Stream<PaymentSummary> payments = paymentRepository.stream(filter, fetchSize)) {
+                    long count = 0;
+                    for (PaymentSummary payment : (Iterable<PaymentSummary>) payments::iterator) {
+                        writeRow(writer, format, payment);
+                        count++;
+                    }
+                    return count;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+            meterRegistry.counter("payment.export.rows", "format", format.getExtension()).increment(rows);
+            return rows;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            exports.release();
+        }
+    }
+
+    private void writeRow(Writer writer, ExportFormat format, PaymentSummary payment) throws IOException {
+        if (format == ExportFormat.NDJSON) {
+            writer.write(summaryWriter.writeValueAsString(payment));
+            writer.write('\n');
+            return;
+        }
+        writer.write(String.valueOf(payment.id()));
+        writeCsvField(writer, payment.orderId());
+        writeCsvField(writer, payment.cfOrderId());
+        writeCsvField(writer, payment.amount() == null ? null : payment.amount().toPlainString());
+        writeCsvField(writer, payment.currency());
+        writeCsvField(writer, payment.status() == null ? null : payment.status().name());
+        writeCsvField(writer, payment.paymentMethod());
+        writeCsvField(writer, payment.gatewayTransactionId());
+        writeCsvField(writer, payment.customerEmail());
+        writeCsvField(writer, payment.failureReason());
+        writeCsvField(writer, payment.createdAt() == null ? null : payment.createdAt().toString());
+        writeCsvField(writer, payment.updatedAt() == null ? null : payment.updatedAt().toString());
+        writer.write('\n');
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        writer.write(',');
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        // Spreadsheets run cells starting with these as formulas
+        char first = value.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@') {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static String encodeCursor(PaymentSummary last) {
+        String position = last.createdAt() + "|" + last.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (position.length == 2) {
+                return position;
+            }
+        } catch (IllegalArgumentException e) {
+            // Not base64; rejected below
+        }
+        throw new InvalidCursorException(cursor);
+    }
+}
@@ -1,35 +1,52 @@
 package com.rental.payment.service;
 
+import com.rental.payment.dto.CashfreeOrderResponse;
+import com.rental.payment.dto.CashfreePayment;
+import com.rental.payment.dto.CashfreePaymentsResponse;
+import com.rental.payment.dto.CashfreeWebhookEvent;
 import com.rental.payment.dto.PaymentRequest;
 import com.rental.payment.dto.PaymentResponse;
+import com.rental.payment.entity.PaymentAuditSource;
 import com.rental.payment.entity.PaymentEntity;
 import com.rental.payment.entity.PaymentStatus;
+import com.rental.payment.entity.WebhookEventEntity;
+import com.rental.payment.entity.WebhookEventStatus;
+import com.rental.payment.exception.GatewayUnavailableException;
+import com.rental.payment.exception.WebhookQueueFullException;
 import com.rental.payment.repository.PaymentRepository;
+import com.rental.payment.repository.WebhookEventRepository;
 import com.rental.payment.config.CashfreeConfig;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.hc.client5.http.classic.methods.HttpGet;
-import org.apache.hc.client5.http.classic.methods.HttpPost;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.core5.http.io.entity.EntityUtils;
-import org.apache.hc.core5.http.io.entity.StringEntity;
+import com.rental.payment.config.SampledLogFilter;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
-import java.util.Base64;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class PaymentService {
@@ -42,235 +59,957 @@ public class PaymentService {
     @Autowired
     private CashfreeConfig cashfreeConfig;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Autowired
+    private CashfreeGatewayClient cashfreeGatewayClient;
+
+    @Autowired
+    @Qualifier("paymentTaskExecutor")
+    private Executor paymentTaskExecutor;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private WebhookEventRepository webhookEventRepository;
+
+    @Autowired
+    private WebhookQueue webhookQueue;
+
+    @Autowired
+    private WebhookDeduplicator webhookDeduplicator;
+
+    @Autowired
+    private WebhookPayloadParser webhookPayloadParser;
+
+    @Autowired
+    private WebhookSignatureVerifier webhookSignatureVerifier;
+
+    @Autowired
+    private PaymentStatusCache paymentStatusCache;
+
+    @Autowired
+    private SingleFlight singleFlight;
+
+    @Autowired
+    private PaymentAuditStore paymentAuditStore;
+
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
+    @Autowired
+    private PaymentMetrics paymentMetrics;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private RefundService refundService;
 
-    @Transactional
-    public PaymentResponse createPaymentOrder(PaymentRequest request) {
+    @Value("${payment.batch.max-concurrency:16}")
+    private int batchMaxConcurrency;
+
+    /**
+     * Creates the gateway order in three steps: a short transaction reserves the
+     * order row as {@link PaymentStatus#INITIATED}, the Cashfree call runs with no
+     * transaction or connection held, and a second short transaction on
+     * {@code paymentTaskExecutor} records the outcome.
+     */
+    public CompletableFuture<PaymentResponse> createPaymentOrder(PaymentRequest request) {
+        Timer.Sample sample = paymentMetrics.start();
+        // A double-clicked pay button shares the first request's gateway order
+        return singleFlight.execute("create-order", request.getOrderId(), () -> startPaymentOrder(request))
+                .whenComplete((response, e) ->
+                        paymentMetrics.createOrderCompleted(sample, e == null && response.isSuccess()));
+    }
+
+    private CompletableFuture<PaymentResponse> startPaymentOrder(PaymentRequest request) {
+        Executor executor = LogContext.propagating(paymentTaskExecutor);
         try {
-            // Check if order already exists
-            Optional<PaymentEntity> existingPayment = paymentRepository.findByOrderId(request.getOrderId());
-            if (existingPayment.isPresent() && existingPayment.get().getStatus() == PaymentStatus.SUCCESS) {
-                return new PaymentResponse(false, "Order already processed successfully");
+            PaymentEntity payment;
+            try {
+                payment = paymentMetrics.timeDatabase("reserve-order",
+                        () -> transactionTemplate.execute(status -> reserveOrder(request)));
+            } catch (DataIntegrityViolationException e) {
+                logger.warn("Payment order is already being created: {}", request.getOrderId());
+                return CompletableFuture.completedFuture(
+                        new PaymentResponse(false, "Payment order is already being created"));
             }
 
-            // Create payment entity
-            PaymentEntity payment = new PaymentEntity();
-            payment.setOrderId(request.getOrderId());
-            payment.setAmount(request.getAmount());
-            payment.setCurrency(request.getCurrency());
-            payment.setCustomerEmail(request.getCustomerEmail());
-            payment.setCustomerPhone(request.getCustomerPhone());
-
-            // Create order with Cashfree
-            Map<String, String> cashfreeResult = createCashfreeOrder(request);
-            if (cashfreeResult != null && cashfreeResult.containsKey("cf_order_id")) {
-                payment.setCfOrderId(cashfreeResult.get("cf_order_id"));
-                paymentRepository.save(payment);
+            if (payment == null) {
+                return CompletableFuture.completedFuture(
+                        new PaymentResponse(false, "Order already processed successfully"));
+            }
 
-                PaymentResponse response = new PaymentResponse(true, "Payment order created successfully");
-                response.setOrderId(request.getOrderId());
-                response.setCfOrderId(cashfreeResult.get("cf_order_id"));
-                response.setPaymentSessionId(cashfreeResult.get("payment_session_id"));
-                response.setAmount(request.getAmount());
-                response.setStatus(PaymentStatus.PENDING);
-                return response;
-            } else {
-                return new PaymentResponse(false, "Failed to create payment order");
+            if (hasLiveOrder(payment)) {
+                // Cashfree already holds this order ID; hand out its session instead of creating it again
+                PaymentEntity live = payment;
+                return cashfreeGatewayClient.getOrderAsync(request.getOrderId(), GatewayTrafficClass.CREATE_ORDER)
+                        .thenApply(cashfreeResult -> liveOrderResponse(live, cashfreeResult));
             }
 
+            Long paymentId = payment.getId();
+            // Each reservation bumps the row version, so a retried attempt for the
+            // same order gets a fresh key while gateway retries share this one
+            String idempotencyKey = request.getOrderId() + ":" + payment.getVersion();
+
+            // Create order with Cashfree
+            return cashfreeGatewayClient.createOrderAsync(request, idempotencyKey, GatewayTrafficClass.CREATE_ORDER)
+                    .handleAsync((cashfreeResult, e) -> {
+                        if (e == null) {
+                            return paymentMetrics.timeDatabase("record-order",
+                                    () -> optimisticRetry.execute("create-order",
+                                            status -> recordCreatedOrder(paymentId, request, cashfreeResult)));
+                        }
+                        Throwable cause = unwrap(e);
+                        if (cause instanceof GatewayUnavailableException unavailable) {
+                            optimisticRetry.execute("create-order",
+                                    status -> recordGatewayUnavailable(paymentId));
+                            throw unavailable;
+                        }
+                        logger.error("Error creating payment order {}: ", request.getOrderId(), cause);
+                        return new PaymentResponse(false, "Internal server error");
+                    }, executor);
+
         } catch (Exception e) {
-            logger.error("Error creating payment order: ", e);
-            return new PaymentResponse(false, "Internal server error");
+            logger.error("Error creating payment order {}: ", request.getOrderId(), e);
+            return CompletableFuture.completedFuture(new PaymentResponse(false, "Internal server error"));
+        }
+    }
+
+    /**
+     * Inserts the order row, or reuses a previous attempt for the same order ID
+     * that left no live gateway order. Returns {@code null} if the order has
+     * already been paid, and a PENDING payment unchanged if its gateway order is
+     * still live.
+     */
+    private PaymentEntity reserveOrder(PaymentRequest request) {
+        // Check if order already exists
+        Optional<PaymentEntity> existingPayment = paymentRepository.findByOrderId(request.getOrderId());
+        if (existingPayment.isPresent() && existingPayment.get().getStatus().isPaid()) {
+            return null;
+        }
+        if (existingPayment.isPresent() && hasLiveOrder(existingPayment.get())) {
+            return existingPayment.get();
+        }
+
+        PaymentEntity payment = existingPayment.orElseGet(PaymentEntity::new);
+        PaymentStatus previous = payment.getStatus();
+        prepareReservation(payment, request);
+
+        // Flush so that a concurrent insert of the same order ID fails here
+        PaymentEntity saved = paymentRepository.saveAndFlush(payment);
+        publishReserved(saved, previous);
+        return saved;
+    }
+
+    /**
+     * Whether Cashfree holds a gateway order for the payment that can still be
+     * paid. Resetting such a row would orphan its {@code cf_order_id}, and
+     * Cashfree rejects a second order with the same order ID.
+     */
+    private static boolean hasLiveOrder(PaymentEntity payment) {
+        return payment.getStatus() == PaymentStatus.PENDING && payment.getCfOrderId() != null;
+    }
+
+    private static PaymentResponse liveOrderResponse(PaymentEntity payment, CashfreeOrderResponse cashfreeResult) {
+        if (cashfreeResult == null || cashfreeResult.paymentSessionId() == null) {
+            PaymentResponse response = new PaymentResponse(false, "Failed to fetch payment order");
+            response.setOrderId(payment.getOrderId());
+            return response;
+        }
+
+        PaymentResponse response = new PaymentResponse(true, "Payment order already created");
+        response.setOrderId(payment.getOrderId());
+        response.setCfOrderId(payment.getCfOrderId());
+        response.setPaymentSessionId(cashfreeResult.paymentSessionId());
+        response.setAmount(payment.getAmount());
+        response.setStatus(PaymentStatus.PENDING);
+        return response;
+    }
+
+    private void prepareReservation(PaymentEntity payment, PaymentRequest request) {
+        payment.setOrderId(request.getOrderId());
+        payment.setAmount(request.getAmount());
+        payment.setCurrency(request.getCurrency());
+        payment.setCustomerEmail(request.getCustomerEmail());
+        payment.setCustomerPhone(request.getCustomerPhone());
+        payment.setCfOrderId(null);
+        payment.setFailureReason(null);
+        payment.setStatus(PaymentStatus.INITIATED);
+        // A retried order may still be cached as FAILED or CANCELLED, which the cache won't move back from
+        paymentStatusCache.invalidateAfterCommit(request.getOrderId());
+    }
+
+    private void publishReserved(PaymentEntity saved, PaymentStatus previous) {
+        if (previous != PaymentStatus.INITIATED) {
+            eventPublisher.publishEvent(new PaymentStatusChangedEvent(saved.getId(), saved.getOrderId(),
+                    previous, PaymentStatus.INITIATED));
+        }
+    }
+
+    private PaymentResponse recordCreatedOrder(Long paymentId, PaymentRequest request,
+            CashfreeOrderResponse cashfreeResult) {
+        PaymentEntity payment = paymentRepository.findById(paymentId)
+                .orElseThrow(() -> new IllegalStateException("Reserved payment disappeared: " + paymentId));
+        PaymentResponse response = applyCreatedOrder(payment, request, cashfreeResult);
+        paymentRepository.save(payment);
+        return response;
+    }
+
+    private PaymentResponse applyCreatedOrder(PaymentEntity payment, PaymentRequest request,
+            CashfreeOrderResponse cashfreeResult) {
+        if (cashfreeResult == null || cashfreeResult.cfOrderId() == null) {
+            changeStatus(payment, PaymentStatus.FAILED);
+            payment.setFailureReason("Gateway order creation failed");
+            PaymentResponse response = new PaymentResponse(false, "Failed to create payment order");
+            response.setOrderId(request.getOrderId());
+            return response;
+        }
+
+        payment.setCfOrderId(cashfreeResult.cfOrderId());
+        changeStatus(payment, PaymentStatus.PENDING);
+        paymentStatusCache.replaceAfterCommit(payment);
+
+        PaymentResponse response = new PaymentResponse(true, "Payment order created successfully");
+        response.setOrderId(request.getOrderId());
+        response.setCfOrderId(cashfreeResult.cfOrderId());
+        response.setPaymentSessionId(cashfreeResult.paymentSessionId());
+        response.setAmount(request.getAmount());
+        response.setStatus(PaymentStatus.PENDING);
+        return response;
+    }
+
+    private Void recordGatewayUnavailable(Long paymentId) {
+        PaymentEntity payment = paymentRepository.findById(paymentId)
+                .orElseThrow(() -> new IllegalStateException("Reserved payment disappeared: " + paymentId));
+        applyGatewayUnavailable(payment);
+        paymentRepository.save(payment);
+        return null;
+    }
+
+    private void applyGatewayUnavailable(PaymentEntity payment) {
+        changeStatus(payment, PaymentStatus.FAILED);
+        payment.setFailureReason("Gateway unavailable");
+    }
+
+    /**
+     * Returns the payment status, served from {@link PaymentStatusCache} when the
+     * payment has settled or was refreshed recently. Otherwise the status is
+     * refreshed from Cashfree, with concurrent polls for the same order sharing
+     * one gateway call through {@link SingleFlight}.
+     */
+    public CompletableFuture<PaymentResponse> verifyPayment(String orderId) {
+        Timer.Sample sample = paymentMetrics.start();
+        PaymentStatusCache.CachedStatus cached = paymentStatusCache.getIfFresh(orderId);
+        if (cached != null) {
+            paymentMetrics.verifyCompleted(sample, "cache", true);
+            return CompletableFuture.completedFuture(buildStatusResponse(cached));
         }
+        return singleFlight.execute("verify", orderId, () -> refreshPaymentStatus(orderId))
+                .whenComplete((response, e) ->
+                        paymentMetrics.verifyCompleted(sample, "refresh", e == null && response.getStatus() != null));
     }
 
-    @Transactional
-    public PaymentResponse verifyPayment(String orderId) {
+    /**
+     * Refreshes the payment status from Cashfree. The gateway call runs outside any
+     * transaction; only the final update is transactional.
+     */
+    private CompletableFuture<PaymentResponse> refreshPaymentStatus(String orderId) {
+        Executor executor = LogContext.propagating(paymentTaskExecutor);
         try {
-            Optional<PaymentEntity> paymentOpt = paymentRepository.findByOrderId(orderId);
+            Optional<PaymentEntity> paymentOpt = paymentMetrics.timeDatabase("find-payment",
+                    () -> paymentRepository.findByOrderId(orderId));
             if (!paymentOpt.isPresent()) {
-                return new PaymentResponse(false, "Payment order not found");
+                return CompletableFuture.completedFuture(new PaymentResponse(false, "Payment order not found"));
             }
 
             PaymentEntity payment = paymentOpt.get();
 
+            // Nothing to ask Cashfree until the gateway order exists, and nothing
+            // it could tell us once the payment has settled
+            if (payment.getCfOrderId() == null || payment.getStatus().isTerminal()) {
+                paymentStatusCache.putAfterCommit(payment);
+                return CompletableFuture.completedFuture(buildStatusResponse(payment));
+            }
+
+            Long paymentId = payment.getId();
+
             // Get payment status from Cashfree
-            JsonNode paymentDetails = getPaymentStatus(payment.getCfOrderId());
-            if (paymentDetails != null) {
-                updatePaymentFromCashfreeResponse(payment, paymentDetails);
-                paymentRepository.save(payment);
+            return cashfreeGatewayClient.getOrderPaymentsAsync(payment.getCfOrderId(),
+                            GatewayTrafficClass.VERIFY)
+                    .handleAsync((paymentDetails, e) -> {
+                        if (e == null) {
+                            return paymentMetrics.timeDatabase("record-verification",
+                                    () -> optimisticRetry.execute("verify",
+                                            status -> recordVerifiedPayment(paymentId, paymentDetails)));
+                        }
+                        Throwable cause = unwrap(e);
+                        if (cause instanceof GatewayUnavailableException) {
+                            // Serve the last known status; not cached, so the next poll tries Cashfree again
+                            logger.warn("Serving stored status for {}: {}", orderId, cause.getMessage());
+                            return buildStatusResponse(payment);
+                        }
+                        logger.error("Error verifying payment {}: ", orderId, cause);
+                        return new PaymentResponse(false, "Internal server error");
+                    }, executor);
+
+        } catch (Exception e) {
+            logger.error("Error verifying payment {}: ", orderId, e);
+            return CompletableFuture.completedFuture(new PaymentResponse(false, "Internal server error"));
+        }
+    }
+
+    private PaymentResponse recordVerifiedPayment(Long paymentId, CashfreePaymentsResponse paymentDetails) {
+        if (paymentDetails == null) {
+            return new PaymentResponse(false, "Failed to verify payment with gateway");
+        }
+
+        PaymentEntity payment = paymentRepository.findById(paymentId)
+                .orElseThrow(() -> new IllegalStateException("Payment disappeared: " + paymentId));
+        updatePaymentFromCashfreeResponse(payment, paymentDetails);
+        paymentRepository.save(payment);
+        paymentStatusCache.putAfterCommit(payment);
+
+        return buildStatusResponse(payment);
+    }
+
+    private PaymentResponse buildStatusResponse(PaymentEntity payment) {
+        return buildStatusResponse(PaymentStatusCache.CachedStatus.of(payment));
+    }
+
+    private PaymentResponse buildStatusResponse(PaymentStatusCache.CachedStatus payment) {
+        PaymentResponse response = new PaymentResponse();
+        response.setSuccess(payment.status().isPaid());
+        response.setMessage(getStatusMessage(payment.status()));
+        response.setOrderId(payment.orderId());
+        response.setCfOrderId(payment.cfOrderId());
+        response.setAmount(payment.amount());
+        response.setStatus(payment.status());
+        response.setPaymentMethod(payment.paymentMethod());
+        response.setGatewayTransactionId(payment.gatewayTransactionId());
+
+        return response;
+    }
+
+    /**
+     * Creates gateway orders for a batch of requests. All rows are reserved in
+     * one transaction with a single {@code findAllByOrderIdIn}, the Cashfree calls
+     * fan out with at most {@code payment.batch.max-concurrency} in flight, and the
+     * outcomes are written back in one batched transaction. Each item gets its own
+     * result; a failed item does not affect the others.
+     */
+    public CompletableFuture<List<PaymentResponse>> createPaymentOrders(List<PaymentRequest> requests) {
+        Executor executor = LogContext.propagating(paymentTaskExecutor);
+        PaymentResponse[] results = new PaymentResponse[requests.size()];
+
+        // Later duplicates of an order ID in the same batch are rejected
+        Map<String, Integer> firstIndex = new HashMap<>();
+        List<PaymentRequest> unique = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            PaymentRequest request = requests.get(i);
+            if (firstIndex.putIfAbsent(request.getOrderId(), i) == null) {
+                unique.add(request);
+            } else {
+                results[i] = itemFailure(request.getOrderId(), "Duplicate order ID in batch");
+            }
+        }
+
+        List<Reservation> reservations = reserveOrders(unique);
+        List<Reservation> reserved = new ArrayList<>();
+        for (Reservation reservation : reservations) {
+            if (reservation.payment() == null) {
+                results[firstIndex.get(reservation.request().getOrderId())] = reservation.rejection();
+            } else {
+                reserved.add(reservation);
+            }
+        }
+
+        return AsyncFanOut.map(reserved, batchMaxConcurrency, reservation -> (hasLiveOrder(reservation.payment())
+                        ? cashfreeGatewayClient.getOrderAsync(reservation.request().getOrderId(),
+                                GatewayTrafficClass.BATCH)
+                        : cashfreeGatewayClient.createOrderAsync(reservation.request(), reservation.idempotencyKey(),
+                                GatewayTrafficClass.BATCH))
+                        .handle((cashfreeResult, e) -> new CreatedOrder(reservation, cashfreeResult, unwrap(e))))
+                .thenApplyAsync(created -> {
+                    List<CreatedOrder> toRecord = new ArrayList<>();
+                    for (CreatedOrder order : created) {
+                        if (hasLiveOrder(order.reservation().payment())) {
+                            results[firstIndex.get(order.reservation().request().getOrderId())] =
+                                    liveOrderOutcome(order);
+                        } else {
+                            toRecord.add(order);
+                        }
+                    }
+                    if (!toRecord.isEmpty()) {
+                        for (PaymentResponse response : recordCreatedOrders(toRecord)) {
+                            results[firstIndex.get(response.getOrderId())] = response;
+                        }
+                    }
+                    return List.of(results);
+                }, executor);
+    }
+
+    private List<Reservation> reserveOrders(List<PaymentRequest> requests) {
+        try {
+            return paymentMetrics.timeDatabase("reserve-orders",
+                    () -> transactionTemplate.execute(status -> reserveOrdersOnce(requests)));
+        } catch (DataIntegrityViolationException | OptimisticLockingFailureException e) {
+            // Another request touched one of the orders; isolate it by reserving one by one
+            logger.warn("Batch reservation conflicted, reserving {} orders individually", requests.size());
+            List<Reservation> reservations = new ArrayList<>();
+            for (PaymentRequest request : requests) {
+                reservations.add(reserveOrderIndividually(request));
+            }
+            return reservations;
+        }
+    }
+
+    private List<Reservation> reserveOrdersOnce(List<PaymentRequest> requests) {
+        Map<String, PaymentEntity> existing = paymentRepository.findAllByOrderIdIn(
+                        requests.stream().map(PaymentRequest::getOrderId).toList()).stream()
+                .collect(Collectors.toMap(PaymentEntity::getOrderId, Function.identity()));
+
+        List<Reservation> reservations = new ArrayList<>();
+        List<PaymentEntity> toSave = new ArrayList<>();
+        List<PaymentStatus> previousStatuses = new ArrayList<>();
+        for (PaymentRequest request : requests) {
+            PaymentEntity payment = existing.get(request.getOrderId());
+            if (payment != null && payment.getStatus().isPaid()) {
+                reservations.add(Reservation.rejected(request, "Order already processed successfully"));
+                continue;
+            }
+            if (payment != null && hasLiveOrder(payment)) {
+                reservations.add(new Reservation(request, payment, null));
+                continue;
+            }
+            if (payment == null) {
+                payment = new PaymentEntity();
+            }
+            previousStatuses.add(payment.getStatus());
+            prepareReservation(payment, request);
+            toSave.add(payment);
+            reservations.add(new Reservation(request, payment, null));
+        }
+
+        List<PaymentEntity> saved = paymentRepository.saveAll(toSave);
+        paymentRepository.flush();
+        for (int i = 0; i < saved.size(); i++) {
+            publishReserved(saved.get(i), previousStatuses.get(i));
+        }
+        return reservations;
+    }
+
+    private Reservation reserveOrderIndividually(PaymentRequest request) {
+        try {
+            PaymentEntity payment = transactionTemplate.execute(status -> reserveOrder(request));
+            return payment == null
+                    ? Reservation.rejected(request, "Order already processed successfully")
+                    : new Reservation(request, payment, null);
+        } catch (DataIntegrityViolationException | OptimisticLockingFailureException e) {
+            logger.warn("Payment order is already being created: {}", request.getOrderId());
+            return Reservation.rejected(request, "Payment order is already being created");
+        }
+    }
 
-                PaymentResponse response = new PaymentResponse();
-                response.setSuccess(payment.getStatus() == PaymentStatus.SUCCESS);
-                response.setMessage(getStatusMessage(payment.getStatus()));
-                response.setOrderId(payment.getOrderId());
-                response.setCfOrderId(payment.getCfOrderId());
-                response.setAmount(payment.getAmount());
-                response.setStatus(payment.getStatus());
-                response.setPaymentMethod(payment.getPaymentMethod());
-                response.setGatewayTransactionId(payment.getGatewayTransactionId());
+    private List<PaymentResponse> recordCreatedOrders(List<CreatedOrder> created) {
+        try {
+            return paymentMetrics.timeDatabase("record-orders",
+                    () -> optimisticRetry.execute("create-order-batch", status -> recordCreatedOrdersOnce(created)));
+        } catch (RuntimeException e) {
+            logger.warn("Batch order recording failed, recording {} orders individually", created.size(), e);
+            return created.stream().map(this::recordCreatedOrderIndividually).toList();
+        }
+    }
 
+    private List<PaymentResponse> recordCreatedOrdersOnce(List<CreatedOrder> created) {
+        Map<Long, PaymentEntity> payments = paymentRepository.findAllById(
+                        created.stream().map(order -> order.reservation().payment().getId()).toList()).stream()
+                .collect(Collectors.toMap(PaymentEntity::getId, Function.identity()));
+
+        List<PaymentResponse> responses = new ArrayList<>();
+        for (CreatedOrder order : created) {
+            PaymentEntity payment = payments.get(order.reservation().payment().getId());
+            responses.add(applyCreatedOrderOutcome(payment, order));
+        }
+        paymentRepository.saveAll(payments.values());
+        return responses;
+    }
+
+    private PaymentResponse recordCreatedOrderIndividually(CreatedOrder order) {
+        Long paymentId = order.reservation().payment().getId();
+        try {
+            return optimisticRetry.execute("create-order", status -> {
+                PaymentEntity payment = paymentRepository.findById(paymentId)
+                        .orElseThrow(() -> new IllegalStateException("Reserved payment disappeared: " + paymentId));
+                PaymentResponse response = applyCreatedOrderOutcome(payment, order);
+                paymentRepository.save(payment);
                 return response;
+            });
+        } catch (RuntimeException e) {
+            logger.error("Error recording payment order {}: ", order.reservation().request().getOrderId(), e);
+            return itemFailure(order.reservation().request().getOrderId(), "Internal server error");
+        }
+    }
+
+    private PaymentResponse liveOrderOutcome(CreatedOrder order) {
+        String orderId = order.reservation().request().getOrderId();
+        if (order.error() instanceof GatewayUnavailableException) {
+            return itemFailure(orderId, "Payment gateway is temporarily unavailable");
+        }
+        if (order.error() != null) {
+            logger.error("Error fetching payment order {}: ", orderId, order.error());
+            return itemFailure(orderId, "Internal server error");
+        }
+        return liveOrderResponse(order.reservation().payment(), order.cashfreeResult());
+    }
+
+    private PaymentResponse applyCreatedOrderOutcome(PaymentEntity payment, CreatedOrder order) {
+        String orderId = order.reservation().request().getOrderId();
+        if (order.error() instanceof GatewayUnavailableException) {
+            applyGatewayUnavailable(payment);
+            return itemFailure(orderId, "Payment gateway is temporarily unavailable");
+        }
+        if (order.error() != null) {
+            // Left INITIATED; the reconciler expires it if it never completes
+            logger.error("Error creating payment order {}: ", orderId, order.error());
+            return itemFailure(orderId, "Internal server error");
+        }
+        return applyCreatedOrder(payment, order.reservation().request(), order.cashfreeResult());
+    }
+
+    /**
+     * Returns the status of each order in {@code orderIds}, in request order.
+     * Fresh cached statuses are served as in {@link #verifyPayment}; the rest are
+     * loaded with one {@code findAllByOrderIdIn}, refreshed from Cashfree with
+     * bounded concurrency and written back in one batched transaction.
+     */
+    public CompletableFuture<List<PaymentResponse>> verifyPayments(List<String> orderIds) {
+        Executor executor = LogContext.propagating(paymentTaskExecutor);
+        Map<String, PaymentResponse> responses = new ConcurrentHashMap<>();
+
+        Set<String> toLoad = new LinkedHashSet<>();
+        for (String orderId : orderIds) {
+            PaymentStatusCache.CachedStatus cached = paymentStatusCache.getIfFresh(orderId);
+            if (cached != null) {
+                responses.put(orderId, buildStatusResponse(cached));
             } else {
-                return new PaymentResponse(false, "Failed to verify payment with gateway");
+                toLoad.add(orderId);
             }
+        }
 
-        } catch (Exception e) {
-            logger.error("Error verifying payment: ", e);
-            return new PaymentResponse(false, "Internal server error");
+        List<PaymentEntity> toRefresh = new ArrayList<>();
+        if (!toLoad.isEmpty()) {
+            List<PaymentEntity> payments = paymentMetrics.timeDatabase("find-payments",
+                    () -> paymentRepository.findAllByOrderIdIn(toLoad));
+            List<PaymentEntity> settled = new ArrayList<>();
+            for (PaymentEntity payment : payments) {
+                if (payment.getCfOrderId() == null || payment.getStatus().isTerminal()) {
+                    responses.put(payment.getOrderId(), buildStatusResponse(payment));
+                    settled.add(payment);
+                } else {
+                    toRefresh.add(payment);
+                }
+            }
+            paymentStatusCache.putAfterCommit(settled);
+        }
+
+        return AsyncFanOut.map(toRefresh, batchMaxConcurrency, payment -> cashfreeGatewayClient
+                        .getOrderPaymentsAsync(payment.getCfOrderId(), GatewayTrafficClass.BATCH)
+                        .handle((paymentDetails, e) -> new VerifiedPayment(payment, paymentDetails, unwrap(e))))
+                .thenApplyAsync(verified -> {
+                    for (PaymentResponse response : recordVerifiedPayments(verified)) {
+                        responses.put(response.getOrderId(), response);
+                    }
+                    return orderIds.stream()
+                            .map(orderId -> responses.getOrDefault(orderId,
+                                    itemFailure(orderId, "Payment order not found")))
+                            .toList();
+                }, executor);
+    }
+
+    private List<PaymentResponse> recordVerifiedPayments(List<VerifiedPayment> verified) {
+        try {
+            return paymentMetrics.timeDatabase("record-verifications",
+                    () -> optimisticRetry.execute("verify-batch", status -> recordVerifiedPaymentsOnce(verified)));
+        } catch (RuntimeException e) {
+            logger.warn("Batch verification recording failed, recording {} payments individually",
+                    verified.size(), e);
+            return verified.stream().map(this::recordVerifiedPaymentIndividually).toList();
+        }
+    }
+
+    private List<PaymentResponse> recordVerifiedPaymentsOnce(List<VerifiedPayment> verified) {
+        Map<Long, PaymentEntity> payments = paymentRepository.findAllById(verified.stream()
+                        .filter(item -> item.paymentDetails() != null)
+                        .map(item -> item.payment().getId())
+                        .toList()).stream()
+                .collect(Collectors.toMap(PaymentEntity::getId, Function.identity()));
+
+        List<PaymentResponse> responses = new ArrayList<>();
+        for (VerifiedPayment item : verified) {
+            PaymentEntity payment = payments.get(item.payment().getId());
+            if (payment == null) {
+                responses.add(verificationFailure(item));
+                continue;
+            }
+            updatePaymentFromCashfreeResponse(payment, item.paymentDetails());
+            responses.add(buildStatusResponse(payment));
+        }
+        paymentRepository.saveAll(payments.values());
+        paymentStatusCache.putAfterCommit(payments.values());
+        return responses;
+    }
+
+    private PaymentResponse recordVerifiedPaymentIndividually(VerifiedPayment item) {
+        if (item.paymentDetails() == null) {
+            return verificationFailure(item);
+        }
+        try {
+            PaymentResponse response = optimisticRetry.execute("verify",
+                    status -> recordVerifiedPayment(item.payment().getId(), item.paymentDetails()));
+            response.setOrderId(item.payment().getOrderId());
+            return response;
+        } catch (RuntimeException e) {
+            logger.error("Error verifying payment {}: ", item.payment().getOrderId(), e);
+            return itemFailure(item.payment().getOrderId(), "Internal server error");
+        }
+    }
+
+    private PaymentResponse verificationFailure(VerifiedPayment item) {
+        String orderId = item.payment().getOrderId();
+        if (item.error() instanceof GatewayUnavailableException) {
+            // Last known status, not cached, as for single verifications
+            return buildStatusResponse(item.payment());
+        }
+        if (item.error() != null) {
+            logger.error("Error verifying payment {}: ", orderId, item.error());
+            return itemFailure(orderId, "Internal server error");
+        }
+        return itemFailure(orderId, "Failed to verify payment with gateway");
+    }
+
+    private static PaymentResponse itemFailure(String orderId, String message) {
+        PaymentResponse response = new PaymentResponse(false, message);
+        response.setOrderId(orderId);
+        return response;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    /** A batch item's reserved row, or the reason it was not reserved. */
+    private record Reservation(PaymentRequest request, PaymentEntity payment, PaymentResponse rejection) {
+
+        static Reservation rejected(PaymentRequest request, String message) {
+            return new Reservation(request, null, itemFailure(request.getOrderId(), message));
+        }
+
+        String idempotencyKey() {
+            return request.getOrderId() + ":" + payment.getVersion();
         }
     }
 
-    @Transactional
-    public PaymentResponse handleWebhook(String payload, String signature) {
+    private record CreatedOrder(Reservation reservation, CashfreeOrderResponse cashfreeResult, Throwable error) {
+    }
+
+    private record VerifiedPayment(PaymentEntity payment, CashfreePaymentsResponse paymentDetails,
+                                   Throwable error) {
+    }
+
+    /**
+     * Verifies the webhook and appends it to the durable queue. The payment itself
+     * is updated later by {@link WebhookQueueWorker}, so Cashfree is acknowledged
+     * without waiting on any payment lookups.
+     */
+    public PaymentResponse handleWebhook(byte[] payload, String timestamp, String signature) {
+        Timer.Sample sample = paymentMetrics.start();
+        String outcome = "error";
         try {
             // Verify webhook signature
-            if (!verifyWebhookSignature(payload, signature)) {
+            if (!webhookSignatureVerifier.verify(payload, timestamp, signature)) {
                 logger.warn("Invalid webhook signature");
+                outcome = "invalid-signature";
                 return new PaymentResponse(false, "Invalid signature");
             }
 
-            JsonNode webhookData = objectMapper.readTree(payload);
-            String cfOrderId = webhookData.path("data").path("order").path("cf_order_id").asText();
-
-            Optional<PaymentEntity> paymentOpt = paymentRepository.findByCfOrderId(cfOrderId);
-            if (!paymentOpt.isPresent()) {
-                logger.warn("Payment not found for webhook: {}", cfOrderId);
-                return new PaymentResponse(false, "Payment not found");
-            }
+            CashfreeWebhookEvent webhookEvent = webhookPayloadParser.parse(payload);
+            String cfOrderId = webhookEvent.cfOrderId();
+            String eventKey = WebhookDeduplicator.eventKey(webhookEvent);
 
-            PaymentEntity payment = paymentOpt.get();
-            updatePaymentFromWebhook(payment, webhookData);
-            paymentRepository.save(payment);
+            try (MDC.MDCCloseable ignored = MDC.putCloseable(LogContext.CF_ORDER_ID, cfOrderId)) {
+                // Redeliveries are acknowledged without touching the database
+                if (webhookDeduplicator.checkAndMark(eventKey)) {
+                    logger.debug("Duplicate webhook ignored: {}", eventKey);
+                    outcome = "duplicate";
+                    return new PaymentResponse(true, "Duplicate webhook ignored");
+                }
 
-            logger.info("Webhook processed successfully for order: {}", payment.getOrderId());
-            return new PaymentResponse(true, "Webhook processed successfully");
+                try {
+                    if (webhookEvent.isRefund()) {
+                        webhookQueue.enqueue(null, webhookEvent.refundId(), eventKey, payload);
+                    } else {
+                        webhookQueue.enqueue(cfOrderId, null, eventKey, payload);
+                    }
+                } catch (RuntimeException e) {
+                    webhookDeduplicator.forget(eventKey);
+                    throw e;
+                }
+                logger.info(SampledLogFilter.SAMPLED, "Webhook queued: {}", eventKey);
+                outcome = "queued";
+                return new PaymentResponse(true, "Webhook queued");
+            }
 
+        } catch (WebhookQueueFullException e) {
+            outcome = "queue-full";
+            throw e;
         } catch (Exception e) {
             logger.error("Error processing webhook: ", e);
             return new PaymentResponse(false, "Webhook processing failed");
+        } finally {
+            paymentMetrics.webhookReceived(sample, outcome);
+        }
+    }
+
+    /**
+     * Applies a batch of claimed webhook events in one transaction: the payments
+     * are loaded with a single lookup, updated in event order and written back as
+     * JDBC batches. A concurrent update of one of the payments reruns the batch.
+     * Returns the events with their final queue status.
+     */
+    public List<WebhookEventEntity> applyWebhookEvents(List<Long> eventIds) {
+        Timer.Sample sample = paymentMetrics.start();
+        try {
+            return optimisticRetry.execute("webhook", status -> applyWebhookEventsOnce(eventIds));
+        } finally {
+            paymentMetrics.webhookBatchApplied(sample);
         }
     }
 
-    private Map<String, String> createCashfreeOrder(PaymentRequest request) {
-        try (CloseableHttpClient client = HttpClients.createDefault()) {
-            HttpPost post = new HttpPost(cashfreeConfig.getBaseUrl() + "/orders");
+    private List<WebhookEventEntity> applyWebhookEventsOnce(List<Long> eventIds) {
+        List<WebhookEventEntity> events = webhookEventRepository.findAllById(eventIds);
+        events.sort(Comparator.comparing(WebhookEventEntity::getId));
 
-            // Set headers
-            post.setHeader("Content-Type", "application/json");
-            post.setHeader("x-client-id", cashfreeConfig.getAppId());
-            post.setHeader("x-client-secret", cashfreeConfig.getSecretKey());
-            post.setHeader("x-api-version", "2022-09-01");
+        Set<String> cfOrderIds = events.stream()
+                .map(WebhookEventEntity::getCfOrderId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, PaymentEntity> payments = paymentRepository.findAllByCfOrderIdIn(cfOrderIds).stream()
+                .collect(Collectors.toMap(PaymentEntity::getCfOrderId, Function.identity(), (a, b) -> a));
+        RefundService.RefundWebhookBatch refunds = refundService.loadWebhookBatch(events.stream()
+                .map(WebhookEventEntity::getRefundId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
 
-            // Create request body
-            Map<String, Object> orderData = new HashMap<>();
-            orderData.put("order_id", request.getOrderId());
-            orderData.put("order_amount", request.getAmount());
-            orderData.put("order_currency", request.getCurrency());
+        Set<String> eventKeys = events.stream()
+                .map(WebhookEventEntity::getEventKey)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<String> alreadyProcessed = webhookDeduplicator.findProcessed(eventKeys);
+        Set<String> newlyProcessed = new HashSet<>();
 
-            Map<String, String> customer = new HashMap<>();
-            customer.put("customer_id", request.getCustomerId());
-            customer.put("customer_email", request.getCustomerEmail());
-            if (request.getCustomerPhone() != null && !request.getCustomerPhone().trim().isEmpty()) {
-                customer.put("customer_phone", request.getCustomerPhone());
+        for (WebhookEventEntity event : events) {
+            try (MDC.MDCCloseable ignored = MDC.putCloseable(LogContext.CF_ORDER_ID, event.getCfOrderId())) {
+                applyWebhookEvent(event, payments, refunds, alreadyProcessed, newlyProcessed);
             }
-            orderData.put("customer_details", customer);
+        }
 
-            orderData.put("order_meta", Map.of("return_url", request.getReturnUrl()));
+        List<PaymentEntity> changed = new ArrayList<>(payments.values());
+        changed.addAll(refundService.saveWebhookBatch(refunds));
+        paymentRepository.saveAll(changed);
+        paymentStatusCache.putAfterCommit(changed);
+        webhookDeduplicator.markProcessed(newlyProcessed);
+        return webhookEventRepository.saveAll(events);
+    }
 
-            String jsonBody = objectMapper.writeValueAsString(orderData);
-            logger.info("Cashfree request: {}", jsonBody);
-            post.setEntity(new StringEntity(jsonBody, StandardCharsets.UTF_8));
+    private void applyWebhookEvent(WebhookEventEntity event, Map<String, PaymentEntity> payments,
+            RefundService.RefundWebhookBatch refunds, Set<String> alreadyProcessed, Set<String> newlyProcessed) {
+        String eventKey = event.getEventKey();
+        if (eventKey != null && (alreadyProcessed.contains(eventKey) || newlyProcessed.contains(eventKey))) {
+            markProcessed(event);
+            return;
+        }
 
-            try (CloseableHttpResponse response = client.execute(post)) {
-                String responseBody = EntityUtils.toString(response.getEntity());
-                logger.info("Cashfree response: {}", responseBody);
+        if (event.getRefundId() != null) {
+            applyRefundWebhookEvent(event, refunds, newlyProcessed);
+            return;
+        }
 
-                if (response.getCode() == 200) {
-                    JsonNode responseJson = objectMapper.readTree(responseBody);
-                    Map<String, String> result = new HashMap<>();
-                    result.put("cf_order_id", responseJson.path("cf_order_id").asText());
-                    result.put("payment_session_id", responseJson.path("payment_session_id").asText());
-                    return result;
-                } else {
-                    logger.error("Cashfree order creation failed: {}", responseBody);
-                    return null;
-                }
-            }
+        PaymentEntity payment = payments.get(event.getCfOrderId());
+        if (payment == null) {
+            // The create-order transaction may not have committed yet
+            logger.warn("Payment not found for webhook: {}", event.getCfOrderId());
+            webhookQueue.scheduleRetry(event, "Payment not found");
+            return;
+        }
 
+        try {
+            updatePaymentFromWebhook(payment, webhookPayloadParser.parse(event.getPayload()), event.getPayload());
+            markProcessed(event);
+            if (eventKey != null) {
+                newlyProcessed.add(eventKey);
+            }
         } catch (Exception e) {
-            logger.error("Error creating Cashfree order: ", e);
-            return null;
+            logger.error("Error applying webhook event {}: ", event.getId(), e);
+            webhookQueue.scheduleRetry(event, e.getMessage());
         }
     }
 
-    private JsonNode getPaymentStatus(String cfOrderId) {
-        try (CloseableHttpClient client = HttpClients.createDefault()) {
-            HttpGet get = new HttpGet(cashfreeConfig.getBaseUrl() + "/orders/" + cfOrderId + "/payments");
+    private void applyRefundWebhookEvent(WebhookEventEntity event, RefundService.RefundWebhookBatch refunds,
+            Set<String> newlyProcessed) {
+        try {
+            if (!refundService.applyWebhook(refunds, webhookPayloadParser.parse(event.getPayload()),
+                    event.getPayload())) {
+                // E.g. a refund issued from the Cashfree dashboard; fails once the retries run out
+                logger.warn("Refund not found for webhook: {}", event.getRefundId());
+                webhookQueue.scheduleRetry(event, "Refund not found");
+                return;
+            }
+            markProcessed(event);
+            if (event.getEventKey() != null) {
+                newlyProcessed.add(event.getEventKey());
+            }
+        } catch (Exception e) {
+            logger.error("Error applying refund webhook event {}: ", event.getId(), e);
+            webhookQueue.scheduleRetry(event, e.getMessage());
+        }
+    }
 
-            // Set headers
-            get.setHeader("x-client-id", cashfreeConfig.getAppId());
-            get.setHeader("x-client-secret", cashfreeConfig.getSecretKey());
-            get.setHeader("x-api-version", "2022-09-01");
+    /**
+     * Applies the gateway statuses fetched by {@link PaymentReconciler} to the
+     * payments it leased under {@code claimToken}, and releases the lease. Rows
+     * the gateway call failed for are released unchanged. A PENDING payment
+     * created before {@code abandonedBefore} whose order still has no payment
+     * attempt is cancelled as an abandoned checkout. Returns the number of
+     * payments whose status changed.
+     */
+    public int applyReconciledStatuses(String claimToken,
+            Map<Long, CashfreePaymentsResponse> gatewayStatuses, LocalDateTime abandonedBefore) {
+        return optimisticRetry.execute("reconcile",
+                status -> applyReconciledStatusesOnce(claimToken, gatewayStatuses, abandonedBefore));
+    }
 
-            try (CloseableHttpResponse response = client.execute(get)) {
-                String responseBody = EntityUtils.toString(response.getEntity());
+    private int applyReconciledStatusesOnce(String claimToken,
+            Map<Long, CashfreePaymentsResponse> gatewayStatuses, LocalDateTime abandonedBefore) {
+        List<PaymentEntity> payments = paymentRepository.findByReconcileClaimTokenOrderByIdAsc(claimToken);
 
-                if (response.getCode() == 200) {
-                    return objectMapper.readTree(responseBody);
-                } else {
-                    logger.error("Failed to get payment status: {}", responseBody);
-                    return null;
+        int updated = 0;
+        for (PaymentEntity payment : payments) {
+            CashfreePaymentsResponse paymentDetails = gatewayStatuses.get(payment.getId());
+            if (paymentDetails != null) {
+                PaymentStatus previous = payment.getStatus();
+                if (paymentDetails.latest() == null && previous == PaymentStatus.PENDING
+                        && payment.getCreatedAt().isBefore(abandonedBefore)) {
+                    // A payment made after all still arrives by webhook, which may
+                    // move CANCELLED on to SUCCESS
+                    changeStatus(payment, PaymentStatus.CANCELLED);
+                    payment.setFailureReason("Checkout abandoned: no payment attempt before the order expired");
+                }
+                updatePaymentFromCashfreeResponse(payment, paymentDetails);
+                if (payment.getStatus() != previous) {
+                    updated++;
                 }
             }
-
-        } catch (Exception e) {
-            logger.error("Error getting payment status: ", e);
-            return null;
+            payment.setReconcileClaimToken(null);
+            payment.setReconcileLeaseUntil(null);
         }
+
+        paymentRepository.saveAll(payments);
+        paymentStatusCache.putAfterCommit(payments);
+        return updated;
+    }
+
+    /**
+     * Fails those of the given payments that are still INITIATED and untouched
+     * since {@code cutoff}, e.g. because the node crashed between reserving the
+     * row and recording Cashfree's answer. Returns the number failed.
+     */
+    public int expireInitiatedPayments(List<Long> ids, LocalDateTime cutoff, String reason) {
+        return optimisticRetry.execute("expire", status -> {
+            List<PaymentEntity> expired = paymentRepository.findAllById(ids).stream()
+                    .filter(payment -> payment.getStatus() == PaymentStatus.INITIATED
+                            && payment.getUpdatedAt().isBefore(cutoff))
+                    .toList();
+            for (PaymentEntity payment : expired) {
+                changeStatus(payment, PaymentStatus.FAILED);
+                payment.setFailureReason(reason);
+            }
+            paymentRepository.saveAll(expired);
+            paymentStatusCache.putAfterCommit(expired);
+            return expired.size();
+        });
     }
 
-    private void updatePaymentFromCashfreeResponse(PaymentEntity payment, JsonNode response) {
+    private void markProcessed(WebhookEventEntity event) {
+        event.setStatus(WebhookEventStatus.PROCESSED);
+        event.setProcessedAt(LocalDateTime.now());
+        event.setClaimToken(null);
+    }
+
+    private void updatePaymentFromCashfreeResponse(PaymentEntity payment, CashfreePaymentsResponse response) {
         try {
-            if (response.isArray() && response.size() > 0) {
-                JsonNode paymentData = response.get(0);
+            CashfreePayment paymentData = response.latest();
+            if (paymentData != null) {
+                PaymentStatus status = mapCashfreeStatus(paymentData.paymentStatus());
+                if (!payment.getStatus().canTransitionTo(status)) {
+                    logger.info("Ignoring stale gateway status {} for order {} in status {}",
+                            status, payment.getOrderId(), payment.getStatus());
+                    return;
+                }
 
-                String status = paymentData.path("payment_status").asText();
-                payment.setStatus(mapCashfreeStatus(status));
-                payment.setPaymentMethod(paymentData.path("payment_method").asText());
-                payment.setGatewayTransactionId(paymentData.path("cf_payment_id").asText());
+                changeStatus(payment, status);
+                payment.setPaymentMethod(paymentData.paymentMethod());
+                payment.setGatewayTransactionId(paymentData.cfPaymentId());
 
                 if (payment.getStatus() == PaymentStatus.FAILED) {
-                    payment.setFailureReason(paymentData.path("payment_message").asText());
+                    payment.setFailureReason(paymentData.paymentMessage());
                 }
 
-                payment.setRawResponse(response.toString());
+                paymentAuditStore.append(payment.getId(), PaymentAuditSource.GATEWAY_VERIFY, response.payload());
             }
         } catch (Exception e) {
             logger.error("Error updating payment from Cashfree response: ", e);
         }
     }
 
-    private void updatePaymentFromWebhook(PaymentEntity payment, JsonNode webhookData) {
+    private void updatePaymentFromWebhook(PaymentEntity payment, CashfreeWebhookEvent webhookEvent, byte[] rawPayload) {
         try {
-            JsonNode paymentData = webhookData.path("data").path("payment");
+            // Every distinct webhook is kept, including ones that arrive out of order,
+            // exactly as received
+            paymentAuditStore.append(payment.getId(), PaymentAuditSource.WEBHOOK, rawPayload);
 
-            String status = paymentData.path("payment_status").asText();
-            payment.setStatus(mapCashfreeStatus(status));
-            payment.setPaymentMethod(paymentData.path("payment_method").asText());
-            payment.setGatewayTransactionId(paymentData.path("cf_payment_id").asText());
+            PaymentStatus status = mapCashfreeStatus(webhookEvent.paymentStatus());
+            if (!payment.getStatus().canTransitionTo(status)) {
+                logger.info("Ignoring out-of-order webhook status {} for order {} in status {}",
+                        status, payment.getOrderId(), payment.getStatus());
+                return;
+            }
+
+            changeStatus(payment, status);
+            payment.setPaymentMethod(webhookEvent.paymentMethod());
+            payment.setGatewayTransactionId(webhookEvent.cfPaymentId());
 
             if (payment.getStatus() == PaymentStatus.FAILED) {
-                payment.setFailureReason(paymentData.path("payment_message").asText());
+                payment.setFailureReason(webhookEvent.paymentMessage());
             }
-
-            payment.setRawResponse(webhookData.toString());
         } catch (Exception e) {
             logger.error("Error updating payment from webhook: ", e);
         }
     }
 
+    private void changeStatus(PaymentEntity payment, PaymentStatus status) {
+        PaymentStatus previous = payment.getStatus();
+        payment.setStatus(status);
+        if (previous != status) {
+            eventPublisher.publishEvent(new PaymentStatusChangedEvent(payment.getId(), payment.getOrderId(),
+                    previous, status));
+        }
+    }
+
     private PaymentStatus mapCashfreeStatus(String cashfreeStatus) {
+        if (cashfreeStatus == null) {
+            return PaymentStatus.PENDING;
+        }
         switch (cashfreeStatus.toUpperCase()) {
             case "SUCCESS":
                 return PaymentStatus.SUCCESS;
@@ -292,27 +1031,15 @@ public class PaymentService {
                 return "Payment failed";
             case CANCELLED:
                 return "Payment cancelled";
+            case PARTIAL_REFUNDED:
+                return "Payment partially refunded";
+            case REFUNDED:
+                return "Payment refunded";
+            case INITIATED:
+                return "Payment order is being created";
             case PENDING:
             default:
                 return "Payment is pending";
         }
     }
-
-    private boolean verifyWebhookSignature(String payload, String signature) {
-        try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec secretKey = new SecretKeySpec(
-                    cashfreeConfig.getWebhookSecret().getBytes(StandardCharsets.UTF_8),
-                    "HmacSHA256");
-            mac.init(secretKey);
-
-            byte[] hash = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
-            String expectedSignature = Base64.getEncoder().encodeToString(hash);
-
-            return expectedSignature.equals(signature);
-        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
-            logger.error("Error verifying webhook signature: ", e);
-            return false;
-        }
-    }
 }
\ No newline at end of file
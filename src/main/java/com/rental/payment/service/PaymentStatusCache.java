@@ -0,0 +1,145 @@
+package com.rental.payment.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rental.payment.entity.PaymentEntity;
+import com.rental.payment.entity.PaymentStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * In-memory view of payment status in front of {@code verifyPayment}. Settled
+ * payments are served from here until the entry expires; pending ones at most
+ * once per {@code pending-refresh-interval} before going back to Cashfree.
+ *
+ * Entries are local to each node. Webhooks applied elsewhere reach this node
+ * through the pending refresh or the entry TTL.
+ */
+@Component
+public class PaymentStatusCache {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${payment.status-cache.max-size:100000}")
+    private long maxSize;
+
+    @Value("${payment.status-cache.ttl:10m}")
+    private Duration ttl;
+
+    @Value("${payment.status-cache.pending-refresh-interval:5s}")
+    private Duration pendingRefreshInterval;
+
+    private Cache<String, CachedStatus> entries;
+
+    private Counter hits;
+    private Counter misses;
+
+    @PostConstruct
+    void init() {
+        entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        hits = lookupCounter("hit");
+        misses = lookupCounter("miss");
+    }
+
+    private Counter lookupCounter(String result) {
+        return Counter.builder("payment.status.cache")
+                .tag("result", result)
+                .description("Payment status lookups by how they were served")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached status if it can be served without a refresh: the
+     * payment has settled, or it was refreshed within the pending interval.
+     */
+    public CachedStatus getIfFresh(String orderId) {
+        CachedStatus cached = entries.getIfPresent(orderId);
+        if (cached != null && (cached.status().isTerminal()
+                || System.nanoTime() - cached.refreshedAtNanos() < pendingRefreshInterval.toNanos())) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Caches the current state of {@code payments} once the surrounding
+     * transaction commits, or immediately if there is none.
+     */
+    public void putAfterCommit(Collection<PaymentEntity> payments) {
+        List<CachedStatus> statuses = payments.stream().map(CachedStatus::of).toList();
+        afterCommit(() -> statuses.forEach(this::put));
+    }
+
+    public void putAfterCommit(PaymentEntity payment) {
+        putAfterCommit(List.of(payment));
+    }
+
+    /**
+     * Like {@link #putAfterCommit}, but replaces whatever is cached even if it
+     * looks further along. Used once a payment has been reserved again, when
+     * the cached status belongs to the previous attempt.
+     */
+    public void replaceAfterCommit(Collection<PaymentEntity> payments) {
+        List<CachedStatus> statuses = payments.stream().map(CachedStatus::of).toList();
+        afterCommit(() -> statuses.forEach(status -> entries.put(status.orderId(), status)));
+    }
+
+    public void replaceAfterCommit(PaymentEntity payment) {
+        replaceAfterCommit(List.of(payment));
+    }
+
+    /**
+     * Drops the cached status of {@code orderId} once the surrounding
+     * transaction commits, so a payment reserved again is not served the
+     * settled status of its previous attempt.
+     */
+    public void invalidateAfterCommit(String orderId) {
+        afterCommit(() -> entries.invalidate(orderId));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void put(CachedStatus status) {
+        // Never let a slower refresh overwrite a status that has moved further
+        entries.asMap().merge(status.orderId(), status, (current, next) ->
+                current.status().canTransitionTo(next.status()) ? next : current);
+    }
+
+    public record CachedStatus(String orderId, String cfOrderId, BigDecimal amount, PaymentStatus status,
+                               String paymentMethod, String gatewayTransactionId, long refreshedAtNanos) {
+
+        static CachedStatus of(PaymentEntity payment) {
+            return new CachedStatus(payment.getOrderId(), payment.getCfOrderId(), payment.getAmount(),
+                    payment.getStatus(), payment.getPaymentMethod(), payment.getGatewayTransactionId(),
+                    System.nanoTime());
+        }
+    }
+}
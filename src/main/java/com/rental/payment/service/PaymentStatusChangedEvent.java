@@ -0,0 +1,11 @@
+package com.rental.payment.service;
+
+import com.rental.payment.entity.PaymentStatus;
+
+/**
+ * Published when a payment moves to a different status. {@code previous} is
+ * {@code null} for a newly created payment.
+ */
+public record PaymentStatusChangedEvent(Long paymentId, String orderId, PaymentStatus previous,
+                                        PaymentStatus current) {
+}
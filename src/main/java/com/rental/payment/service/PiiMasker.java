@@ -0,0 +1,40 @@
+package com.rental.payment.service;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Masks customer contact details in text that is about to be logged, such as
+ * Cashfree request and error bodies.
+ */
+public final class PiiMasker {
+
+    // JSON string fields that hold customer contact details
+    private static final Pattern CONTACT_FIELD = Pattern.compile(
+            "(\"(?:customer_email|customer_phone|customer_name|email|phone)\"\\s*:\\s*\")([^\"]*)(\")");
+
+    private static final Pattern EMAIL = Pattern.compile("([A-Za-z0-9._%+-])[A-Za-z0-9._%+-]*(@[A-Za-z0-9.-]+)");
+
+    private PiiMasker() {
+    }
+
+    public static String mask(String text) {
+        if (text == null || text.isEmpty()) {
+            return text;
+        }
+        Matcher field = CONTACT_FIELD.matcher(text);
+        StringBuilder masked = new StringBuilder(text.length());
+        while (field.find()) {
+            field.appendReplacement(masked, Matcher.quoteReplacement(
+                    field.group(1) + maskValue(field.group(2)) + field.group(3)));
+        }
+        field.appendTail(masked);
+        // Free-text messages can still quote an address
+        return EMAIL.matcher(masked).replaceAll("$1***$2");
+    }
+
+    private static String maskValue(String value) {
+        // Keep the last two characters so support can still tell values apart
+        return value.length() <= 2 ? "***" : "***" + value.substring(value.length() - 2);
+    }
+}
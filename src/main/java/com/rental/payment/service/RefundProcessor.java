@@ -0,0 +1,137 @@
+package com.rental.payment.service;
+
+import com.rental.payment.dto.CashfreeRefundRequest;
+import com.rental.payment.entity.PaymentEntity;
+import com.rental.payment.entity.RefundEntity;
+import com.rental.payment.entity.RefundStatus;
+import com.rental.payment.repository.PaymentRepository;
+import com.rental.payment.repository.RefundRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Submits queued refunds to Cashfree. Each batch of up to {@code batch-size}
+ * refunds is claimed by this node, submitted with at most
+ * {@code max-concurrency} calls in flight and recorded in one transaction;
+ * full batches are followed by the next one straight away.
+ *
+ * Submissions use the {@link GatewayTrafficClass#REFUND} class, so a large
+ * refund run only uses rate limit headroom that checkout traffic leaves
+ * unused. No thread waits on Cashfree: the scheduler thread only claims a
+ * batch, and the outcome is recorded on {@code paymentTaskExecutor}.
+ */
+@Component
+public class RefundProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefundProcessor.class);
+
+    @Autowired
+    private RefundRepository refundRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private RefundService refundService;
+
+    @Autowired
+    private CashfreeGatewayClient cashfreeGatewayClient;
+
+    @Autowired
+    @Qualifier("paymentTaskExecutor")
+    private Executor paymentTaskExecutor;
+
+    @Value("${payment.refund.enabled:true}")
+    private boolean enabled;
+
+    @Value("${payment.refund.batch-size:100}")
+    private int batchSize;
+
+    @Value("${payment.refund.max-concurrency:8}")
+    private int maxConcurrency;
+
+    @Value("${payment.refund.claim-timeout:5m}")
+    private Duration claimTimeout;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    @Scheduled(fixedDelayString = "${payment.refund.poll-interval:1s}")
+    public void poll() {
+        if (!enabled || !draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refundRepository.releaseStaleClaims(LocalDateTime.now().minus(claimTimeout));
+            drain().whenComplete((ignored, e) -> {
+                draining.set(false);
+                if (e != null) {
+                    logger.error("Error submitting refunds: ", e);
+                }
+            });
+        } catch (RuntimeException e) {
+            draining.set(false);
+            logger.error("Error submitting refunds: ", e);
+        }
+    }
+
+    private CompletableFuture<Void> drain() {
+        return processBatch().thenCompose(submitted -> submitted == batchSize
+                ? drain()
+                : CompletableFuture.completedFuture(null));
+    }
+
+    /**
+     * Claims one batch of due refunds and submits it. Completes with the size of
+     * the page of due refunds once the outcomes are recorded.
+     */
+    public CompletableFuture<Integer> processBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = refundRepository.findAvailableIds(RefundStatus.QUEUED, now, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return CompletableFuture.completedFuture(0);
+        }
+
+        String claimToken = UUID.randomUUID().toString();
+        refundRepository.claim(ids, claimToken, now);
+        List<RefundEntity> refunds = refundRepository.findByClaimTokenOrderByIdAsc(claimToken);
+        if (refunds.isEmpty()) {
+            return CompletableFuture.completedFuture(0);
+        }
+        // Cashfree addresses refunds by our order ID
+        Map<Long, String> orderIds = paymentRepository.findAllById(
+                        refunds.stream().map(RefundEntity::getPaymentId).collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(PaymentEntity::getId, PaymentEntity::getOrderId));
+
+        return AsyncFanOut.map(refunds, maxConcurrency, refund -> cashfreeGatewayClient
+                        .createRefundAsync(orderIds.get(refund.getPaymentId()),
+                                new CashfreeRefundRequest(refund.getAmount(), refund.getRefundId(), refund.getNote()),
+                                GatewayTrafficClass.REFUND)
+                        .handle((result, e) -> new RefundService.Submission(refund.getId(), result, unwrap(e))))
+                .thenApplyAsync(submissions -> {
+                    refundService.recordSubmissions(claimToken, submissions);
+                    logger.info("Submitted {} refunds", submissions.size());
+                    return ids.size();
+                }, paymentTaskExecutor);
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+}
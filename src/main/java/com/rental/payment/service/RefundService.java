@@ -0,0 +1,452 @@
+package com.rental.payment.service;
+
+import com.rental.payment.dto.CashfreeRefund;
+import com.rental.payment.dto.CashfreeWebhookEvent;
+import com.rental.payment.dto.RefundRequest;
+import com.rental.payment.dto.RefundResponse;
+import com.rental.payment.entity.PaymentAuditSource;
+import com.rental.payment.entity.PaymentEntity;
+import com.rental.payment.entity.PaymentStatus;
+import com.rental.payment.entity.RefundEntity;
+import com.rental.payment.entity.RefundStatus;
+import com.rental.payment.exception.GatewayUnavailableException;
+import com.rental.payment.repository.PaymentRepository;
+import com.rental.payment.repository.RefundRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Refunds against settled payments. Refunds are only queued here; the
+ * {@link RefundProcessor} submits them to Cashfree in the background and
+ * refund webhooks settle them, moving the payment to
+ * {@link PaymentStatus#PARTIAL_REFUNDED} or {@link PaymentStatus#REFUNDED}.
+ */
+@Service
+public class RefundService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefundService.class);
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private RefundRepository refundRepository;
+
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
+    @Autowired
+    private PaymentStatusCache paymentStatusCache;
+
+    @Autowired
+    private PaymentAuditStore paymentAuditStore;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${payment.refund.batch-size:100}")
+    private int batchSize;
+
+    @Value("${payment.refund.retry-delay:30s}")
+    private Duration retryDelay;
+
+    @Value("${payment.refund.max-retry-delay:10m}")
+    private Duration maxRetryDelay;
+
+    private Counter queued;
+    private Counter rejected;
+    private Counter retried;
+    private Counter succeeded;
+    private Counter failed;
+
+    @PostConstruct
+    void init() {
+        queued = outcomeCounter("queued");
+        rejected = outcomeCounter("rejected");
+        retried = outcomeCounter("retried");
+        succeeded = outcomeCounter("succeeded");
+        failed = outcomeCounter("failed");
+    }
+
+    private Counter outcomeCounter(String outcome) {
+        return Counter.builder("payment.refunds")
+                .tag("outcome", outcome)
+                .description("Refunds by outcome")
+                .register(meterRegistry);
+    }
+
+    public RefundResponse createRefund(RefundRequest request) {
+        return createRefunds(List.of(request)).get(0);
+    }
+
+    /**
+     * Queues refunds for submission, {@code batch-size} per transaction. Each
+     * chunk loads its payments and their existing refunds with one lookup each
+     * and inserts the new rows as JDBC batches. Resubmitting a refund ID returns
+     * the refund already queued under it. Results are in request order.
+     */
+    public List<RefundResponse> createRefunds(List<RefundRequest> requests) {
+        RefundResponse[] results = new RefundResponse[requests.size()];
+
+        // Later duplicates of a refund ID in the same batch are rejected
+        Map<String, Integer> firstIndex = new HashMap<>();
+        List<RefundRequest> unique = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            RefundRequest request = requests.get(i);
+            if (firstIndex.putIfAbsent(request.getRefundId(), i) == null) {
+                unique.add(request);
+            } else {
+                results[i] = itemFailure(request, "Duplicate refund ID in batch");
+            }
+        }
+
+        for (int from = 0; from < unique.size(); from += batchSize) {
+            List<RefundRequest> chunk = unique.subList(from, Math.min(from + batchSize, unique.size()));
+            for (RefundResponse response : queueRefunds(chunk)) {
+                results[firstIndex.get(response.getRefundId())] = response;
+            }
+        }
+
+        for (RefundResponse result : results) {
+            (result.isSuccess() ? queued : rejected).increment();
+        }
+        return List.of(results);
+    }
+
+    private List<RefundResponse> queueRefunds(List<RefundRequest> requests) {
+        try {
+            return optimisticRetry.execute("refund-create", status -> queueRefundsOnce(requests));
+        } catch (DataIntegrityViolationException | OptimisticLockingFailureException e) {
+            // A concurrent request used one of the refund IDs or payments; isolate it
+            logger.warn("Refund batch conflicted, queueing {} refunds individually", requests.size());
+            List<RefundResponse> responses = new ArrayList<>();
+            for (RefundRequest request : requests) {
+                responses.add(queueRefundIndividually(request));
+            }
+            return responses;
+        }
+    }
+
+    private RefundResponse queueRefundIndividually(RefundRequest request) {
+        try {
+            return optimisticRetry.execute("refund-create", status -> queueRefundsOnce(List.of(request)).get(0));
+        } catch (DataIntegrityViolationException | OptimisticLockingFailureException e) {
+            logger.warn("Refund {} conflicted with a concurrent request", request.getRefundId());
+            return itemFailure(request, "Another request for this payment is in progress");
+        }
+    }
+
+    private List<RefundResponse> queueRefundsOnce(List<RefundRequest> requests) {
+        Map<String, RefundEntity> existing = refundRepository.findAllByRefundIdIn(
+                        requests.stream().map(RefundRequest::getRefundId).toList()).stream()
+                .collect(Collectors.toMap(RefundEntity::getRefundId, Function.identity()));
+        // Bumps each payment's version on commit, so two requests refunding the
+        // same payment cannot both pass the amount check
+        Map<String, PaymentEntity> payments = paymentRepository.lockAllByOrderIdIn(
+                        requests.stream().map(RefundRequest::getOrderId).collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(PaymentEntity::getOrderId, Function.identity()));
+        Map<Long, BigDecimal> committed = committedAmounts(refundRepository.findAllByPaymentIdIn(
+                payments.values().stream().map(PaymentEntity::getId).toList()));
+
+        List<RefundResponse> responses = new ArrayList<>();
+        List<RefundEntity> toSave = new ArrayList<>();
+        for (RefundRequest request : requests) {
+            PaymentEntity payment = payments.get(request.getOrderId());
+            RefundEntity refund = existing.get(request.getRefundId());
+            if (refund != null) {
+                responses.add(payment != null && refund.getPaymentId().equals(payment.getId())
+                        && refund.getAmount().compareTo(request.getAmount()) == 0
+                        ? toResponse(refund, request.getOrderId())
+                        : itemFailure(request, "Refund ID is already used for a different refund"));
+                continue;
+            }
+            if (payment == null) {
+                responses.add(itemFailure(request, "Payment order not found"));
+                continue;
+            }
+            if (!payment.getStatus().isPaid()) {
+                responses.add(itemFailure(request, "Payment has not been completed"));
+                continue;
+            }
+            BigDecimal total = committed.getOrDefault(payment.getId(), BigDecimal.ZERO).add(request.getAmount());
+            if (total.compareTo(payment.getAmount()) > 0) {
+                responses.add(itemFailure(request, "Refund exceeds the refundable amount"));
+                continue;
+            }
+
+            committed.put(payment.getId(), total);
+            refund = new RefundEntity();
+            refund.setRefundId(request.getRefundId());
+            refund.setPaymentId(payment.getId());
+            refund.setAmount(request.getAmount());
+            refund.setNote(request.getNote());
+            toSave.add(refund);
+            responses.add(toResponse(refund, request.getOrderId()));
+        }
+
+        refundRepository.saveAll(toSave);
+        refundRepository.flush();
+        return responses;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<RefundResponse> getRefund(String refundId) {
+        return refundRepository.findByRefundId(refundId).map(refund -> toResponse(refund,
+                paymentRepository.findById(refund.getPaymentId()).map(PaymentEntity::getOrderId).orElse(null)));
+    }
+
+    /**
+     * Records the outcome of the Cashfree calls for refunds claimed under
+     * {@code claimToken}, in one transaction, and releases the claim. Refunds
+     * Cashfree could not be reached for go back on the queue with a growing
+     * delay; they are resubmitted under the same idempotency key.
+     */
+    void recordSubmissions(String claimToken, List<Submission> submissions) {
+        try {
+            optimisticRetry.execute("refund-submit", status -> recordSubmissionsOnce(claimToken, submissions));
+        } catch (RuntimeException e) {
+            // The claim expires and the refunds are resubmitted with the same key
+            logger.error("Error recording {} refund submissions: ", submissions.size(), e);
+        }
+    }
+
+    private Void recordSubmissionsOnce(String claimToken, List<Submission> submissions) {
+        Map<Long, RefundEntity> refunds = refundRepository.findAllById(
+                        submissions.stream().map(Submission::refundId).toList()).stream()
+                .collect(Collectors.toMap(RefundEntity::getId, Function.identity()));
+
+        LocalDateTime now = LocalDateTime.now();
+        Set<Long> settledPayments = new HashSet<>();
+        for (Submission submission : submissions) {
+            RefundEntity refund = refunds.get(submission.refundId());
+            if (refund == null || !claimToken.equals(refund.getClaimToken())) {
+                // Claim expired and another node took the refund over
+                continue;
+            }
+            refund.setClaimToken(null);
+            refund.setClaimedAt(null);
+
+            if (submission.error() != null) {
+                if (!(submission.error() instanceof GatewayUnavailableException)) {
+                    logger.error("Error submitting refund {}: ", refund.getRefundId(), submission.error());
+                }
+                refund.setAttempts(refund.getAttempts() + 1);
+                refund.setFailureReason(truncate(submission.error().getMessage()));
+                Duration delay = retryDelay.multipliedBy(refund.getAttempts());
+                refund.setAvailableAt(now.plus(delay.compareTo(maxRetryDelay) > 0 ? maxRetryDelay : delay));
+                retried.increment();
+                continue;
+            }
+
+            CashfreeRefund result = submission.result();
+            if (result == null) {
+                changeStatus(refund, RefundStatus.FAILED, "Refund rejected by gateway");
+                continue;
+            }
+            refund.setCfRefundId(result.cfRefundId());
+            if (changeStatus(refund, mapCashfreeStatus(result.refundStatus()), result.statusDescription())
+                    && refund.getStatus() == RefundStatus.SUCCESS) {
+                settledPayments.add(refund.getPaymentId());
+            }
+        }
+
+        List<PaymentEntity> payments = updatePaymentStatuses(settledPayments);
+        refundRepository.saveAll(refunds.values());
+        paymentRepository.saveAll(payments);
+        paymentStatusCache.putAfterCommit(payments);
+        return null;
+    }
+
+    /**
+     * Loads the refunds named by a batch of refund webhooks with one query. No
+     * rows are locked: a refund changed concurrently fails the batch's commit on
+     * its version, and the caller reruns the batch. The other refunds of the
+     * affected payments are only read in {@link #saveWebhookBatch}, after this
+     * batch's changes are flushed.
+     */
+    RefundWebhookBatch loadWebhookBatch(Collection<String> refundIds) {
+        if (refundIds.isEmpty()) {
+            return new RefundWebhookBatch(Map.of(), new HashSet<>());
+        }
+        Map<String, RefundEntity> refunds = refundRepository.findAllByRefundIdIn(refundIds).stream()
+                .collect(Collectors.toMap(RefundEntity::getRefundId, Function.identity()));
+        return new RefundWebhookBatch(refunds, new HashSet<>());
+    }
+
+    /**
+     * Applies one refund webhook. Returns {@code false} if the refund is not
+     * known here yet, e.g. because its row has not committed.
+     */
+    boolean applyWebhook(RefundWebhookBatch batch, CashfreeWebhookEvent event, byte[] rawPayload) {
+        RefundEntity refund = batch.refunds().get(event.refundId());
+        if (refund == null) {
+            return false;
+        }
+
+        paymentAuditStore.append(refund.getPaymentId(), PaymentAuditSource.REFUND_WEBHOOK, rawPayload);
+        if (event.cfRefundId() != null) {
+            refund.setCfRefundId(event.cfRefundId());
+        }
+        RefundStatus status = mapCashfreeStatus(event.refundStatus());
+        if (!refund.getStatus().canTransitionTo(status)) {
+            logger.info("Ignoring out-of-order refund status {} for refund {} in status {}",
+                    status, refund.getRefundId(), refund.getStatus());
+            return true;
+        }
+        if (changeStatus(refund, status, event.refundMessage()) && status == RefundStatus.SUCCESS) {
+            batch.settledPayments().add(refund.getPaymentId());
+        }
+        return true;
+    }
+
+    /**
+     * Writes back the refunds of {@code batch} and returns the payments whose
+     * status changed, for the caller to save with the rest of its batch.
+     */
+    List<PaymentEntity> saveWebhookBatch(RefundWebhookBatch batch) {
+        refundRepository.saveAll(batch.refunds().values());
+        return updatePaymentStatuses(batch.settledPayments());
+    }
+
+    private List<PaymentEntity> updatePaymentStatuses(Set<Long> paymentIds) {
+        if (paymentIds.isEmpty()) {
+            return List.of();
+        }
+        // Flushes pending refund changes first, so the totals include this batch
+        Map<Long, List<RefundEntity>> refundsByPayment = refundRepository.findAllByPaymentIdIn(paymentIds).stream()
+                .collect(Collectors.groupingBy(RefundEntity::getPaymentId));
+        List<PaymentEntity> payments = paymentRepository.findAllById(paymentIds);
+        for (PaymentEntity payment : payments) {
+            BigDecimal refunded = refundsByPayment.getOrDefault(payment.getId(), List.of()).stream()
+                    .filter(refund -> refund.getStatus() == RefundStatus.SUCCESS)
+                    .map(RefundEntity::getAmount)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            PaymentStatus status = refunded.compareTo(payment.getAmount()) >= 0
+                    ? PaymentStatus.REFUNDED
+                    : PaymentStatus.PARTIAL_REFUNDED;
+            PaymentStatus previous = payment.getStatus();
+            if (previous != status && previous.canTransitionTo(status)) {
+                payment.setStatus(status);
+                eventPublisher.publishEvent(new PaymentStatusChangedEvent(payment.getId(), payment.getOrderId(),
+                        previous, status));
+            }
+        }
+        return payments;
+    }
+
+    private boolean changeStatus(RefundEntity refund, RefundStatus status, String reason) {
+        if (!refund.getStatus().canTransitionTo(status) || refund.getStatus() == status) {
+            return false;
+        }
+        refund.setStatus(status);
+        if (status == RefundStatus.FAILED) {
+            refund.setFailureReason(truncate(reason));
+            failed.increment();
+        } else if (status == RefundStatus.SUCCESS) {
+            refund.setFailureReason(null);
+            succeeded.increment();
+        }
+        return true;
+    }
+
+    private static Map<Long, BigDecimal> committedAmounts(List<RefundEntity> refunds) {
+        Map<Long, BigDecimal> committed = new HashMap<>();
+        for (RefundEntity refund : refunds) {
+            if (refund.getStatus().isActive()) {
+                committed.merge(refund.getPaymentId(), refund.getAmount(), BigDecimal::add);
+            }
+        }
+        return committed;
+    }
+
+    private static RefundStatus mapCashfreeStatus(String cashfreeStatus) {
+        if (cashfreeStatus == null) {
+            return RefundStatus.PENDING;
+        }
+        switch (cashfreeStatus.toUpperCase()) {
+            case "SUCCESS":
+                return RefundStatus.SUCCESS;
+            case "CANCELLED":
+            case "FAILED":
+                return RefundStatus.FAILED;
+            case "PENDING":
+            case "ONHOLD":
+            default:
+                return RefundStatus.PENDING;
+        }
+    }
+
+    private static RefundResponse toResponse(RefundEntity refund, String orderId) {
+        RefundResponse response = new RefundResponse();
+        response.setSuccess(refund.getStatus().isActive());
+        response.setMessage(getStatusMessage(refund.getStatus()));
+        response.setRefundId(refund.getRefundId());
+        response.setOrderId(orderId);
+        response.setCfRefundId(refund.getCfRefundId());
+        response.setAmount(refund.getAmount());
+        response.setStatus(refund.getStatus());
+        response.setFailureReason(refund.getFailureReason());
+        return response;
+    }
+
+    private static RefundResponse itemFailure(RefundRequest request, String message) {
+        RefundResponse response = new RefundResponse(false, message);
+        response.setRefundId(request.getRefundId());
+        response.setOrderId(request.getOrderId());
+        response.setAmount(request.getAmount());
+        return response;
+    }
+
+    private static String getStatusMessage(RefundStatus status) {
+        switch (status) {
+            case PENDING:
+                return "Refund is being processed";
+            case SUCCESS:
+                return "Refund completed successfully";
+            case FAILED:
+                return "Refund failed";
+            case QUEUED:
+            default:
+                return "Refund queued";
+        }
+    }
+
+    private static String truncate(String reason) {
+        return reason != null && reason.length() > 255 ? reason.substring(0, 255) : reason;
+    }
+
+    /** Outcome of one refund's Cashfree call: the created refund, or the error. */
+    record Submission(Long refundId, CashfreeRefund result, Throwable error) {
+    }
+
+    /** Refunds touched by one webhook batch, and the payments they settled. */
+    record RefundWebhookBatch(Map<String, RefundEntity> refunds, Set<Long> settledPayments) {
+    }
+}
@@ -0,0 +1,139 @@
+package com.rental.payment.service;
+
+import com.rental.payment.exception.OrderBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls for the same operation and order into one: the
+ * first caller runs it and everyone who arrives while it is in flight gets the
+ * same future. In-flight calls are tracked in lock stripes so that unrelated
+ * orders do not contend.
+ *
+ * With {@code payment.single-flight.advisory-lock.enabled} the running call
+ * also holds a MySQL advisory lock, so the same order is not processed on two
+ * nodes at once. This costs one pooled connection per in-flight order.
+ */
+@Component
+public class SingleFlight {
+
+    private static final Logger logger = LoggerFactory.getLogger(SingleFlight.class);
+
+    @Autowired
+    private DatabaseAdvisoryLock databaseAdvisoryLock;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${payment.single-flight.stripes:64}")
+    private int stripeCount;
+
+    @Value("${payment.single-flight.advisory-lock.enabled:false}")
+    private boolean advisoryLockEnabled;
+
+    @Value("${payment.single-flight.advisory-lock.timeout:10s}")
+    private Duration advisoryLockTimeout;
+
+    private Stripe[] stripes;
+
+    @PostConstruct
+    void init() {
+        // Power of two so the stripe index is a mask
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Runs {@code call} for {@code orderId} unless the same operation is already
+     * in flight for it, in which case the caller joins that call's result.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> execute(String operation, String orderId, Supplier<CompletableFuture<T>> call) {
+        String key = operation + ":" + orderId;
+        Stripe stripe = stripeFor(key);
+        CompletableFuture<T> pending = new CompletableFuture<>();
+
+        stripe.lock.lock();
+        try {
+            CompletableFuture<?> existing = stripe.inFlight.putIfAbsent(key, pending);
+            if (existing != null) {
+                meterRegistry.counter("payment.single-flight", "operation", operation, "role", "joined").increment();
+                return (CompletableFuture<T>) existing;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        meterRegistry.counter("payment.single-flight", "operation", operation, "role", "leader").increment();
+
+        CompletableFuture<T> result;
+        try {
+            result = advisoryLockEnabled ? callWithAdvisoryLock(key, orderId, call) : call.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+
+        result.whenComplete((value, error) -> {
+            // Leave the table before completing, so callers that see the result
+            // and retry start a fresh call
+            stripe.lock.lock();
+            try {
+                stripe.inFlight.remove(key, pending);
+            } finally {
+                stripe.lock.unlock();
+            }
+            if (error != null) {
+                pending.completeExceptionally(error);
+            } else {
+                pending.complete(value);
+            }
+        });
+        return pending;
+    }
+
+    private <T> CompletableFuture<T> callWithAdvisoryLock(String key, String orderId,
+            Supplier<CompletableFuture<T>> call) {
+        DatabaseAdvisoryLock.Lease lease;
+        try {
+            lease = databaseAdvisoryLock.acquire(key, advisoryLockTimeout);
+        } catch (SQLException e) {
+            logger.error("Error acquiring advisory lock for {}: ", key, e);
+            return CompletableFuture.failedFuture(e);
+        }
+        if (lease == null) {
+            return CompletableFuture.failedFuture(new OrderBusyException(orderId));
+        }
+
+        try {
+            return call.get().whenComplete((value, error) -> lease.close());
+        } catch (RuntimeException e) {
+            lease.close();
+            throw e;
+        }
+    }
+
+    private Stripe stripeFor(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, CompletableFuture<?>> inFlight = new HashMap<>();
+    }
+}
@@ -0,0 +1,158 @@
+package com.rental.payment.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rental.payment.dto.CashfreeWebhookEvent;
+import com.rental.payment.entity.ProcessedWebhookEventEntity;
+import com.rental.payment.repository.ProcessedWebhookEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Two-level deduplication of Cashfree webhook redeliveries, keyed by
+ * {@code cf_payment_id} and event type. A bounded in-memory near-cache drops
+ * duplicates at ingestion before any database work; the persisted
+ * {@code processed_webhook_events} table catches the ones that reach the worker
+ * (after a restart, or on another node).
+ */
+@Component
+public class WebhookDeduplicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookDeduplicator.class);
+
+    @Autowired
+    private ProcessedWebhookEventRepository processedWebhookEventRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${payment.webhook.dedup.cache-size:100000}")
+    private long cacheSize;
+
+    @Value("${payment.webhook.dedup.cache-ttl:6h}")
+    private Duration cacheTtl;
+
+    @Value("${payment.webhook.dedup.retention:30d}")
+    private Duration retention;
+
+    private Cache<String, Boolean> seen;
+
+    private Counter memoryHits;
+    private Counter memoryMisses;
+    private Counter storeHits;
+    private Counter storeMisses;
+
+    @PostConstruct
+    void init() {
+        seen = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+        memoryHits = lookupCounter("memory", "hit");
+        memoryMisses = lookupCounter("memory", "miss");
+        storeHits = lookupCounter("store", "hit");
+        storeMisses = lookupCounter("store", "miss");
+    }
+
+    private Counter lookupCounter(String layer, String result) {
+        return Counter.builder("payment.webhook.dedup")
+                .tag("layer", layer)
+                .tag("result", result)
+                .description("Webhook deduplication lookups")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the dedup key for a webhook, or {@code null} if it carries no
+     * payment or refund ID and therefore cannot be deduplicated. Cashfree sends
+     * every refund status under the same event type, so refund keys include it.
+     */
+    public static String eventKey(CashfreeWebhookEvent event) {
+        if (event.isRefund()) {
+            return isEmpty(event.cfRefundId()) ? null
+                    : event.cfRefundId() + ":" + nullToEmpty(event.type()) + ":" + nullToEmpty(event.refundStatus());
+        }
+        if (isEmpty(event.cfPaymentId())) {
+            return null;
+        }
+        return event.cfPaymentId() + ":" + nullToEmpty(event.type());
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    /**
+     * Atomically checks the near-cache and marks the key as seen. Returns
+     * {@code true} if this is a redelivery that can be acknowledged and dropped.
+     */
+    public boolean checkAndMark(String eventKey) {
+        if (eventKey == null) {
+            return false;
+        }
+        if (seen.asMap().putIfAbsent(eventKey, Boolean.TRUE) != null) {
+            memoryHits.increment();
+            return true;
+        }
+        memoryMisses.increment();
+        return false;
+    }
+
+    /**
+     * Forgets a key marked by {@link #checkAndMark(String)} whose event could not
+     * be queued, so that Cashfree's redelivery is accepted.
+     */
+    public void forget(String eventKey) {
+        if (eventKey != null) {
+            seen.invalidate(eventKey);
+        }
+    }
+
+    /**
+     * Returns which of the given keys have already been applied, with one query.
+     */
+    public Set<String> findProcessed(Collection<String> eventKeys) {
+        if (eventKeys.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> processed = new HashSet<>(processedWebhookEventRepository.findExistingKeys(eventKeys));
+        storeHits.increment(processed.size());
+        storeMisses.increment(eventKeys.size() - processed.size());
+        return processed;
+    }
+
+    /**
+     * Persists the keys of newly applied events; joins the caller's transaction.
+     */
+    public void markProcessed(Collection<String> eventKeys) {
+        List<ProcessedWebhookEventEntity> entities = eventKeys.stream()
+                .map(ProcessedWebhookEventEntity::new)
+                .toList();
+        processedWebhookEventRepository.saveAll(entities);
+        eventKeys.forEach(key -> seen.put(key, Boolean.TRUE));
+    }
+
+    @Scheduled(cron = "${payment.webhook.dedup.purge-cron:0 30 3 * * *}")
+    public void purgeExpired() {
+        int purged = processedWebhookEventRepository.deleteProcessedBefore(LocalDateTime.now().minus(retention));
+        logger.info("Purged {} processed webhook keys", purged);
+    }
+}
@@ -0,0 +1,149 @@
+package com.rental.payment.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.rental.payment.dto.CashfreeWebhookEvent;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Pulls the fields we need out of a Cashfree webhook with Jackson's streaming
+ * parser, reading straight from the raw body bytes. Everything else in the
+ * payload is skipped without being materialised.
+ */
+@Component
+public class WebhookPayloadParser {
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public CashfreeWebhookEvent parse(byte[] payload) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Webhook payload is not a JSON object");
+            }
+
+            Fields fields = new Fields();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("type".equals(name)) {
+                    fields.type = parser.getValueAsString();
+                } else if ("data".equals(name) && value == JsonToken.START_OBJECT) {
+                    parseData(parser, fields);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            return new CashfreeWebhookEvent(fields.type, fields.cfOrderId, fields.cfPaymentId,
+                    fields.paymentStatus, fields.paymentMethod, fields.paymentMessage,
+                    fields.refundId, fields.cfRefundId, fields.refundStatus, fields.refundMessage);
+        }
+    }
+
+    private void parseData(JsonParser parser, Fields fields) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("order".equals(name) && value == JsonToken.START_OBJECT) {
+                parseOrder(parser, fields);
+            } else if ("payment".equals(name) && value == JsonToken.START_OBJECT) {
+                parsePayment(parser, fields);
+            } else if ("refund".equals(name) && value == JsonToken.START_OBJECT) {
+                parseRefund(parser, fields);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void parseOrder(JsonParser parser, Fields fields) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            if ("cf_order_id".equals(name)) {
+                fields.cfOrderId = parser.getValueAsString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void parsePayment(JsonParser parser, Fields fields) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (name) {
+                case "cf_payment_id":
+                    fields.cfPaymentId = parser.getValueAsString();
+                    break;
+                case "payment_status":
+                    fields.paymentStatus = parser.getValueAsString();
+                    break;
+                case "payment_message":
+                    fields.paymentMessage = parser.getValueAsString();
+                    break;
+                case "payment_method":
+                    fields.paymentMethod = value == JsonToken.START_OBJECT
+                            ? firstFieldName(parser)
+                            : parser.getValueAsString();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    private void parseRefund(JsonParser parser, Fields fields) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "refund_id":
+                    fields.refundId = parser.getValueAsString();
+                    break;
+                case "cf_refund_id":
+                    fields.cfRefundId = parser.getValueAsString();
+                    break;
+                case "refund_status":
+                    fields.refundStatus = parser.getValueAsString();
+                    break;
+                case "status_description":
+                    fields.refundMessage = parser.getValueAsString();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    // Cashfree sends payment_method as an object keyed by method, e.g. {"upi": {...}}
+    private String firstFieldName(JsonParser parser) throws IOException {
+        String method = null;
+        if (parser.nextToken() == JsonToken.FIELD_NAME) {
+            method = parser.currentName();
+            parser.nextToken();
+            parser.skipChildren();
+            while (parser.nextToken() != JsonToken.END_OBJECT) {
+                parser.skipChildren();
+            }
+        }
+        return method;
+    }
+
+    private static final class Fields {
+        private String type;
+        private String cfOrderId;
+        private String cfPaymentId;
+        private String paymentStatus;
+        private String paymentMethod;
+        private String paymentMessage;
+        private String refundId;
+        private String cfRefundId;
+        private String refundStatus;
+        private String refundMessage;
+    }
+}
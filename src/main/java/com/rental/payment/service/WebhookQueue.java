@@ -0,0 +1,181 @@
+package com.rental.payment.service;
+
+import com.rental.payment.entity.WebhookEventEntity;
+import com.rental.payment.entity.WebhookEventStatus;
+import com.rental.payment.exception.WebhookQueueFullException;
+import com.rental.payment.repository.WebhookEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable, table-backed queue between the webhook endpoint and the batch worker.
+ * Enqueueing is a single insert so Cashfree gets its 200 quickly; the depth is
+ * bounded and callers are rejected with {@link WebhookQueueFullException} beyond it.
+ * Processed and failed events are kept for {@code retention} and then purged.
+ */
+@Component
+public class WebhookQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookQueue.class);
+
+    private static final Set<WebhookEventStatus> FINISHED =
+            EnumSet.of(WebhookEventStatus.PROCESSED, WebhookEventStatus.FAILED);
+
+    @Autowired
+    private WebhookEventRepository webhookEventRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${payment.webhook.queue.max-depth:50000}")
+    private long maxDepth;
+
+    @Value("${payment.webhook.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${payment.webhook.retry-delay:5s}")
+    private Duration retryDelay;
+
+    @Value("${payment.webhook.queue.retention:7d}")
+    private Duration retention;
+
+    @Value("${payment.webhook.queue.purge-batch-size:1000}")
+    private int purgeBatchSize;
+
+    // Approximate between refreshes; refreshStats() resets it from the table
+    private final AtomicLong depth = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    private Counter processedCounter;
+    private Counter retriedCounter;
+    private Counter failedCounter;
+    private Counter rejectedCounter;
+    private Timer queueLatency;
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("payment.webhook.queue.depth", depth, AtomicLong::get)
+                .description("Webhook events waiting to be applied")
+                .register(meterRegistry);
+        Gauge.builder("payment.webhook.queue.lag", lagMillis, value -> value.get() / 1000.0)
+                .baseUnit("seconds")
+                .description("Age of the oldest queued webhook event")
+                .register(meterRegistry);
+        processedCounter = outcomeCounter("processed");
+        retriedCounter = outcomeCounter("retried");
+        failedCounter = outcomeCounter("failed");
+        rejectedCounter = outcomeCounter("rejected");
+        queueLatency = Timer.builder("payment.webhook.queue.latency")
+                .description("Time from webhook receipt to being applied")
+                .register(meterRegistry);
+
+        refreshStats();
+    }
+
+    private Counter outcomeCounter(String outcome) {
+        return Counter.builder("payment.webhook.events")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues a verified webhook. Payment webhooks are keyed by {@code cfOrderId},
+     * refund webhooks by {@code refundId}; the other is {@code null}.
+     */
+    public void enqueue(String cfOrderId, String refundId, String eventKey, byte[] payload) {
+        long current = depth.get();
+        if (current >= maxDepth) {
+            rejectedCounter.increment();
+            throw new WebhookQueueFullException(current);
+        }
+
+        WebhookEventEntity event = new WebhookEventEntity();
+        event.setCfOrderId(cfOrderId);
+        event.setRefundId(refundId);
+        event.setEventKey(eventKey);
+        event.setPayload(payload);
+        webhookEventRepository.save(event);
+        depth.incrementAndGet();
+    }
+
+    /**
+     * Puts an event back on the queue with a linear backoff, or marks it failed
+     * once it has used up its attempts. The caller is responsible for saving it.
+     */
+    public void scheduleRetry(WebhookEventEntity event, String reason) {
+        event.setAttempts(event.getAttempts() + 1);
+        event.setLastError(reason != null && reason.length() > 255 ? reason.substring(0, 255) : reason);
+        event.setClaimToken(null);
+        if (event.getAttempts() >= maxAttempts) {
+            event.setStatus(WebhookEventStatus.FAILED);
+            event.setProcessedAt(LocalDateTime.now());
+        } else {
+            event.setStatus(WebhookEventStatus.QUEUED);
+            event.setAvailableAt(LocalDateTime.now().plus(retryDelay.multipliedBy(event.getAttempts())));
+        }
+    }
+
+    public void recordOutcomes(List<WebhookEventEntity> events) {
+        LocalDateTime now = LocalDateTime.now();
+        for (WebhookEventEntity event : events) {
+            switch (event.getStatus()) {
+                case PROCESSED:
+                    processedCounter.increment();
+                    queueLatency.record(Duration.between(event.getReceivedAt(), now));
+                    break;
+                case FAILED:
+                    failedCounter.increment();
+                    break;
+                default:
+                    retriedCounter.increment();
+            }
+        }
+    }
+
+    public void refreshStats() {
+        depth.set(webhookEventRepository.countByStatusIn(
+                EnumSet.of(WebhookEventStatus.QUEUED, WebhookEventStatus.PROCESSING)));
+        LocalDateTime oldest = webhookEventRepository.findOldestReceivedAt(WebhookEventStatus.QUEUED);
+        lagMillis.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).toMillis()));
+    }
+
+    /**
+     * Deletes processed and failed events older than {@code retention}, one
+     * batch of {@code purge-batch-size} rows per transaction so the purge never
+     * holds locks on a large range of the queue.
+     */
+    @Scheduled(cron = "${payment.webhook.queue.purge-cron:0 45 3 * * *}")
+    public void purgeFinished() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        int purged = 0;
+        List<Long> ids;
+        do {
+            ids = webhookEventRepository.findFinishedIds(FINISHED, cutoff, PageRequest.of(0, purgeBatchSize));
+            if (!ids.isEmpty()) {
+                purged += webhookEventRepository.deleteFinished(ids, FINISHED);
+            }
+        } while (ids.size() == purgeBatchSize);
+        logger.info("Purged {} finished webhook events", purged);
+    }
+
+    public long getDepth() {
+        return depth.get();
+    }
+}
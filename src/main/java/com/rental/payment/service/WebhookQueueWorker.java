@@ -0,0 +1,120 @@
+package com.rental.payment.service;
+
+import com.rental.payment.entity.WebhookEventEntity;
+import com.rental.payment.entity.WebhookEventStatus;
+import com.rental.payment.repository.WebhookEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Drains the webhook queue: claims up to {@code batch-size * workers} events,
+ * splits them so that every event for one order lands in the same partition, and
+ * applies the partitions in parallel on {@code webhookWorkerExecutor}.
+ */
+@Component
+public class WebhookQueueWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookQueueWorker.class);
+
+    @Autowired
+    private WebhookEventRepository webhookEventRepository;
+
+    @Autowired
+    private WebhookQueue webhookQueue;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    @Qualifier("webhookWorkerExecutor")
+    private Executor webhookWorkerExecutor;
+
+    @Value("${payment.webhook.batch-size:100}")
+    private int batchSize;
+
+    @Value("${payment.webhook.workers:4}")
+    private int workers;
+
+    @Value("${payment.webhook.claim-timeout:5m}")
+    private Duration claimTimeout;
+
+    @Scheduled(fixedDelayString = "${payment.webhook.poll-interval-ms:200}")
+    public void drain() {
+        try {
+            webhookEventRepository.releaseStaleClaims(LocalDateTime.now().minus(claimTimeout));
+
+            int claimed;
+            do {
+                claimed = drainOnce();
+            } while (claimed == batchSize * workers);
+
+        } catch (Exception e) {
+            logger.error("Error draining webhook queue: ", e);
+        } finally {
+            webhookQueue.refreshStats();
+        }
+    }
+
+    private int drainOnce() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = webhookEventRepository.findAvailableIds(
+                WebhookEventStatus.QUEUED, now, PageRequest.of(0, batchSize * workers));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        String claimToken = UUID.randomUUID().toString();
+        webhookEventRepository.claim(ids, claimToken, now);
+        List<WebhookEventEntity> events = webhookEventRepository.findByClaimTokenOrderByIdAsc(claimToken);
+
+        // Keep all events of one order or refund in the same partition so they apply in order
+        List<List<Long>> partitions = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (WebhookEventEntity event : events) {
+            String key = event.getRefundId() != null ? event.getRefundId() : event.getCfOrderId();
+            int partition = Math.floorMod(Objects.hashCode(key), workers);
+            partitions.get(partition).add(event.getId());
+        }
+
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        for (List<Long> partition : partitions) {
+            if (!partition.isEmpty()) {
+                running.add(CompletableFuture.runAsync(() -> applyPartition(partition), webhookWorkerExecutor));
+            }
+        }
+        CompletableFuture.allOf(running.toArray(new CompletableFuture[0])).join();
+
+        return ids.size();
+    }
+
+    private void applyPartition(List<Long> eventIds) {
+        for (int from = 0; from < eventIds.size(); from += batchSize) {
+            List<Long> batch = eventIds.subList(from, Math.min(from + batchSize, eventIds.size()));
+            try {
+                webhookQueue.recordOutcomes(paymentService.applyWebhookEvents(batch));
+            } catch (Exception e) {
+                logger.error("Error applying webhook batch, scheduling retry: ", e);
+                List<WebhookEventEntity> events = webhookEventRepository.findAllById(batch);
+                events.forEach(event -> webhookQueue.scheduleRetry(event, "Batch failed: " + e.getMessage()));
+                webhookQueue.recordOutcomes(webhookEventRepository.saveAll(events));
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.rental.payment.service;
+
+import com.rental.payment.config.CashfreeConfig;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Verifies Cashfree webhook signatures. The HMAC key is prepared once and each
+ * thread keeps its own initialised {@link Mac}, so verification does no
+ * provider lookup or key setup per request.
+ *
+ * When Cashfree sends {@code x-webhook-timestamp}, the signature covers the
+ * timestamp followed by the raw body, and the timestamp must fall within the
+ * replay window. Webhooks without a timestamp are checked against the body
+ * alone unless {@code cashfree.webhook.require-timestamp} is set.
+ */
+@Component
+public class WebhookSignatureVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookSignatureVerifier.class);
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    @Autowired
+    private CashfreeConfig cashfreeConfig;
+
+    @Autowired
+    private PaymentMetrics paymentMetrics;
+
+    @Value("${cashfree.webhook.replay-window:5m}")
+    private Duration replayWindow;
+
+    @Value("${cashfree.webhook.require-timestamp:false}")
+    private boolean requireTimestamp;
+
+    private SecretKeySpec secretKey;
+
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    @PostConstruct
+    void init() {
+        secretKey = new SecretKeySpec(
+                cashfreeConfig.getWebhookSecret().getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        // Fail at startup rather than on the first webhook if the key is unusable
+        newMac();
+    }
+
+    /**
+     * Returns {@code true} if {@code signature} is the Base64 HMAC-SHA256 of the
+     * payload (prefixed with {@code timestamp} when present) and the timestamp
+     * is within the replay window.
+     */
+    public boolean verify(byte[] payload, String timestamp, String signature) {
+        if (signature == null || signature.isEmpty()) {
+            logger.warn("Webhook has no signature");
+            paymentMetrics.signatureRejected("missing");
+            return false;
+        }
+
+        byte[] expected;
+        try {
+            expected = Base64.getDecoder().decode(signature);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Webhook signature is not valid Base64");
+            paymentMetrics.signatureRejected("malformed");
+            return false;
+        }
+
+        byte[] timestampBytes = null;
+        if (timestamp != null && !timestamp.isEmpty()) {
+            if (!withinReplayWindow(timestamp)) {
+                paymentMetrics.signatureRejected("timestamp");
+                return false;
+            }
+            timestampBytes = timestamp.getBytes(StandardCharsets.UTF_8);
+        } else if (requireTimestamp) {
+            logger.warn("Webhook has no timestamp");
+            paymentMetrics.signatureRejected("timestamp");
+            return false;
+        }
+
+        Mac mac = macs.get();
+        if (timestampBytes != null) {
+            mac.update(timestampBytes);
+        }
+        byte[] actual = mac.doFinal(payload);
+
+        if (!MessageDigest.isEqual(expected, actual)) {
+            paymentMetrics.signatureRejected("mismatch");
+            return false;
+        }
+        return true;
+    }
+
+    private boolean withinReplayWindow(String timestamp) {
+        long sentAtMillis;
+        try {
+            sentAtMillis = Long.parseLong(timestamp.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Webhook timestamp is not numeric: {}", timestamp);
+            return false;
+        }
+
+        long skewMillis = Math.abs(System.currentTimeMillis() - sentAtMillis);
+        if (skewMillis > replayWindow.toMillis()) {
+            logger.warn("Webhook timestamp {} is outside the replay window of {}", timestamp, replayWindow);
+            return false;
+        }
+        return true;
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(secretKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to initialise webhook HMAC", e);
+        }
+    }
+}
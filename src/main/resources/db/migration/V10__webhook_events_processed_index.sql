@@ -0,0 +1,2 @@
+-- The retention purge walks finished events by (status, processed_at)
+CREATE INDEX idx_webhook_events_status_processed ON webhook_events (status, processed_at);
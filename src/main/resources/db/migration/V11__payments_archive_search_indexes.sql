@@ -0,0 +1,4 @@
+-- Payment listings and exports also read the archive, filtered the same way
+-- as the hot table, so it gets the same listing indexes
+CREATE INDEX idx_payments_archive_status_created ON payments_archive (status, created_at);
+CREATE INDEX idx_payments_archive_customer_created ON payments_archive (customer_email, created_at);
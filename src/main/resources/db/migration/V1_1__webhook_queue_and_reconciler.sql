@@ -0,0 +1,41 @@
+-- Schema added since the baseline for the durable webhook queue, webhook
+-- deduplication and the reconciler. Runs on baselined databases too.
+
+-- The baseline status column is a MySQL ENUM without INITIATED. Appending a
+-- member at the end of the list is a metadata-only change on MySQL, whereas
+-- changing the column type would copy the whole table under a lock. New
+-- statuses must likewise be appended, never inserted or reordered.
+ALTER TABLE payments MODIFY status
+    ENUM('PENDING', 'SUCCESS', 'FAILED', 'CANCELLED', 'PARTIAL_REFUNDED', 'REFUNDED', 'INITIATED') NOT NULL;
+
+ALTER TABLE payments ADD COLUMN reconcile_claim_token VARCHAR(255);
+ALTER TABLE payments ADD COLUMN reconcile_lease_until DATETIME(6);
+
+CREATE TABLE webhook_events (
+    id           BIGINT       NOT NULL AUTO_INCREMENT,
+    cf_order_id  VARCHAR(255),
+    event_key    VARCHAR(255),
+    payload      LONGBLOB     NOT NULL,
+    status       VARCHAR(32)  NOT NULL,
+    attempts     INT          NOT NULL,
+    claim_token  VARCHAR(255),
+    claimed_at   DATETIME(6),
+    received_at  DATETIME(6)  NOT NULL,
+    available_at DATETIME(6)  NOT NULL,
+    processed_at DATETIME(6),
+    last_error   VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_webhook_events_status_available ON webhook_events (status, available_at);
+CREATE INDEX idx_webhook_events_claim_token ON webhook_events (claim_token);
+
+CREATE TABLE processed_webhook_events (
+    id           BIGINT       NOT NULL AUTO_INCREMENT,
+    event_key    VARCHAR(255) NOT NULL,
+    processed_at DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_processed_webhook_events_event_key UNIQUE (event_key)
+);
+
+CREATE INDEX idx_processed_webhook_events_processed_at ON processed_webhook_events (processed_at);
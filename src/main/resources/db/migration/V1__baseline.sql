@@ -0,0 +1,22 @@
+-- The payments table as Hibernate created it under ddl-auto: update before
+-- migrations existed. Existing databases are baselined at this version and
+-- skip it, so it must not differ from what they already have.
+
+CREATE TABLE payments (
+    id                     BIGINT         NOT NULL AUTO_INCREMENT,
+    order_id               VARCHAR(255)   NOT NULL,
+    cf_order_id            VARCHAR(255),
+    amount                 DECIMAL(38, 2) NOT NULL,
+    currency               VARCHAR(255)   NOT NULL,
+    customer_email         VARCHAR(255)   NOT NULL,
+    customer_phone         VARCHAR(255),
+    status                 ENUM('PENDING', 'SUCCESS', 'FAILED', 'CANCELLED', 'PARTIAL_REFUNDED', 'REFUNDED') NOT NULL,
+    payment_method         VARCHAR(255),
+    gateway_transaction_id VARCHAR(255),
+    failure_reason         VARCHAR(255),
+    raw_response           TEXT,
+    created_at             DATETIME(6)    NOT NULL,
+    updated_at             DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_payments_order_id UNIQUE (order_id)
+);
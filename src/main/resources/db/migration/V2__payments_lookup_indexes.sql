@@ -0,0 +1,12 @@
+-- Webhooks look payments up by cf_order_id, gateway callbacks and support
+-- tooling by gateway_transaction_id.
+CREATE INDEX idx_payments_cf_order_id ON payments (cf_order_id);
+CREATE INDEX idx_payments_gateway_transaction_id ON payments (gateway_transaction_id);
+
+-- Status and per-customer listings, newest or oldest first.
+CREATE INDEX idx_payments_status_created ON payments (status, created_at);
+CREATE INDEX idx_payments_customer_created ON payments (customer_email, created_at);
+
+-- Reconciler: stale rows per status, then the rows leased to one sweep.
+CREATE INDEX idx_payments_status_updated ON payments (status, updated_at);
+CREATE INDEX idx_payments_reconcile_claim_token ON payments (reconcile_claim_token);
@@ -0,0 +1,22 @@
+-- Raw gateway and webhook payloads move out of the payments row into an
+-- append-only, compressed history table.
+CREATE TABLE payment_audit (
+    id           BIGINT      NOT NULL AUTO_INCREMENT,
+    payment_id   BIGINT      NOT NULL,
+    source       VARCHAR(32) NOT NULL,
+    compression  VARCHAR(16) NOT NULL,
+    payload      LONGBLOB    NOT NULL,
+    payload_size INT         NOT NULL,
+    recorded_at  DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_payment_audit_payment ON payment_audit (payment_id, id);
+
+-- Keep the last payload of existing payments, uncompressed
+INSERT INTO payment_audit (payment_id, source, compression, payload, payload_size, recorded_at)
+SELECT id, 'LEGACY', 'NONE', raw_response, LENGTH(raw_response), COALESCE(updated_at, created_at)
+FROM payments
+WHERE raw_response IS NOT NULL;
+
+ALTER TABLE payments DROP COLUMN raw_response;
@@ -0,0 +1,19 @@
+-- Id blocks for entities written in batches: next_val is the first id not yet
+-- handed out to any node.
+CREATE TABLE id_generators (
+    name     VARCHAR(64) NOT NULL,
+    next_val BIGINT      NOT NULL,
+    PRIMARY KEY (name)
+);
+
+INSERT INTO id_generators (name, next_val)
+SELECT 'payments', COALESCE(MAX(id), 0) + 1 FROM payments;
+
+INSERT INTO id_generators (name, next_val)
+SELECT 'payment_audit', COALESCE(MAX(id), 0) + 1 FROM payment_audit;
+
+INSERT INTO id_generators (name, next_val)
+SELECT 'processed_webhook_events', COALESCE(MAX(id), 0) + 1 FROM processed_webhook_events;
+
+-- Optimistic locking for payment status updates
+ALTER TABLE payments ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
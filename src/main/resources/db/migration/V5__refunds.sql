@@ -0,0 +1,30 @@
+-- Refunds against settled payments. Rows are queued by the refund API and
+-- submitted to Cashfree in batches by the refund processor.
+CREATE TABLE refunds (
+    id             BIGINT         NOT NULL,
+    version        BIGINT         NOT NULL DEFAULT 0,
+    refund_id      VARCHAR(255)   NOT NULL,
+    payment_id     BIGINT         NOT NULL,
+    cf_refund_id   VARCHAR(255),
+    amount         DECIMAL(38, 2) NOT NULL,
+    note           VARCHAR(255),
+    status         VARCHAR(32)    NOT NULL,
+    attempts       INT            NOT NULL,
+    claim_token    VARCHAR(255),
+    claimed_at     DATETIME(6),
+    available_at   DATETIME(6)    NOT NULL,
+    failure_reason VARCHAR(255),
+    created_at     DATETIME(6)    NOT NULL,
+    updated_at     DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_refunds_refund_id UNIQUE (refund_id)
+);
+
+CREATE INDEX idx_refunds_payment ON refunds (payment_id);
+CREATE INDEX idx_refunds_status_available ON refunds (status, available_at);
+CREATE INDEX idx_refunds_claim_token ON refunds (claim_token);
+
+INSERT INTO id_generators (name, next_val) VALUES ('refunds', 1);
+
+-- Refund webhooks identify the refund rather than the gateway order
+ALTER TABLE webhook_events ADD COLUMN refund_id VARCHAR(255);
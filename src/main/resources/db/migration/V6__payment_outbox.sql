@@ -0,0 +1,23 @@
+-- Payment status changes waiting to be published to downstream consumers.
+-- Rows are inserted in the transaction that changes the payment and deleted
+-- once the event relay has handed them to the configured sink. The
+-- auto-increment id gives every order its events in commit order.
+CREATE TABLE payment_outbox (
+    id              BIGINT       NOT NULL AUTO_INCREMENT,
+    payment_id      BIGINT       NOT NULL,
+    order_id        VARCHAR(255) NOT NULL,
+    previous_status VARCHAR(32),
+    status          VARCHAR(32)  NOT NULL,
+    created_at      DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- One row per singleton background job; the holder renews its lease while it runs
+CREATE TABLE relay_leases (
+    name        VARCHAR(64)  NOT NULL,
+    owner       VARCHAR(255),
+    lease_until DATETIME(6),
+    PRIMARY KEY (name)
+);
+
+INSERT INTO relay_leases (name, owner, lease_until) VALUES ('payment-outbox', NULL, NULL);
@@ -0,0 +1,3 @@
+-- Unfiltered payment listings and exports walk payments newest first by
+-- (created_at, id); InnoDB appends the primary key to the index.
+CREATE INDEX idx_payments_created ON payments (created_at);
@@ -0,0 +1,12 @@
+-- Totals of paid payments per created day, currency, payment method and
+-- status, kept current by every status change so dashboards never scan
+-- payments. Rows can be rebuilt from payments at any time.
+CREATE TABLE payment_rollups (
+    rollup_date    DATE           NOT NULL,
+    currency       VARCHAR(255)   NOT NULL,
+    payment_method VARCHAR(255)   NOT NULL,
+    status         VARCHAR(32)    NOT NULL,
+    payment_count  BIGINT         NOT NULL,
+    amount         DECIMAL(38, 2) NOT NULL,
+    PRIMARY KEY (rollup_date, currency, payment_method, status)
+);
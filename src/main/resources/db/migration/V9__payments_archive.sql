@@ -0,0 +1,28 @@
+-- Cold storage for settled payments nobody has touched within the retention
+-- window. Rows keep their payments id and version and move back to payments
+-- when an order lookup misses the hot table.
+CREATE TABLE payments_archive (
+    id                     BIGINT         NOT NULL,
+    version                BIGINT         NOT NULL,
+    order_id               VARCHAR(255)   NOT NULL,
+    cf_order_id            VARCHAR(255),
+    amount                 DECIMAL(38, 2) NOT NULL,
+    currency               VARCHAR(255)   NOT NULL,
+    customer_email         VARCHAR(255)   NOT NULL,
+    customer_phone         VARCHAR(255),
+    status                 VARCHAR(32)    NOT NULL,
+    payment_method         VARCHAR(255),
+    gateway_transaction_id VARCHAR(255),
+    failure_reason         VARCHAR(255),
+    created_at             DATETIME(6)    NOT NULL,
+    updated_at             DATETIME(6),
+    archived_at            DATETIME(6)    NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_payments_archive_order_id UNIQUE (order_id)
+);
+
+CREATE INDEX idx_payments_archive_cf_order_id ON payments_archive (cf_order_id);
+-- Rollup verify and rebuild read archived payments by created day
+CREATE INDEX idx_payments_archive_created ON payments_archive (created_at);
+
+INSERT INTO relay_leases (name, owner, lease_until) VALUES ('payment-archive', NULL, NULL);
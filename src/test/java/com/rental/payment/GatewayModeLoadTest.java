@@ -0,0 +1,124 @@
+package com.rental.payment;
+
+import com.rental.payment.support.StubCashfreeServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares create-order throughput in {@code blocking} and {@code async} gateway
+ * modes when Cashfree is slow and the servlet thread pool is deliberately small.
+ *
+ * Wall-clock throughput depends on the machine, so this is tagged {@code perf}
+ * and left out of the default build; run it with
+ * {@code mvn test -Dgroups=perf -DexcludedGroups= -Dtest=GatewayModeLoadTest}.
+ */
+@Tag("perf")
+class GatewayModeLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(GatewayModeLoadTest.class);
+
+    private static final int TOMCAT_THREADS = 10;
+    private static final int CONCURRENT_REQUESTS = 100;
+    private static final long GATEWAY_DELAY_MILLIS = 500;
+
+    private static StubCashfreeServer gateway;
+    private static ExecutorService clientExecutor;
+    private static HttpClient httpClient;
+
+    @BeforeAll
+    static void startGateway() throws Exception {
+        gateway = new StubCashfreeServer();
+        gateway.setDelayMillis(GATEWAY_DELAY_MILLIS);
+        clientExecutor = Executors.newFixedThreadPool(32);
+        httpClient = HttpClient.newBuilder().executor(clientExecutor).build();
+    }
+
+    @AfterAll
+    static void stopGateway() {
+        gateway.close();
+        clientExecutor.shutdownNow();
+    }
+
+    @Test
+    void asyncModeOutperformsBlockingModeWithSaturatedServletPool() throws Exception {
+        double blockingThroughput = measureThroughput("blocking");
+        double asyncThroughput = measureThroughput("async");
+
+        logger.info("create-order throughput: blocking={} req/s, async={} req/s",
+                String.format("%.1f", blockingThroughput), String.format("%.1f", asyncThroughput));
+
+        assertThat(asyncThroughput).isGreaterThan(blockingThroughput * 1.5);
+    }
+
+    private double measureThroughput(String mode) throws Exception {
+        try (ConfigurableApplicationContext context = SpringApplication.run(PaymentApplication.class,
+                "--server.port=0",
+                "--server.tomcat.threads.max=" + TOMCAT_THREADS,
+                "--server.tomcat.threads.min-spare=" + TOMCAT_THREADS,
+                "--spring.datasource.url=jdbc:h2:mem:load_" + mode + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.web=WARN",
+                "--logging.level.com.rental.payment=WARN",
+                "--logging.level.com.rental.payment.GatewayModeLoadTest=INFO",
+                "--cashfree.app-id=test-app-id",
+                "--cashfree.secret-key=test-secret-key",
+                "--cashfree.webhook-secret=test-webhook-secret",
+                "--cashfree.base-url=" + gateway.getBaseUrl(),
+                "--cashfree.http.mode=" + mode,
+                "--payment.outbox.sink=memory")) {
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI uri = URI.create("http://127.0.0.1:" + port + "/api/payments/create-order");
+
+            // Warm up connections and JIT before measuring
+            fire(uri, CONCURRENT_REQUESTS);
+
+            long start = System.nanoTime();
+            fire(uri, CONCURRENT_REQUESTS);
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            return CONCURRENT_REQUESTS / seconds;
+        }
+    }
+
+    private void fire(URI uri, int count) {
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(orderJson(UUID.randomUUID().toString())))
+                    .build();
+            responses.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        responses.forEach(response -> assertThat(response.join().statusCode()).as(response.join().body()).isEqualTo(200));
+    }
+
+    private static String orderJson(String orderId) {
+        return "{\"orderId\":\"" + orderId + "\",\"amount\":1500.00,\"currency\":\"INR\","
+                + "\"customerEmail\":\"tenant@example.com\",\"customerPhone\":\"9999999999\","
+                + "\"customerId\":\"cust-1\",\"returnUrl\":\"https://example.com/return\"}";
+    }
+}
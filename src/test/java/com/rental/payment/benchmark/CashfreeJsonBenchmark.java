@@ -0,0 +1,154 @@
+package com.rental.payment.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.rental.payment.dto.CashfreeOrderRequest;
+import com.rental.payment.dto.CashfreePayment;
+import com.rental.payment.dto.PaymentRequest;
+import com.rental.payment.service.CashfreeJsonCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the original Cashfree body handling (nested maps written through a
+ * generic {@link ObjectMapper}, responses read into a {@link JsonNode} tree and
+ * copied out) with the typed records read and written by {@link CashfreeJsonCodec}.
+ * The {@code typedWithoutBlackbird} case isolates what Blackbird adds on top of
+ * the cached reader.
+ *
+ * Run via {@link #main} on the test classpath after {@code mvn test-compile};
+ * pass {@code -prof gc} to the JMH runner to see allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CashfreeJsonBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CashfreeJsonCodec codec = new CashfreeJsonCodec();
+    private final ObjectReader paymentsReaderWithoutBlackbird = JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build()
+            .readerFor(new TypeReference<List<CashfreePayment>>() {
+            });
+
+    private PaymentRequest request;
+    private byte[] orderCreated;
+    private byte[] orderPayments;
+
+    @Setup
+    public void load() throws IOException {
+        request = new PaymentRequest();
+        request.setOrderId("rent_2026_10_flat_402");
+        request.setAmount(new BigDecimal("25000.00"));
+        request.setCurrency("INR");
+        request.setCustomerId("cust-1");
+        request.setCustomerEmail("tenant@example.com");
+        request.setCustomerPhone("9999999999");
+        request.setReturnUrl("https://rentals.example.com/payments/return?order_id=rent_2026_10_flat_402");
+
+        orderCreated = resource("/cashfree/order_created.json");
+        orderPayments = resource("/cashfree/order_payments.json");
+    }
+
+    @Benchmark
+    public byte[] writeOrderFromMaps() throws IOException {
+        Map<String, Object> orderData = new HashMap<>();
+        orderData.put("order_id", request.getOrderId());
+        orderData.put("order_amount", request.getAmount());
+        orderData.put("order_currency", request.getCurrency());
+
+        Map<String, String> customer = new HashMap<>();
+        customer.put("customer_id", request.getCustomerId());
+        customer.put("customer_email", request.getCustomerEmail());
+        customer.put("customer_phone", request.getCustomerPhone());
+        orderData.put("customer_details", customer);
+
+        orderData.put("order_meta", Map.of("return_url", request.getReturnUrl()));
+
+        return objectMapper.writeValueAsString(orderData).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] writeOrderTyped() throws IOException {
+        return codec.writeOrderRequest(CashfreeOrderRequest.of(request));
+    }
+
+    @Benchmark
+    public Map<String, String> readOrderTree() throws IOException {
+        JsonNode responseJson = objectMapper.readTree(new String(orderCreated, StandardCharsets.UTF_8));
+        Map<String, String> result = new HashMap<>();
+        result.put("cf_order_id", responseJson.path("cf_order_id").asText());
+        result.put("payment_session_id", responseJson.path("payment_session_id").asText());
+        return result;
+    }
+
+    @Benchmark
+    public Object readOrderTyped() throws IOException {
+        return codec.readOrderResponse(orderCreated);
+    }
+
+    @Benchmark
+    public void readPaymentsTree(Blackhole blackhole) throws IOException {
+        JsonNode response = objectMapper.readTree(new String(orderPayments, StandardCharsets.UTF_8));
+        JsonNode paymentData = response.get(0);
+        blackhole.consume(paymentData.path("payment_status").asText());
+        blackhole.consume(paymentData.path("payment_method").asText());
+        blackhole.consume(paymentData.path("cf_payment_id").asText());
+        blackhole.consume(paymentData.path("payment_message").asText());
+        // The audit history stored the tree re-serialised
+        blackhole.consume(response.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public List<CashfreePayment> readPaymentsTyped() throws IOException {
+        return codec.readPayments(orderPayments);
+    }
+
+    @Benchmark
+    public List<CashfreePayment> readPaymentsTypedWithoutBlackbird() throws IOException {
+        return paymentsReaderWithoutBlackbird.readValue(orderPayments);
+    }
+
+    private static byte[] resource(String name) throws IOException {
+        try (InputStream in = CashfreeJsonBenchmark.class.getResourceAsStream(name)) {
+            return in.readAllBytes();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CashfreeJsonBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
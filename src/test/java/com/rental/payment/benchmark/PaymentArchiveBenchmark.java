@@ -0,0 +1,170 @@
+package com.rental.payment.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order lookup latency before and after archiving: {@code archivedShare} of
+ * the payments, oldest first, are moved to payments_archive with the
+ * archiver's {@code INSERT ... SELECT} and {@code DELETE}. Lookups of recent
+ * orders hit the hot table; lookups of old orders miss it and read the
+ * archive, which is what an order lookup pays before restoring an archived
+ * payment. Index sizes are only meaningful on MySQL; see the
+ * {@code payment.archive.table.size} gauges.
+ *
+ * Run via {@link #main} on the test classpath after {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class PaymentArchiveBenchmark {
+
+    private static final String COLUMNS = "id, version, order_id, cf_order_id, amount, currency, customer_email, "
+            + "customer_phone, status, payment_method, gateway_transaction_id, failure_reason, created_at, updated_at";
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    @Param({"0", "0.9"})
+    private double archivedShare;
+
+    private Connection connection;
+    private PreparedStatement hotByOrderId;
+    private PreparedStatement archiveByOrderId;
+
+    private int firstHot;
+
+    @Setup(Level.Trial)
+    public void seed() throws SQLException {
+        String url = "jdbc:h2:mem:archive_" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+        Flyway.configure()
+                .dataSource(url, "sa", "")
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        connection = DriverManager.getConnection(url, "sa", "");
+        insertRows();
+        firstHot = (int) (rows * archivedShare);
+        if (firstHot > 0) {
+            archive();
+        }
+        connection.setAutoCommit(true);
+
+        hotByOrderId = connection.prepareStatement("select * from payments where order_id = ?");
+        archiveByOrderId = connection.prepareStatement("select * from payments_archive where order_id = ?");
+    }
+
+    private void insertRows() throws SQLException {
+        connection.setAutoCommit(false);
+        LocalDateTime now = LocalDateTime.now();
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into payments (id, order_id, cf_order_id, amount, currency, customer_email, status, "
+                        + "gateway_transaction_id, created_at, updated_at) "
+                        + "values (?, ?, ?, ?, 'INR', ?, 'SUCCESS', ?, ?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                Timestamp createdAt = Timestamp.valueOf(now.minusMinutes(rows - i));
+                insert.setLong(1, i + 1);
+                insert.setString(2, "order_" + i);
+                insert.setString(3, "cf_" + i);
+                insert.setBigDecimal(4, new BigDecimal("2500.00"));
+                insert.setString(5, "tenant" + (i % 1000) + "@example.com");
+                insert.setString(6, "pay_" + i);
+                insert.setTimestamp(7, createdAt);
+                insert.setTimestamp(8, createdAt);
+                insert.addBatch();
+                if (i % 1000 == 999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+    }
+
+    private void archive() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (int from = 1; from <= firstHot; from += 1000) {
+                String range = " WHERE id BETWEEN " + from + " AND " + Math.min(firstHot, from + 999);
+                statement.executeUpdate("INSERT INTO payments_archive (" + COLUMNS + ", archived_at) SELECT "
+                        + COLUMNS + ", CURRENT_TIMESTAMP FROM payments" + range);
+                statement.executeUpdate("DELETE FROM payments" + range);
+                connection.commit();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws SQLException {
+        try (Connection closing = connection) {
+            closing.createStatement().execute("SHUTDOWN");
+        }
+    }
+
+    @Benchmark
+    public void recentOrder(Blackhole blackhole) throws SQLException {
+        hotByOrderId.setString(1, "order_" + ThreadLocalRandom.current().nextInt(firstHot, rows));
+        consume(hotByOrderId, blackhole);
+    }
+
+    @Benchmark
+    public void oldOrder(Blackhole blackhole) throws SQLException {
+        String orderId = "order_" + ThreadLocalRandom.current().nextInt(Math.max(1, rows / 10));
+        hotByOrderId.setString(1, orderId);
+        if (!consume(hotByOrderId, blackhole)) {
+            archiveByOrderId.setString(1, orderId);
+            consume(archiveByOrderId, blackhole);
+        }
+    }
+
+    private static boolean consume(PreparedStatement statement, Blackhole blackhole) throws SQLException {
+        boolean found = false;
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                blackhole.consume(resultSet.getLong(1));
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PaymentArchiveBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,117 @@
+package com.rental.payment.benchmark;
+
+import com.rental.payment.PaymentApplication;
+import com.rental.payment.entity.PaymentEntity;
+import com.rental.payment.entity.PaymentStatus;
+import com.rental.payment.repository.PaymentRepository;
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static com.rental.payment.support.TestPayments.payment;
+
+/**
+ * Inserts a page of payments and then settles them, as the reconciler and
+ * webhook batches do, with Hibernate JDBC batching off ({@code batch_size=1})
+ * and on. Runs the real application context against H2 in MySQL mode, served
+ * over TCP so that each statement round trip goes through the JDBC socket as
+ * it would with MySQL.
+ *
+ * Run via {@link #main} on the test classpath after {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PaymentBulkWriteBenchmark {
+
+    private static final int PAYMENTS_PER_OP = 500;
+
+    @Param({"1", "50"})
+    private int batchSize;
+
+    private Server database;
+    private ConfigurableApplicationContext context;
+    private PaymentRepository paymentRepository;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void start() throws SQLException {
+        database = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        SpringApplication application = new SpringApplication(PaymentApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        context = application.run(
+                "--spring.datasource.url=jdbc:h2:tcp://localhost:" + database.getPort() + "/mem:bulk_"
+                        + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                "--payment.reconciler.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.rental.payment=WARN",
+                "--cashfree.app-id=bench-app-id",
+                "--cashfree.secret-key=bench-secret-key",
+                "--cashfree.webhook-secret=bench-webhook-secret",
+                "--cashfree.base-url=http://localhost:0/pg");
+        paymentRepository = context.getBean(PaymentRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+        database.stop();
+    }
+
+    @Benchmark
+    public int insertThenSettle() {
+        List<Long> ids = transactionTemplate.execute(status -> {
+            List<PaymentEntity> payments = new ArrayList<>(PAYMENTS_PER_OP);
+            for (int i = 0; i < PAYMENTS_PER_OP; i++) {
+                payments.add(payment(PaymentStatus.PENDING));
+            }
+            return paymentRepository.saveAll(payments).stream().map(PaymentEntity::getId).toList();
+        });
+        return transactionTemplate.execute(status -> {
+            List<PaymentEntity> payments = paymentRepository.findAllById(ids);
+            payments.forEach(payment -> payment.setStatus(PaymentStatus.SUCCESS));
+            return payments.size();
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PaymentBulkWriteBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
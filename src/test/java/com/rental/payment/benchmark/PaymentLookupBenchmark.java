@@ -0,0 +1,163 @@
+package com.rental.payment.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup latency on the payments table as it grows, with the schema migrated
+ * to V1 (order_id unique key only) or to the latest version with the lookup
+ * indexes. Uses H2 in MySQL mode with the same Flyway migrations as production.
+ *
+ * Run via {@link #main} on the test classpath after {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class PaymentLookupBenchmark {
+
+    private static final String[] STATUSES = {"SUCCESS", "SUCCESS", "SUCCESS", "FAILED", "PENDING"};
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"1", "latest"})
+    private String schemaVersion;
+
+    private Connection connection;
+    private PreparedStatement byCfOrderId;
+    private PreparedStatement byGatewayTransactionId;
+    private PreparedStatement pendingOlderThan;
+    private PreparedStatement customerHistory;
+
+    private int customers;
+
+    @Setup(Level.Trial)
+    public void seed() throws SQLException {
+        String url = "jdbc:h2:mem:lookup_" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+        Flyway.configure()
+                .dataSource(url, "sa", "")
+                .locations("classpath:db/migration")
+                .target(schemaVersion)
+                .load()
+                .migrate();
+
+        connection = DriverManager.getConnection(url, "sa", "");
+        customers = Math.max(1, rows / 20);
+        insertRows();
+
+        byCfOrderId = connection.prepareStatement("select * from payments where cf_order_id = ?");
+        byGatewayTransactionId = connection.prepareStatement(
+                "select * from payments where gateway_transaction_id = ?");
+        // Sorting on the full index prefix lets H2 read the index in order; MySQL
+        // does this for ORDER BY created_at alone
+        pendingOlderThan = connection.prepareStatement("select id from payments where status = 'PENDING' "
+                + "and created_at < ? order by status, created_at limit 100");
+        customerHistory = connection.prepareStatement(
+                "select * from payments where customer_email = ? order by created_at desc limit 20");
+    }
+
+    private void insertRows() throws SQLException {
+        connection.setAutoCommit(false);
+        LocalDateTime now = LocalDateTime.now();
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into payments (order_id, cf_order_id, amount, currency, customer_email, status, "
+                        + "gateway_transaction_id, created_at, updated_at) values (?, ?, ?, 'INR', ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                Timestamp createdAt = Timestamp.valueOf(now.minusMinutes(rows - i));
+                insert.setString(1, "order_" + i);
+                insert.setString(2, "cf_" + i);
+                insert.setBigDecimal(3, new BigDecimal("2500.00"));
+                insert.setString(4, "tenant" + (i % customers) + "@example.com");
+                insert.setString(5, STATUSES[i % STATUSES.length]);
+                insert.setString(6, "pay_" + i);
+                insert.setTimestamp(7, createdAt);
+                insert.setTimestamp(8, createdAt);
+                insert.addBatch();
+                if (i % 1000 == 999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws SQLException {
+        try (Connection closing = connection) {
+            closing.createStatement().execute("SHUTDOWN");
+        }
+    }
+
+    @Benchmark
+    public void findByCfOrderId(Blackhole blackhole) throws SQLException {
+        byCfOrderId.setString(1, "cf_" + ThreadLocalRandom.current().nextInt(rows));
+        consume(byCfOrderId, blackhole);
+    }
+
+    @Benchmark
+    public void findByGatewayTransactionId(Blackhole blackhole) throws SQLException {
+        byGatewayTransactionId.setString(1, "pay_" + ThreadLocalRandom.current().nextInt(rows));
+        consume(byGatewayTransactionId, blackhole);
+    }
+
+    @Benchmark
+    public void pendingOlderThanOneDay(Blackhole blackhole) throws SQLException {
+        pendingOlderThan.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now().minusDays(1)));
+        consume(pendingOlderThan, blackhole);
+    }
+
+    @Benchmark
+    public void customerHistory(Blackhole blackhole) throws SQLException {
+        customerHistory.setString(1, "tenant" + ThreadLocalRandom.current().nextInt(customers) + "@example.com");
+        consume(customerHistory, blackhole);
+    }
+
+    private static void consume(PreparedStatement statement, Blackhole blackhole) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                blackhole.consume(resultSet.getLong(1));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PaymentLookupBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,102 @@
+package com.rental.payment.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rental.payment.dto.CashfreeWebhookEvent;
+import com.rental.payment.service.WebhookPayloadParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the original webhook read path (line-by-line reader, String
+ * concatenation, re-encoding for the HMAC, full tree parse and tree
+ * re-serialisation for storage) with reading the body once as bytes and
+ * streaming out only the fields we use.
+ *
+ * Run via {@link #main} on the test classpath after {@code mvn test-compile};
+ * pass {@code -prof gc} to the JMH runner to see allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebhookParsingBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final WebhookPayloadParser webhookPayloadParser = new WebhookPayloadParser();
+
+    private byte[] body;
+
+    @Setup
+    public void loadPayload() throws IOException {
+        try (InputStream in = WebhookParsingBenchmark.class.getResourceAsStream("/webhooks/payment_success.json")) {
+            body = in.readAllBytes();
+        }
+    }
+
+    @Benchmark
+    public void readLineAndTreeParse(Blackhole blackhole) throws IOException {
+        StringBuilder payload = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                payload.append(line);
+            }
+        }
+        String payloadString = payload.toString();
+        blackhole.consume(payloadString.getBytes(StandardCharsets.UTF_8));
+
+        JsonNode webhookData = objectMapper.readTree(payloadString);
+        JsonNode data = webhookData.get("data");
+        JsonNode paymentData = data.get("payment");
+        blackhole.consume(data.get("order").get("cf_order_id").asText());
+        blackhole.consume(paymentData.get("cf_payment_id").asText());
+        blackhole.consume(paymentData.get("payment_status").asText());
+        blackhole.consume(paymentData.get("payment_message").asText());
+        blackhole.consume(webhookData.toString());
+    }
+
+    @Benchmark
+    public void readBytesAndStreamParse(Blackhole blackhole) throws IOException {
+        byte[] payload;
+        try (InputStream in = new ByteArrayInputStream(body)) {
+            payload = in.readNBytes(body.length);
+        }
+        blackhole.consume(payload);
+
+        CashfreeWebhookEvent event = webhookPayloadParser.parse(payload);
+        blackhole.consume(event);
+        blackhole.consume(new String(payload, StandardCharsets.UTF_8));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(WebhookParsingBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,114 @@
+package com.rental.payment.benchmark;
+
+import com.rental.payment.config.CashfreeConfig;
+import com.rental.payment.service.PaymentMetrics;
+import com.rental.payment.service.WebhookSignatureVerifier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded webhook signature verification throughput, i.e. per core:
+ * the original per-request {@code Mac.getInstance}/{@code init} with a String
+ * comparison versus {@link WebhookSignatureVerifier}.
+ *
+ * Run via {@link #main} on the test classpath after {@code mvn test-compile}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(1)
+@Fork(1)
+public class WebhookSignatureBenchmark {
+
+    private static final String SECRET = "benchmark-webhook-secret";
+
+    private WebhookSignatureVerifier verifier;
+
+    private byte[] body;
+    private String timestamp;
+    private String bodySignature;
+    private String timestampedSignature;
+
+    @Setup
+    public void setUp() throws Exception {
+        try (InputStream in = WebhookSignatureBenchmark.class.getResourceAsStream("/webhooks/payment_success.json")) {
+            body = in.readAllBytes();
+        }
+
+        CashfreeConfig cashfreeConfig = new CashfreeConfig();
+        ReflectionTestUtils.setField(cashfreeConfig, "webhookSecret", SECRET);
+        verifier = new WebhookSignatureVerifier();
+        ReflectionTestUtils.setField(verifier, "cashfreeConfig", cashfreeConfig);
+        PaymentMetrics paymentMetrics = new PaymentMetrics();
+        ReflectionTestUtils.setField(paymentMetrics, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(verifier, "paymentMetrics", paymentMetrics);
+        // Wide window so the timestamp stays valid for the whole run
+        ReflectionTestUtils.setField(verifier, "replayWindow", Duration.ofDays(1));
+        ReflectionTestUtils.invokeMethod(verifier, "init");
+
+        timestamp = String.valueOf(System.currentTimeMillis());
+        bodySignature = sign(null, body);
+        timestampedSignature = sign(timestamp, body);
+    }
+
+    @Benchmark
+    public boolean perRequestMac() throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        SecretKeySpec secretKey = new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        mac.init(secretKey);
+
+        String expectedSignature = Base64.getEncoder().encodeToString(mac.doFinal(body));
+        return expectedSignature.equals(bodySignature);
+    }
+
+    @Benchmark
+    public boolean cachedVerifier() {
+        return verifier.verify(body, null, bodySignature);
+    }
+
+    @Benchmark
+    public boolean cachedVerifierWithTimestamp() {
+        return verifier.verify(body, timestamp, timestampedSignature);
+    }
+
+    private static String sign(String timestamp, byte[] payload) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        if (timestamp != null) {
+            mac.update(timestamp.getBytes(StandardCharsets.UTF_8));
+        }
+        return Base64.getEncoder().encodeToString(mac.doFinal(payload));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(WebhookSignatureBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
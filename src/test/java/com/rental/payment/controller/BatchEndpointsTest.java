@@ -0,0 +1,156 @@
+package com.rental.payment.controller;
+
+import com.rental.payment.entity.PaymentEntity;
+import com.rental.payment.entity.PaymentStatus;
+import com.rental.payment.repository.PaymentRepository;
+import com.rental.payment.support.StubCashfreeServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import static com.rental.payment.support.TestPayments.payment;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        "payment.batch.max-concurrency=1",
+        "cashfree.resilience.retry.initial-backoff=10ms"})
+class BatchEndpointsTest {
+
+    private static final StubCashfreeServer gateway = startGateway();
+
+    @DynamicPropertySource
+    static void gatewayProperties(DynamicPropertyRegistry registry) {
+        registry.add("cashfree.base-url", gateway::getBaseUrl);
+    }
+
+    @AfterAll
+    static void stopGateway() {
+        gateway.close();
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Test
+    void batchCreateReportsEachItemAndKeepsSuccessfulOnes() throws Exception {
+        String unreachable = UUID.randomUUID().toString();
+        String created = UUID.randomUUID().toString();
+        String alreadyPaid = paymentRepository.save(payment(PaymentStatus.SUCCESS)).getOrderId();
+        // With one call in flight, the first order takes all three failed attempts
+        gateway.failNext(3, 503);
+
+        String body = "{\"orders\":[" + orderJson(unreachable) + "," + orderJson(created) + ","
+                + orderJson(alreadyPaid) + "," + orderJson(created) + "]}";
+        perform("/api/payments/create-orders:batch", body)
+                .andExpect(jsonPath("$.total").value(4))
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.failed").value(3))
+                .andExpect(jsonPath("$.results[0].orderId").value(unreachable))
+                .andExpect(jsonPath("$.results[0].message").value("Payment gateway is temporarily unavailable"))
+                .andExpect(jsonPath("$.results[1].success").value(true))
+                .andExpect(jsonPath("$.results[1].status").value("PENDING"))
+                .andExpect(jsonPath("$.results[2].message").value("Order already processed successfully"))
+                .andExpect(jsonPath("$.results[3].message").value("Duplicate order ID in batch"));
+
+        assertThat(paymentRepository.findByOrderId(unreachable).orElseThrow().getStatus())
+                .isEqualTo(PaymentStatus.FAILED);
+        PaymentEntity stored = paymentRepository.findByOrderId(created).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(PaymentStatus.PENDING);
+        assertThat(stored.getCfOrderId()).isNotNull();
+    }
+
+    @Test
+    void repeatedCreateReturnsTheLiveOrderInsteadOfCreatingItAgain() throws Exception {
+        String orderId = UUID.randomUUID().toString();
+        perform("/api/payments/create-order", orderJson(orderId))
+                .andExpect(jsonPath("$.success").value(true));
+        String cfOrderId = paymentRepository.findByOrderId(orderId).orElseThrow().getCfOrderId();
+        int created = gateway.getIdempotencyKeys().size();
+
+        perform("/api/payments/create-order", orderJson(orderId))
+                .andExpect(jsonPath("$.cfOrderId").value(cfOrderId))
+                .andExpect(jsonPath("$.paymentSessionId").value("session_" + cfOrderId));
+        perform("/api/payments/create-orders:batch", "{\"orders\":[" + orderJson(orderId) + "]}")
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.results[0].cfOrderId").value(cfOrderId))
+                .andExpect(jsonPath("$.results[0].status").value("PENDING"));
+
+        assertThat(gateway.getIdempotencyKeys()).hasSize(created);
+        PaymentEntity stored = paymentRepository.findByOrderId(orderId).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(PaymentStatus.PENDING);
+        assertThat(stored.getCfOrderId()).isEqualTo(cfOrderId);
+    }
+
+    @Test
+    void batchVerifyRefreshesPendingOrdersAndReportsMissingOnes() throws Exception {
+        String pending = paymentRepository.save(payment(PaymentStatus.PENDING)).getOrderId();
+        String settled = paymentRepository.save(payment(PaymentStatus.SUCCESS)).getOrderId();
+        String missing = UUID.randomUUID().toString();
+        gateway.setPaymentStatus("SUCCESS");
+
+        String body = "{\"orderIds\":[\"" + pending + "\",\"" + missing + "\",\"" + settled + "\"]}";
+        perform("/api/payments/verify:batch", body)
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.succeeded").value(2))
+                .andExpect(jsonPath("$.results[0].orderId").value(pending))
+                .andExpect(jsonPath("$.results[0].status").value("SUCCESS"))
+                .andExpect(jsonPath("$.results[1].message").value("Payment order not found"))
+                .andExpect(jsonPath("$.results[2].status").value("SUCCESS"));
+
+        assertThat(paymentRepository.findByOrderId(pending).orElseThrow().getStatus())
+                .isEqualTo(PaymentStatus.SUCCESS);
+    }
+
+    @Test
+    void invalidItemsRejectTheWholeBatch() throws Exception {
+        mockMvc.perform(post("/api/payments/verify:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"orderIds\":[]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private ResultActions perform(String path, String body) throws Exception {
+        MvcResult result = mockMvc.perform(post(path)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+    }
+
+    private static String orderJson(String orderId) {
+        return "{\"orderId\":\"" + orderId + "\",\"amount\":1500.00,\"currency\":\"INR\","
+                + "\"customerEmail\":\"tenant@example.com\",\"customerPhone\":\"9999999999\","
+                + "\"customerId\":\"cust-1\",\"returnUrl\":\"https://example.com/return\"}";
+    }
+
+    private static StubCashfreeServer startGateway() {
+        try {
+            return new StubCashfreeServer();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.rental.payment.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rental.payment.entity.PaymentEntity;
+import com.rental.payment.entity.PaymentStatus;
+import com.rental.payment.repository.PaymentRepository;
+import com.rental.payment.support.TestPayments;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(locations = "classpath:application-test.properties", properties = "payment.export.fetch-size=2")
+class PaymentSearchTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void pagesWalkEveryMatchingPaymentNewestFirst() throws Exception {
+        String email = "tenant-" + UUID.randomUUID() + "@example.com";
+        LocalDateTime base = LocalDateTime.of(2026, 10, 1, 12, 0);
+        List<Long> expected = new ArrayList<>();
+        // Two pairs share a created_at, so pages must break ties on id
+        for (int i = 0; i < 5; i++) {
+            expected.add(payment(email, PaymentStatus.SUCCESS, base.plusMinutes(i / 2), null).getId());
+        }
+        payment(email, PaymentStatus.FAILED, base, null);
+        // Archived payments are listed in place, between the hot ones
+        archive(expected.get(1));
+        archive(expected.get(4));
+
+        List<Long> listed = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            String url = "/api/payments?status=SUCCESS&customerEmail=" + email + "&limit=2"
+                    + (cursor == null ? "" : "&cursor=" + cursor);
+            JsonNode page = objectMapper.readTree(mockMvc.perform(get(url))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            page.get("payments").forEach(payment -> listed.add(payment.get("id").asLong()));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(listed).containsExactlyInAnyOrderElementsOf(expected).doesNotHaveDuplicates();
+        List<LocalDateTime> createdAt = listed.stream()
+                .map(id -> jdbcTemplate.queryForObject("select created_at from payments where id = ? union all "
+                        + "select created_at from payments_archive where id = ?", LocalDateTime.class, id, id))
+                .toList();
+        assertThat(createdAt).isSortedAccordingTo((a, b) -> b.compareTo(a));
+    }
+
+    @Test
+    void exportStreamsCsvAndNdjson() throws Exception {
+        String email = "finance-" + UUID.randomUUID() + "@example.com";
+        LocalDateTime base = LocalDateTime.of(2026, 9, 1, 9, 0);
+        for (int i = 0; i < 4; i++) {
+            payment(email, PaymentStatus.FAILED, base.plusHours(i), null);
+        }
+        payment(email, PaymentStatus.FAILED, base.plusHours(5), "Declined, card \"blocked\"");
+        archive(payment(email, PaymentStatus.FAILED, base.plusHours(6), null).getId());
+
+        String csv = mockMvc.perform(get("/api/payments/export?customerEmail=" + email))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = csv.split("\n");
+        assertThat(lines).hasSize(7);
+        assertThat(lines[0]).startsWith("id,order_id,");
+        assertThat(lines[1]).contains(",2026-09-01T15:00,");
+        assertThat(lines[2]).contains(",\"Declined, card \"\"blocked\"\"\",");
+
+        String ndjson = mockMvc.perform(get("/api/payments/export?format=ndjson&customerEmail=" + email
+                        + "&createdFrom=2026-09-01T10:00:00&createdTo=2026-09-01T12:00:00"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<JsonNode> rows = ndjson.lines().map(line -> {
+            try {
+                return objectMapper.readTree(line);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }).toList();
+        assertThat(rows).extracting(row -> row.get("createdAt").asText())
+                .containsExactly("2026-09-01T11:00:00", "2026-09-01T10:00:00");
+    }
+
+    @Test
+    void invalidParametersAreRejected() throws Exception {
+        mockMvc.perform(get("/api/payments?cursor=not-a-cursor")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/payments?status=SETTLED")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/payments?limit=0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/payments/export?format=xml")).andExpect(status().isBadRequest());
+    }
+
+    private void archive(Long id) {
+        String columns = "id, version, order_id, cf_order_id, amount, currency, customer_email, customer_phone, "
+                + "status, payment_method, gateway_transaction_id, failure_reason, created_at, updated_at";
+        jdbcTemplate.update("insert into payments_archive (" + columns + ", archived_at) select " + columns
+                + ", current_timestamp from payments where id = ?", id);
+        jdbcTemplate.update("delete from payments where id = ?", id);
+    }
+
+    private PaymentEntity payment(String email, PaymentStatus status, LocalDateTime createdAt, String failureReason) {
+        PaymentEntity payment = TestPayments.payment(status);
+        payment.setCustomerEmail(email);
+        payment.setFailureReason(failureReason);
+        payment = paymentRepository.save(payment);
+
+        jdbcTemplate.update("update payments set created_at = ? where id = ?", createdAt, payment.getId());
+        return payment;
+    }
+}
@@ -0,0 +1,209 @@
+package com.rental.payment.controller;
+
+import com.rental.payment.entity.PaymentAuditEntity;
+import com.rental.payment.entity.PaymentAuditSource;
+import com.rental.payment.entity.PaymentEntity;
+import com.rental.payment.entity.PaymentStatus;
+import com.rental.payment.entity.WebhookEventEntity;
+import com.rental.payment.entity.WebhookEventStatus;
+import com.rental.payment.repository.PaymentAuditRepository;
+import com.rental.payment.repository.PaymentRepository;
+import com.rental.payment.repository.WebhookEventRepository;
+import com.rental.payment.service.WebhookQueue;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.InflaterInputStream;
+
+import static com.rental.payment.support.TestPayments.payment;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(locations = "classpath:application-test.properties")
+class WebhookIngestionTest {
+
+    private static final String WEBHOOK_SECRET = "test-webhook-secret";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private WebhookQueue webhookQueue;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PaymentAuditRepository paymentAuditRepository;
+
+    @Autowired
+    private WebhookEventRepository webhookEventRepository;
+
+    @Test
+    void signedWebhookIsAcknowledgedAndAppliedAsynchronously() throws Exception {
+        PaymentEntity payment = paymentRepository.save(payment(PaymentStatus.PENDING));
+        double settledBefore = transitions("PENDING", "SUCCESS");
+
+        String payload = webhookPayload(payment.getCfOrderId(), "cf_pay_1", "SUCCESS");
+        mockMvc.perform(post("/api/payments/webhook")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("x-webhook-signature", sign(payload))
+                        .content(payload))
+                .andExpect(status().isOk());
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            PaymentEntity updated = paymentRepository.findById(payment.getId()).orElseThrow();
+            assertThat(updated.getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+            assertThat(updated.getGatewayTransactionId()).isEqualTo("cf_pay_1");
+        });
+
+        List<PaymentAuditEntity> history = paymentAuditRepository.findByPaymentIdOrderByIdAsc(payment.getId());
+        assertThat(history).hasSize(1);
+        assertThat(history.get(0).getSource()).isEqualTo(PaymentAuditSource.WEBHOOK);
+        assertThat(inflate(history.get(0).getPayload())).isEqualTo(payload);
+        // Counted after commit, so it may trail the row becoming visible
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(transitions("PENDING", "SUCCESS")).isEqualTo(settledBefore + 1));
+    }
+
+    @Test
+    void redeliveredAndOutOfOrderWebhooksDoNotChangeAppliedStatus() throws Exception {
+        PaymentEntity payment = paymentRepository.save(payment(PaymentStatus.PENDING));
+        double hitsBefore = meterRegistry.counter("payment.webhook.dedup", "layer", "memory", "result", "hit").count();
+
+        String success = webhookPayload(payment.getCfOrderId(), "cf_pay_3", "SUCCESS");
+        postSigned(success);
+        postSigned(success);
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertThat(
+                paymentRepository.findById(payment.getId()).orElseThrow().getStatus())
+                .isEqualTo(PaymentStatus.SUCCESS));
+
+        // A late PENDING event for the same payment must not regress it
+        postSigned(webhookPayload(payment.getCfOrderId(), "cf_pay_3", "PENDING"));
+        await().atMost(Duration.ofSeconds(10)).until(() -> webhookQueue.getDepth() == 0);
+
+        assertThat(paymentRepository.findById(payment.getId()).orElseThrow().getStatus())
+                .isEqualTo(PaymentStatus.SUCCESS);
+        // The redelivery is dropped, the late PENDING event is kept for the record
+        assertThat(paymentAuditRepository.findByPaymentIdOrderByIdAsc(payment.getId())).hasSize(2);
+        assertThat(meterRegistry.counter("payment.webhook.dedup", "layer", "memory", "result", "hit").count())
+                .isEqualTo(hitsBefore + 1);
+    }
+
+    @Test
+    void webhookWithBadSignatureIsRejected() throws Exception {
+        String payload = webhookPayload("cf_unknown", "cf_pay_2", "SUCCESS");
+        mockMvc.perform(post("/api/payments/webhook")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("x-webhook-signature", "not-a-signature")
+                        .content(payload))
+                .andExpect(status().isBadRequest());
+
+        assertThat(meterRegistry.counter("payment.webhook.signature.failures", "reason", "malformed").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void timestampedSignatureIsCheckedAgainstReplayWindow() throws Exception {
+        PaymentEntity payment = paymentRepository.save(payment(PaymentStatus.PENDING));
+        String payload = webhookPayload(payment.getCfOrderId(), "cf_pay_4", "SUCCESS");
+
+        String stale = String.valueOf(System.currentTimeMillis() - Duration.ofMinutes(10).toMillis());
+        mockMvc.perform(post("/api/payments/webhook")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("x-webhook-timestamp", stale)
+                        .header("x-webhook-signature", sign(stale + payload))
+                        .content(payload))
+                .andExpect(status().isBadRequest());
+
+        String now = String.valueOf(System.currentTimeMillis());
+        mockMvc.perform(post("/api/payments/webhook")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("x-webhook-timestamp", now)
+                        .header("x-webhook-signature", sign(now + payload))
+                        .content(payload))
+                .andExpect(status().isOk());
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertThat(
+                paymentRepository.findById(payment.getId()).orElseThrow().getStatus())
+                .isEqualTo(PaymentStatus.SUCCESS));
+    }
+
+    @Test
+    void finishedEventsArePurgedAfterRetention() {
+        WebhookEventEntity oldProcessed = finishedEvent(WebhookEventStatus.PROCESSED, Duration.ofDays(8));
+        WebhookEventEntity oldFailed = finishedEvent(WebhookEventStatus.FAILED, Duration.ofDays(30));
+        WebhookEventEntity recent = finishedEvent(WebhookEventStatus.PROCESSED, Duration.ofDays(1));
+
+        webhookQueue.purgeFinished();
+
+        assertThat(webhookEventRepository.existsById(oldProcessed.getId())).isFalse();
+        assertThat(webhookEventRepository.existsById(oldFailed.getId())).isFalse();
+        assertThat(webhookEventRepository.existsById(recent.getId())).isTrue();
+    }
+
+    private WebhookEventEntity finishedEvent(WebhookEventStatus status, Duration age) {
+        WebhookEventEntity event = new WebhookEventEntity();
+        event.setCfOrderId("cf_" + UUID.randomUUID());
+        event.setPayload("{}".getBytes(StandardCharsets.UTF_8));
+        event.setStatus(status);
+        event.setProcessedAt(LocalDateTime.now().minus(age));
+        return webhookEventRepository.save(event);
+    }
+
+    private static String inflate(byte[] compressed) throws IOException {
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private double transitions(String from, String to) {
+        return meterRegistry.counter("payment.status.transitions", "from", from, "to", to).count();
+    }
+
+    private void postSigned(String payload) throws Exception {
+        mockMvc.perform(post("/api/payments/webhook")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("x-webhook-signature", sign(payload))
+                        .content(payload))
+                .andExpect(status().isOk());
+    }
+
+    static String webhookPayload(String cfOrderId, String cfPaymentId, String paymentStatus) {
+        return "{\"type\":\"PAYMENT_" + paymentStatus + "_WEBHOOK\",\"data\":{"
+                + "\"order\":{\"order_id\":\"order_1\",\"cf_order_id\":\"" + cfOrderId + "\",\"order_amount\":2500.00},"
+                + "\"payment\":{\"cf_payment_id\":\"" + cfPaymentId + "\",\"payment_status\":\"" + paymentStatus
+                + "\",\"payment_amount\":2500.00,\"payment_method\":\"upi\",\"payment_message\":\"ok\"}}}";
+    }
+
+    static String sign(String payload) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(WEBHOOK_SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return Base64.getEncoder().encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,145 @@
+package com.rental.payment.service;
+
+import com.rental.payment.dto.PaymentRequest;
+import com.rental.payment.dto.PaymentResponse;
+import com.rental.payment.entity.PaymentEntity;
+import com.rental.payment.entity.PaymentStatus;
+import com.rental.payment.exception.GatewayUnavailableException;
+import com.rental.payment.repository.PaymentRepository;
+import com.rental.payment.support.StubCashfreeServer;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+
+import static com.rental.payment.support.TestPayments.payment;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        "cashfree.resilience.retry.initial-backoff=10ms",
+        "cashfree.resilience.circuit-breaker.sliding-window-size=4",
+        "cashfree.resilience.circuit-breaker.minimum-calls=4",
+        "cashfree.resilience.circuit-breaker.open-duration=1h"})
+class CashfreeGatewayResilienceTest {
+
+    private static final StubCashfreeServer gateway = startGateway();
+
+    @DynamicPropertySource
+    static void gatewayProperties(DynamicPropertyRegistry registry) {
+        registry.add("cashfree.base-url", gateway::getBaseUrl);
+    }
+
+    @AfterAll
+    static void stopGateway() {
+        gateway.close();
+    }
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CircuitBreakerRegistry cashfreeCircuitBreakerRegistry;
+
+    @BeforeEach
+    void resetGateway() {
+        // Failures a test injected but an open breaker never let through would leak into the next one
+        gateway.failNext(0, 500);
+        cashfreeCircuitBreakerRegistry.getAllCircuitBreakers().forEach(CircuitBreaker::reset);
+    }
+
+    @Test
+    void createOrderRetriesReuseOneIdempotencyKey() throws Exception {
+        PaymentRequest request = paymentRequest();
+        gateway.failNext(2, 503);
+
+        PaymentResponse response = paymentService.createPaymentOrder(request).get();
+
+        assertThat(response.isSuccess()).isTrue();
+        List<String> keys = gateway.getIdempotencyKeys().stream()
+                .filter(key -> key.startsWith(request.getOrderId()))
+                .toList();
+        assertThat(keys).hasSize(3).containsOnly(keys.get(0));
+
+        // Once retries are exhausted the attempt is failed and the caller gets a 503
+        PaymentRequest unlucky = paymentRequest();
+        gateway.failNext(3, 503);
+        assertThatThrownBy(() -> paymentService.createPaymentOrder(unlucky).get())
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(GatewayUnavailableException.class);
+        assertThat(paymentRepository.findByOrderId(unlucky.getOrderId()).orElseThrow().getStatus())
+                .isEqualTo(PaymentStatus.FAILED);
+    }
+
+    @Test
+    void retryAfterLostResponseFetchesTheOrderItAlreadyCreated() throws Exception {
+        PaymentRequest request = paymentRequest();
+        gateway.loseNextOrderResponses(1);
+
+        PaymentResponse response = paymentService.createPaymentOrder(request).get();
+
+        assertThat(response.isSuccess()).isTrue();
+        assertThat(response.getPaymentSessionId()).isEqualTo("session_" + response.getCfOrderId());
+        PaymentEntity stored = paymentRepository.findByOrderId(request.getOrderId()).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(PaymentStatus.PENDING);
+        assertThat(stored.getCfOrderId()).isEqualTo(response.getCfOrderId());
+    }
+
+    @Test
+    void openBreakerStopsGatewayCallsAndVerifyServesStoredStatus() throws Exception {
+        gateway.failNext(100, 500);
+        for (int i = 0; i < 2; i++) {
+            PaymentResponse response = paymentService.verifyPayment(paymentRepository.save(payment(PaymentStatus.PENDING)).getOrderId()).get();
+            assertThat(response.getStatus()).isEqualTo(PaymentStatus.PENDING);
+        }
+        assertThat(meterRegistry.get("resilience4j.circuitbreaker.state")
+                .tag("name", "cashfree-get-payments")
+                .tag("state", "open")
+                .gauge().value()).isEqualTo(1.0);
+
+        gateway.failNext(0, 500);
+        gateway.resetRequestCount();
+        PaymentResponse response = paymentService.verifyPayment(paymentRepository.save(payment(PaymentStatus.PENDING)).getOrderId()).get();
+        assertThat(response.getStatus()).isEqualTo(PaymentStatus.PENDING);
+        assertThat(gateway.getRequestCount()).isZero();
+    }
+
+    private PaymentRequest paymentRequest() {
+        PaymentRequest request = new PaymentRequest();
+        request.setOrderId(UUID.randomUUID().toString());
+        request.setAmount(new BigDecimal("2500.00"));
+        request.setCurrency("INR");
+        request.setCustomerId("cust-1");
+        request.setCustomerEmail("tenant@example.com");
+        request.setReturnUrl("https://example.com/return");
+        return request;
+    }
+
+    private static StubCashfreeServer startGateway() {
+        try {
+            return new StubCashfreeServer();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.rental.payment.service;
+
+import com.rental.payment.dto.CashfreeOrderRequest;
+import com.rental.payment.dto.CashfreeOrderResponse;
+import com.rental.payment.dto.CashfreePayment;
+import com.rental.payment.dto.PaymentRequest;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CashfreeJsonCodecTest {
+
+    private final CashfreeJsonCodec codec = new CashfreeJsonCodec();
+
+    @Test
+    void orderRequestUsesCashfreeFieldNamesAndOmitsBlankPhone() throws IOException {
+        PaymentRequest request = new PaymentRequest();
+        request.setOrderId("ord_1");
+        request.setAmount(new BigDecimal("2500.00"));
+        request.setCurrency("INR");
+        request.setCustomerId("cust-1");
+        request.setCustomerEmail("tenant@example.com");
+        request.setCustomerPhone(" ");
+        request.setReturnUrl("https://example.com/return");
+
+        String body = new String(codec.writeOrderRequest(CashfreeOrderRequest.of(request)), StandardCharsets.UTF_8);
+
+        assertThat(body).isEqualTo("{\"order_id\":\"ord_1\",\"order_amount\":2500.00,\"order_currency\":\"INR\","
+                + "\"customer_details\":{\"customer_id\":\"cust-1\",\"customer_email\":\"tenant@example.com\"},"
+                + "\"order_meta\":{\"return_url\":\"https://example.com/return\"}}");
+    }
+
+    @Test
+    void responsesKeepOnlyTheFieldsWeUse() throws IOException {
+        CashfreeOrderResponse order = codec.readOrderResponse(resource("/cashfree/order_created.json"));
+        assertThat(order).isEqualTo(new CashfreeOrderResponse("2149460581",
+                "session_a1GvzF2bQv0pR7cW3tK9mXyL5eN8sJ4hU6iO2dB1fC7gA0kP3qT9wZ5vY8xM"));
+
+        List<CashfreePayment> payments = codec.readPayments(resource("/cashfree/order_payments.json"));
+        assertThat(payments).containsExactly(
+                new CashfreePayment("5114910734295", "SUCCESS", "Transaction successful", "upi"),
+                new CashfreePayment("5114910712877", "FAILED", "DEBIT HAS BEEN FAILED", "upi"));
+    }
+
+    private static byte[] resource(String name) throws IOException {
+        try (InputStream in = CashfreeJsonCodecTest.class.getResourceAsStream(name)) {
+            return in.readAllBytes();
+        }
+    }
+}
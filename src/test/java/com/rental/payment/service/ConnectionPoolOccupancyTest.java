@@ -0,0 +1,164 @@
+package com.rental.payment.service;
+
+import com.rental.payment.dto.CashfreeOrderResponse;
+import com.rental.payment.dto.PaymentRequest;
+import com.rental.payment.dto.PaymentResponse;
+import com.rental.payment.entity.PaymentEntity;
+import com.rental.payment.repository.PaymentRepository;
+import com.rental.payment.support.StubCashfreeServer;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Samples Hikari's active connection count while create-order requests wait on a
+ * slow gateway, comparing the old single-transaction shape with the split flow.
+ */
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = "spring.datasource.hikari.maximum-pool-size=10")
+class ConnectionPoolOccupancyTest {
+
+    private static final int CONCURRENT_ORDERS = 10;
+
+    private static final StubCashfreeServer gateway = startGateway();
+
+    @DynamicPropertySource
+    static void gatewayProperties(DynamicPropertyRegistry registry) {
+        registry.add("cashfree.base-url", gateway::getBaseUrl);
+    }
+
+    @AfterAll
+    static void stopGateway() {
+        gateway.close();
+    }
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private CashfreeGatewayClient cashfreeGatewayClient;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void gatewayCallNoLongerHoldsConnections() throws Exception {
+        gateway.setDelayMillis(500);
+
+        // Previous shape: lookup, gateway call and insert in a single transaction
+        Function<PaymentRequest, CompletableFuture<PaymentResponse>> singleTransaction =
+                request -> CompletableFuture.completedFuture(
+                transactionTemplate.execute(status -> {
+                    paymentRepository.findByOrderId(request.getOrderId());
+                    CashfreeOrderResponse result = cashfreeGatewayClient
+                            .createOrderAsync(request, request.getOrderId(), GatewayTrafficClass.CREATE_ORDER).join();
+                    PaymentEntity payment = new PaymentEntity();
+                    payment.setOrderId(request.getOrderId());
+                    payment.setAmount(request.getAmount());
+                    payment.setCurrency(request.getCurrency());
+                    payment.setCustomerEmail(request.getCustomerEmail());
+                    payment.setCfOrderId(result.cfOrderId());
+                    paymentRepository.save(payment);
+                    return new PaymentResponse(true, "created");
+                }));
+
+        // Warm up both paths so connection setup and JIT don't skew the samples
+        measureOccupancy(singleTransaction);
+        measureOccupancy(paymentService::createPaymentOrder);
+
+        Occupancy before = measureOccupancy(singleTransaction);
+
+        Occupancy after = measureOccupancy(paymentService::createPaymentOrder);
+
+        System.out.printf("JDBC connections with %d orders in flight: before=%s, after=%s%n",
+                CONCURRENT_ORDERS, before, after);
+
+        // The old shape pins one connection per in-flight order
+        assertThat(before.peak()).isEqualTo(CONCURRENT_ORDERS);
+        assertThat(after.average()).isLessThan(before.average() / 3);
+    }
+
+    private Occupancy measureOccupancy(Function<PaymentRequest, CompletableFuture<PaymentResponse>> createOrder)
+            throws Exception {
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        AtomicBoolean running = new AtomicBoolean(true);
+        long[] samples = new long[3]; // count, sum, peak
+
+        Thread sampler = new Thread(() -> {
+            while (running.get()) {
+                int active = hikari.getHikariPoolMXBean().getActiveConnections();
+                samples[0]++;
+                samples[1] += active;
+                samples[2] = Math.max(samples[2], active);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        sampler.start();
+
+        ExecutorService callers = Executors.newFixedThreadPool(CONCURRENT_ORDERS);
+        try {
+            List<CompletableFuture<PaymentResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_ORDERS; i++) {
+                responses.add(CompletableFuture.supplyAsync(() -> newRequest(), callers)
+                        .thenCompose(createOrder));
+            }
+            responses.forEach(response -> assertThat(response.join().isSuccess()).isTrue());
+        } finally {
+            callers.shutdown();
+            running.set(false);
+            sampler.join();
+        }
+        return new Occupancy((double) samples[1] / samples[0], (int) samples[2]);
+    }
+
+    private record Occupancy(double average, int peak) {
+        @Override
+        public String toString() {
+            return String.format("avg %.2f / peak %d", average, peak);
+        }
+    }
+
+    private static PaymentRequest newRequest() {
+        return new PaymentRequest(UUID.randomUUID().toString(), new BigDecimal("1500.00"), "INR",
+                "tenant@example.com", "9999999999", "cust-1", "https://example.com/return");
+    }
+
+    private static StubCashfreeServer startGateway() {
+        try {
+            return new StubCashfreeServer();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.rental.payment.service;
+
+import com.rental.payment.dto.PaymentResponse;
+import com.rental.payment.entity.PaymentStatus;
+import com.rental.payment.repository.PaymentRepository;
+import com.rental.payment.support.StubCashfreeServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.rental.payment.support.TestPayments.payment;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        "cashfree.rate-limit.requests-per-second=10",
+        "cashfree.rate-limit.burst=10",
+        "cashfree.rate-limit.max-wait=10s"})
+class GatewayRateLimiterTest {
+
+    private static final StubCashfreeServer gateway = startGateway();
+
+    @DynamicPropertySource
+    static void gatewayProperties(DynamicPropertyRegistry registry) {
+        registry.add("cashfree.base-url", gateway::getBaseUrl);
+    }
+
+    @AfterAll
+    static void stopGateway() {
+        gateway.close();
+    }
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private GatewayRateLimiter gatewayRateLimiter;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ScheduledExecutorService cashfreeRetryScheduler;
+
+    @Test
+    void burstAboveTheLocalRateIsQueuedRatherThanThrottled() {
+        List<String> orderIds = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            orderIds.add(paymentRepository.save(payment(PaymentStatus.PENDING)).getOrderId());
+        }
+        gateway.setPaymentStatus("SUCCESS");
+        gateway.setQuota(20);
+        gateway.resetRequestCount();
+        int throttledBefore = gateway.getThrottledCount();
+
+        List<CompletableFuture<PaymentResponse>> polls = orderIds.stream()
+                .map(paymentService::verifyPayment)
+                .toList();
+
+        // Every poll reached Cashfree in turn; none were answered from the stored status
+        polls.forEach(poll -> assertThat(poll.join().getStatus()).isEqualTo(PaymentStatus.SUCCESS));
+        assertThat(gateway.getRequestCount()).isEqualTo(30);
+        assertThat(gateway.getThrottledCount()).isEqualTo(throttledBefore);
+        assertThat(meterRegistry.get("cashfree.rate-limit.wait").tag("class", "verify").timer()
+                .max(TimeUnit.MILLISECONDS)).isGreaterThan(500);
+    }
+
+    @Test
+    void exhaustedQuotaPausesCallsUntilTheWindowResets() {
+        List<String> orderIds = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            orderIds.add(paymentRepository.save(payment(PaymentStatus.PENDING)).getOrderId());
+        }
+        gateway.setPaymentStatus("SUCCESS");
+        // A first call can take longer than the quota window, so make it before the quota applies
+        paymentService.verifyPayment(paymentRepository.save(payment(PaymentStatus.PENDING)).getOrderId()).join();
+        gateway.setQuota(3);
+        int throttledBefore = gateway.getThrottledCount();
+        double pausesBefore = meterRegistry.counter("cashfree.rate-limit.pauses").count();
+
+        // The third response reports no quota left, so the fourth call waits for the reset
+        for (String orderId : orderIds) {
+            assertThat(paymentService.verifyPayment(orderId).join().getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+        }
+
+        assertThat(gateway.getThrottledCount()).isEqualTo(throttledBefore);
+        assertThat(meterRegistry.counter("cashfree.rate-limit.pauses").count()).isEqualTo(pausesBefore + 1);
+        gateway.setQuota(0);
+    }
+
+    @Test
+    void checkoutTrafficIsServedBeforeQueuedBackgroundWork() {
+        // Drain the bucket so the next callers queue
+        for (int i = 0; i < 10; i++) {
+            gatewayRateLimiter.acquire(GatewayTrafficClass.VERIFY).join();
+        }
+
+        List<GatewayTrafficClass> served = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> reconcile = gatewayRateLimiter.acquire(GatewayTrafficClass.RECONCILE)
+                .thenRun(() -> served.add(GatewayTrafficClass.RECONCILE));
+        CompletableFuture<Void> verify = gatewayRateLimiter.acquire(GatewayTrafficClass.VERIFY)
+                .thenRun(() -> served.add(GatewayTrafficClass.VERIFY));
+        CompletableFuture<Void> createOrder = gatewayRateLimiter.acquire(GatewayTrafficClass.CREATE_ORDER)
+                .thenRun(() -> served.add(GatewayTrafficClass.CREATE_ORDER));
+        CompletableFuture.allOf(reconcile, verify, createOrder).join();
+
+        assertThat(served).containsExactly(GatewayTrafficClass.CREATE_ORDER, GatewayTrafficClass.VERIFY,
+                GatewayTrafficClass.RECONCILE);
+    }
+
+    @Test
+    void blockedRetryThreadsDoNotStallTheirOwnPermits() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            gatewayRateLimiter.acquire(GatewayTrafficClass.VERIFY).join();
+        }
+
+        // Blocking-mode retries wait for their permit on every retry scheduler thread at once
+        List<Future<?>> waits = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            waits.add(cashfreeRetryScheduler.submit(
+                    () -> gatewayRateLimiter.acquireBlocking(GatewayTrafficClass.VERIFY)));
+        }
+        for (Future<?> wait : waits) {
+            wait.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private static StubCashfreeServer startGateway() {
+        try {
+            return new StubCashfreeServer();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
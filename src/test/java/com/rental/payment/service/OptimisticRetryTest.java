@@ -0,0 +1,57 @@
+package com.rental.payment.service;
+
+import com.rental.payment.entity.PaymentEntity;
+import com.rental.payment.entity.PaymentStatus;
+import com.rental.payment.repository.PaymentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.rental.payment.support.TestPayments.payment;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties")
+class OptimisticRetryTest {
+
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void writeThatLosesAVersionRaceIsReappliedOnTheNewerRow() {
+        Long paymentId = paymentRepository.save(payment(PaymentStatus.PENDING)).getId();
+        AtomicInteger attempts = new AtomicInteger();
+
+        PaymentEntity updated = optimisticRetry.execute("test", status -> {
+            PaymentEntity payment = paymentRepository.findById(paymentId).orElseThrow();
+            if (attempts.incrementAndGet() == 1) {
+                // Another writer commits between our read and our flush
+                CompletableFuture.runAsync(() -> {
+                    PaymentEntity concurrent = paymentRepository.findById(paymentId).orElseThrow();
+                    concurrent.setGatewayTransactionId("pay_concurrent");
+                    paymentRepository.save(concurrent);
+                }).join();
+            }
+            payment.setStatus(PaymentStatus.SUCCESS);
+            return paymentRepository.save(payment);
+        });
+
+        assertThat(attempts).hasValue(2);
+        PaymentEntity stored = paymentRepository.findById(paymentId).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+        assertThat(stored.getGatewayTransactionId()).isEqualTo("pay_concurrent");
+        assertThat(stored.getVersion()).isEqualTo(updated.getVersion()).isEqualTo(2);
+        assertThat(meterRegistry.counter("payment.write.conflicts", "operation", "test").count()).isEqualTo(1);
+    }
+}
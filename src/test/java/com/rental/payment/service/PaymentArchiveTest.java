@@ -0,0 +1,82 @@
+package com.rental.payment.service;
+
+import com.rental.payment.dto.RefundRequest;
+import com.rental.payment.entity.PaymentEntity;
+import com.rental.payment.entity.PaymentStatus;
+import com.rental.payment.repository.PaymentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static com.rental.payment.support.TestPayments.payment;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        // Batches are run by the test, and queued refunds stay queued
+        "payment.archive.enabled=false",
+        "payment.archive.retention=30d",
+        "payment.refund.enabled=false"})
+class PaymentArchiveTest {
+
+    @Autowired
+    private PaymentArchiver paymentArchiver;
+
+    @Autowired
+    private RefundService refundService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void settledPaymentsMoveToTheArchiveAndLookupsBringThemBack() {
+        PaymentEntity settled = paymentRepository.save(payment(PaymentStatus.SUCCESS));
+        PaymentEntity refunding = paymentRepository.save(payment(PaymentStatus.SUCCESS));
+        assertThat(refundService.createRefund(new RefundRequest(refunding.getOrderId(), refundId(),
+                new BigDecimal("500.00"), null)).isSuccess()).isTrue();
+        PaymentEntity pending = paymentRepository.save(payment(PaymentStatus.PENDING));
+        PaymentEntity recent = paymentRepository.save(payment(PaymentStatus.FAILED));
+        for (PaymentEntity payment : List.of(settled, refunding, pending)) {
+            jdbcTemplate.update("update payments set updated_at = ? where id = ?",
+                    LocalDateTime.now().minusDays(60), payment.getId());
+        }
+
+        // Only the old settled payment without a refund in flight qualifies
+        assertThat(paymentArchiver.archiveBatch(0)).containsExactly(settled.getId());
+        assertThat(paymentRepository.findById(settled.getId())).isEmpty();
+        assertThat(archivedCount()).isEqualTo(1);
+
+        List<PaymentEntity> found = paymentRepository.findAllByCfOrderIdIn(
+                List.of(recent.getCfOrderId(), settled.getCfOrderId(), "cf_missing"));
+        assertThat(found).extracting(PaymentEntity::getId).containsExactlyInAnyOrder(recent.getId(), settled.getId());
+        PaymentEntity restored = paymentRepository.findById(settled.getId()).orElseThrow();
+        assertThat(restored.getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+        assertThat(restored.getVersion()).isEqualTo(settled.getVersion());
+        assertThat(archivedCount()).isZero();
+
+        // Writers reach archived payments through the same lookups
+        assertThat(paymentArchiver.archiveBatch(0)).containsExactly(settled.getId());
+        assertThat(refundService.createRefund(new RefundRequest(settled.getOrderId(), refundId(),
+                new BigDecimal("500.00"), null)).isSuccess()).isTrue();
+        assertThat(paymentRepository.findByOrderId(settled.getOrderId())).isPresent();
+        assertThat(archivedCount()).isZero();
+    }
+
+    private int archivedCount() {
+        return jdbcTemplate.queryForObject("select count(*) from payments_archive", Integer.class);
+    }
+
+    private static String refundId() {
+        return "rf_" + UUID.randomUUID().toString().replace("-", "").substring(0, 20);
+    }
+}
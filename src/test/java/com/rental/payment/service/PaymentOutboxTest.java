@@ -0,0 +1,155 @@
+package com.rental.payment.service;
+
+import com.rental.payment.dto.PaymentEvent;
+import com.rental.payment.entity.PaymentEntity;
+import com.rental.payment.entity.PaymentStatus;
+import com.rental.payment.repository.PaymentOutboxRepository;
+import com.rental.payment.repository.PaymentRepository;
+import com.rental.payment.support.TestPayments;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        // Batches are relayed by the tests, not the scheduler
+        "payment.outbox.enabled=false",
+        "payment.reconciler.initial-delay=1h"})
+class PaymentOutboxTest {
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentEventRelay paymentEventRelay;
+
+    @Autowired
+    private PaymentEventSink paymentEventSink;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentOutboxRepository paymentOutboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void statusChangesAreRelayedInOrderPerOrder() throws Exception {
+        PaymentEntity paid = payment(PaymentStatus.PENDING, 0);
+        PaymentEntity abandoned = payment(PaymentStatus.INITIATED, 30);
+
+        deliverWebhook(paid.getCfOrderId(), "FAILED");
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertThat(
+                paymentRepository.findById(paid.getId()).orElseThrow().getStatus())
+                .isEqualTo(PaymentStatus.FAILED));
+        deliverWebhook(paid.getCfOrderId(), "SUCCESS");
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertThat(
+                paymentRepository.findById(paid.getId()).orElseThrow().getStatus())
+                .isEqualTo(PaymentStatus.SUCCESS));
+        assertThat(paymentService.expireInitiatedPayments(List.of(abandoned.getId()),
+                LocalDateTime.now().minusMinutes(15), "Gateway order creation did not complete")).isEqualTo(1);
+
+        List<PaymentEvent> received = subscribe(paid, abandoned);
+        while (paymentEventRelay.publishBatch() > 0) {
+            // relay everything written so far
+        }
+
+        assertThat(received).filteredOn(event -> event.orderId().equals(paid.getOrderId()))
+                .extracting(PaymentEvent::previousStatus, PaymentEvent::status)
+                .containsExactly(
+                        tuple(PaymentStatus.PENDING, PaymentStatus.FAILED),
+                        tuple(PaymentStatus.FAILED, PaymentStatus.SUCCESS));
+        assertThat(received).filteredOn(event -> event.orderId().equals(abandoned.getOrderId()))
+                .extracting(PaymentEvent::status)
+                .containsExactly(PaymentStatus.FAILED);
+        assertThat(received).extracting(PaymentEvent::eventId).isSorted();
+        assertThat(paymentOutboxRepository.count()).isZero();
+    }
+
+    @Test
+    void rejectedBatchIsRedeliveredWhole() throws Exception {
+        PaymentEntity abandoned = payment(PaymentStatus.INITIATED, 30);
+        paymentService.expireInitiatedPayments(List.of(abandoned.getId()), LocalDateTime.now().minusMinutes(15),
+                "Gateway order creation did not complete");
+
+        AtomicBoolean reject = new AtomicBoolean(true);
+        InMemoryEventSink broker = (InMemoryEventSink) paymentEventSink;
+        Consumer<PaymentEvent> failing = event -> {
+            if (reject.getAndSet(false)) {
+                throw new IllegalStateException("Consumer unavailable");
+            }
+        };
+        broker.subscribe(failing);
+        try {
+            assertThatThrownBy(() -> paymentEventRelay.publishBatch()).isInstanceOf(IllegalStateException.class);
+            assertThat(paymentOutboxRepository.count()).isPositive();
+
+            List<PaymentEvent> received = subscribe(abandoned);
+            while (paymentEventRelay.publishBatch() > 0) {
+                // relay everything written so far
+            }
+            assertThat(received).extracting(PaymentEvent::status).containsExactly(PaymentStatus.FAILED);
+            assertThat(paymentOutboxRepository.count()).isZero();
+        } finally {
+            broker.unsubscribe(failing);
+        }
+    }
+
+    private List<PaymentEvent> subscribe(PaymentEntity... payments) {
+        Set<String> orderIds = Set.of(Arrays.stream(payments).map(PaymentEntity::getOrderId).toArray(String[]::new));
+        List<PaymentEvent> received = new CopyOnWriteArrayList<>();
+        ((InMemoryEventSink) paymentEventSink).subscribe(event -> {
+            if (orderIds.contains(event.orderId())) {
+                received.add(event);
+            }
+        });
+        return received;
+    }
+
+    private void deliverWebhook(String cfOrderId, String paymentStatus) throws Exception {
+        String payload = "{\"type\":\"PAYMENT_" + paymentStatus + "_WEBHOOK\",\"data\":{"
+                + "\"order\":{\"cf_order_id\":\"" + cfOrderId + "\",\"order_amount\":2500.00},"
+                + "\"payment\":{\"cf_payment_id\":\"cf_pay_" + UUID.randomUUID() + "\",\"payment_status\":\""
+                + paymentStatus + "\",\"payment_amount\":2500.00,\"payment_method\":\"upi\"}}}";
+        byte[] body = payload.getBytes(StandardCharsets.UTF_8);
+        assertThat(paymentService.handleWebhook(body, null, sign(body)).isSuccess()).isTrue();
+    }
+
+    private PaymentEntity payment(PaymentStatus status, int minutesAgo) {
+        PaymentEntity payment = TestPayments.payment(status);
+        payment = paymentRepository.save(payment);
+
+        jdbcTemplate.update("update payments set updated_at = ? where id = ?",
+                LocalDateTime.now().minusMinutes(minutesAgo), payment.getId());
+        return payment;
+    }
+
+    private static String sign(byte[] payload) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec("test-webhook-secret".getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return Base64.getEncoder().encodeToString(mac.doFinal(payload));
+    }
+}
@@ -0,0 +1,137 @@
+package com.rental.payment.service;
+
+import com.rental.payment.entity.PaymentEntity;
+import com.rental.payment.entity.PaymentStatus;
+import com.rental.payment.repository.PaymentRepository;
+import com.rental.payment.support.StubCashfreeServer;
+import com.rental.payment.support.TestPayments;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {"payment.reconciler.initial-delay=1h", "payment.reconciler.batch-size=4"})
+class PaymentReconcilerTest {
+
+    private static final StubCashfreeServer gateway = startGateway();
+
+    @DynamicPropertySource
+    static void gatewayProperties(DynamicPropertyRegistry registry) {
+        registry.add("cashfree.base-url", gateway::getBaseUrl);
+    }
+
+    @AfterAll
+    static void stopGateway() {
+        gateway.close();
+    }
+
+    @Autowired
+    private PaymentReconciler paymentReconciler;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void stalePendingPaymentsAreRefreshedAcrossPages() {
+        gateway.setPaymentStatus("SUCCESS");
+        gateway.resetRequestCount();
+
+        List<PaymentEntity> stale = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            stale.add(payment(PaymentStatus.PENDING, "cf_" + UUID.randomUUID(), 30));
+        }
+        PaymentEntity recent = payment(PaymentStatus.PENDING, "cf_" + UUID.randomUUID(), 0);
+        PaymentEntity abandoned = payment(PaymentStatus.INITIATED, null, 30);
+        double updatedBefore = meterRegistry.counter("payment.reconciler.payments", "outcome", "updated").count();
+
+        paymentReconciler.sweep();
+
+        for (PaymentEntity payment : stale) {
+            PaymentEntity reconciled = paymentRepository.findById(payment.getId()).orElseThrow();
+            assertThat(reconciled.getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+            assertThat(reconciled.getReconcileClaimToken()).isNull();
+            assertThat(reconciled.getReconcileLeaseUntil()).isNull();
+        }
+        assertThat(paymentRepository.findById(recent.getId()).orElseThrow().getStatus())
+                .isEqualTo(PaymentStatus.PENDING);
+        assertThat(paymentRepository.findById(abandoned.getId()).orElseThrow().getStatus())
+                .isEqualTo(PaymentStatus.FAILED);
+        assertThat(gateway.getRequestCount()).isEqualTo(stale.size());
+        assertThat(meterRegistry.counter("payment.reconciler.payments", "outcome", "updated").count())
+                .isEqualTo(updatedBefore + stale.size());
+    }
+
+    @Test
+    void paymentsLeasedByAnotherNodeAreSkipped() {
+        gateway.resetRequestCount();
+        PaymentEntity leased = payment(PaymentStatus.PENDING, "cf_" + UUID.randomUUID(), 30);
+        jdbcTemplate.update("update payments set reconcile_claim_token = ?, reconcile_lease_until = ? where id = ?",
+                "other-node", LocalDateTime.now().plusMinutes(5), leased.getId());
+
+        paymentReconciler.sweep();
+
+        assertThat(paymentRepository.findById(leased.getId()).orElseThrow().getStatus())
+                .isEqualTo(PaymentStatus.PENDING);
+        assertThat(gateway.getRequestCount()).isZero();
+    }
+
+    @Test
+    void pendingPaymentsWithoutAttemptsAreCancelledAfterTheOrderExpiry() {
+        gateway.setPaymentStatus(null);
+        try {
+            PaymentEntity expired = payment(PaymentStatus.PENDING, "cf_" + UUID.randomUUID(), 30);
+            jdbcTemplate.update("update payments set created_at = ? where id = ?",
+                    LocalDateTime.now().minusDays(2), expired.getId());
+            PaymentEntity open = payment(PaymentStatus.PENDING, "cf_" + UUID.randomUUID(), 30);
+
+            paymentReconciler.sweep();
+
+            PaymentEntity cancelled = paymentRepository.findById(expired.getId()).orElseThrow();
+            assertThat(cancelled.getStatus()).isEqualTo(PaymentStatus.CANCELLED);
+            assertThat(cancelled.getFailureReason()).startsWith("Checkout abandoned");
+            assertThat(paymentRepository.findById(open.getId()).orElseThrow().getStatus())
+                    .isEqualTo(PaymentStatus.PENDING);
+        } finally {
+            gateway.setPaymentStatus("SUCCESS");
+        }
+    }
+
+    private PaymentEntity payment(PaymentStatus status, String cfOrderId, int minutesAgo) {
+        PaymentEntity payment = TestPayments.payment(status);
+        payment.setCfOrderId(cfOrderId);
+        payment = paymentRepository.save(payment);
+
+        jdbcTemplate.update("update payments set updated_at = ? where id = ?",
+                LocalDateTime.now().minusMinutes(minutesAgo), payment.getId());
+        return payment;
+    }
+
+    private static StubCashfreeServer startGateway() {
+        try {
+            return new StubCashfreeServer();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
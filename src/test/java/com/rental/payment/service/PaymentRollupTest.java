@@ -0,0 +1,114 @@
+package com.rental.payment.service;
+
+import com.rental.payment.dto.RollupBucket;
+import com.rental.payment.dto.RollupReport;
+import com.rental.payment.dto.RollupVerification;
+import com.rental.payment.entity.PaymentEntity;
+import com.rental.payment.entity.PaymentStatus;
+import com.rental.payment.repository.PaymentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import static com.rental.payment.support.TestPayments.payment;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        // Own context: verify and rebuild cover every payment of the day
+        "payment.rollup.max-range-days=31",
+        "payment.reconciler.initial-delay=1h"})
+class PaymentRollupTest {
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentRollupService paymentRollupService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void rollupsFollowStatusChangesAndRebuildRepairsDrift() throws Exception {
+        LocalDate today = LocalDate.now();
+        List<PaymentEntity> payments = List.of(
+                pendingPayment(new BigDecimal("1000.10")),
+                pendingPayment(new BigDecimal("2000.25")),
+                pendingPayment(new BigDecimal("0.05")));
+        PaymentEntity failed = pendingPayment(new BigDecimal("500.00"));
+
+        for (PaymentEntity payment : payments) {
+            deliverWebhook(payment.getCfOrderId(), "SUCCESS");
+        }
+        deliverWebhook(failed.getCfOrderId(), "FAILED");
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            for (PaymentEntity payment : payments) {
+                assertThat(paymentRepository.findById(payment.getId()).orElseThrow().getStatus())
+                        .isEqualTo(PaymentStatus.SUCCESS);
+            }
+            assertThat(paymentRepository.findById(failed.getId()).orElseThrow().getStatus())
+                    .isEqualTo(PaymentStatus.FAILED);
+        });
+
+        RollupReport report = paymentRollupService.report(today, today, "INR", null);
+        assertThat(report.buckets()).singleElement().satisfies(bucket -> {
+            assertThat(bucket.paymentMethod()).isEqualTo("upi");
+            assertThat(bucket.status()).isEqualTo(PaymentStatus.SUCCESS);
+            assertThat(bucket.paymentCount()).isEqualTo(3);
+            assertThat(bucket.amount()).isEqualByComparingTo("3000.40");
+        });
+        assertThat(report.totals()).extracting(RollupBucket::amount).singleElement()
+                .satisfies(amount -> assertThat(amount).isEqualByComparingTo("3000.40"));
+        assertThat(paymentRollupService.verify(today, today).isConsistent()).isTrue();
+
+        jdbcTemplate.update("update payment_rollups set amount = amount + 0.01 where currency = 'INR'");
+        RollupVerification drifted = paymentRollupService.verify(today, today);
+        assertThat(drifted.mismatches()).singleElement().satisfies(mismatch -> {
+            assertThat(mismatch.expected().amount()).isEqualByComparingTo("3000.40");
+            assertThat(mismatch.actual().amount()).isEqualByComparingTo("3000.41");
+        });
+
+        assertThat(paymentRollupService.rebuild(today.minusDays(1), today).isConsistent()).isTrue();
+        assertThat(paymentRollupService.report(today, today, "INR", "upi").totals())
+                .extracting(RollupBucket::amount).singleElement()
+                .satisfies(amount -> assertThat(amount).isEqualByComparingTo("3000.40"));
+    }
+
+    private PaymentEntity pendingPayment(BigDecimal amount) {
+        PaymentEntity payment = payment(PaymentStatus.PENDING);
+        payment.setAmount(amount);
+        return paymentRepository.save(payment);
+    }
+
+    private void deliverWebhook(String cfOrderId, String paymentStatus) throws Exception {
+        String payload = "{\"type\":\"PAYMENT_" + paymentStatus + "_WEBHOOK\",\"data\":{"
+                + "\"order\":{\"cf_order_id\":\"" + cfOrderId + "\"},"
+                + "\"payment\":{\"cf_payment_id\":\"cf_pay_" + UUID.randomUUID() + "\",\"payment_status\":\""
+                + paymentStatus + "\",\"payment_method\":\"upi\"}}}";
+        byte[] body = payload.getBytes(StandardCharsets.UTF_8);
+        assertThat(paymentService.handleWebhook(body, null, sign(body)).isSuccess()).isTrue();
+    }
+
+    private static String sign(byte[] payload) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec("test-webhook-secret".getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return Base64.getEncoder().encodeToString(mac.doFinal(payload));
+    }
+}
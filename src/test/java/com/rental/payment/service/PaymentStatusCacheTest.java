@@ -0,0 +1,114 @@
+package com.rental.payment.service;
+
+import com.rental.payment.dto.PaymentRequest;
+import com.rental.payment.dto.PaymentResponse;
+import com.rental.payment.entity.PaymentEntity;
+import com.rental.payment.entity.PaymentStatus;
+import com.rental.payment.repository.PaymentRepository;
+import com.rental.payment.support.StubCashfreeServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.rental.payment.support.TestPayments.payment;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = "payment.status-cache.pending-refresh-interval=300ms")
+class PaymentStatusCacheTest {
+
+    private static final StubCashfreeServer gateway = startGateway();
+
+    @DynamicPropertySource
+    static void gatewayProperties(DynamicPropertyRegistry registry) {
+        registry.add("cashfree.base-url", gateway::getBaseUrl);
+    }
+
+    @AfterAll
+    static void stopGateway() {
+        gateway.close();
+    }
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Test
+    void pollsAreCoalescedAndSettledPaymentsSkipTheGateway() throws Exception {
+        PaymentEntity payment = paymentRepository.save(payment(PaymentStatus.PENDING));
+        gateway.setPaymentStatus("PENDING");
+        gateway.setDelayMillis(200);
+        gateway.resetRequestCount();
+
+        List<CompletableFuture<PaymentResponse>> polls = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            polls.add(paymentService.verifyPayment(payment.getOrderId()));
+        }
+        for (CompletableFuture<PaymentResponse> poll : polls) {
+            assertThat(poll.get().getStatus()).isEqualTo(PaymentStatus.PENDING);
+        }
+        assertThat(gateway.getRequestCount()).isEqualTo(1);
+
+        // Within the refresh interval the pending status is served from memory
+        paymentService.verifyPayment(payment.getOrderId()).get();
+        assertThat(gateway.getRequestCount()).isEqualTo(1);
+
+        gateway.setPaymentStatus("SUCCESS");
+        Thread.sleep(400);
+        assertThat(paymentService.verifyPayment(payment.getOrderId()).get().getStatus())
+                .isEqualTo(PaymentStatus.SUCCESS);
+        assertThat(gateway.getRequestCount()).isEqualTo(2);
+
+        // Settled: no further gateway calls however often the frontend polls
+        Thread.sleep(400);
+        for (int i = 0; i < 5; i++) {
+            assertThat(paymentService.verifyPayment(payment.getOrderId()).get().getStatus())
+                    .isEqualTo(PaymentStatus.SUCCESS);
+        }
+        assertThat(gateway.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    void retriedOrderIsNotServedTheStatusOfTheFailedAttempt() throws Exception {
+        PaymentEntity payment = paymentRepository.save(payment(PaymentStatus.PENDING));
+        payment.setStatus(PaymentStatus.FAILED);
+        paymentRepository.save(payment);
+        assertThat(paymentService.verifyPayment(payment.getOrderId()).get().getStatus())
+                .isEqualTo(PaymentStatus.FAILED);
+
+        PaymentRequest request = new PaymentRequest();
+        request.setOrderId(payment.getOrderId());
+        request.setAmount(new BigDecimal("2500.00"));
+        request.setCurrency("INR");
+        request.setCustomerEmail("tenant@example.com");
+        request.setCustomerPhone("9999999999");
+        request.setCustomerId("cust-1");
+        PaymentResponse created = paymentService.createPaymentOrder(request).get();
+        assertThat(created.isSuccess()).isTrue();
+
+        PaymentResponse verified = paymentService.verifyPayment(payment.getOrderId()).get();
+        assertThat(verified.getStatus()).isEqualTo(PaymentStatus.PENDING);
+        assertThat(verified.getCfOrderId()).isEqualTo(created.getCfOrderId());
+    }
+
+    private static StubCashfreeServer startGateway() {
+        try {
+            return new StubCashfreeServer();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
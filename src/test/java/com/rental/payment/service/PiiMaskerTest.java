@@ -0,0 +1,23 @@
+package com.rental.payment.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PiiMaskerTest {
+
+    @Test
+    void customerContactFieldsAndAddressesAreMasked() {
+        String body = "{\"order_id\":\"ord_1\",\"customer_details\":{\"customer_id\":\"cust-1\","
+                + "\"customer_email\":\"tenant@example.com\",\"customer_phone\":\"9999912345\"},"
+                + "\"message\":\"mail sent to owner@example.com\"}";
+
+        String masked = PiiMasker.mask(body);
+
+        assertThat(masked)
+                .contains("\"order_id\":\"ord_1\"", "\"customer_id\":\"cust-1\"")
+                .contains("\"customer_email\":\"***om\"", "\"customer_phone\":\"***45\"")
+                .contains("o***@example.com")
+                .doesNotContain("tenant@", "9999912345", "owner@");
+    }
+}
@@ -0,0 +1,164 @@
+package com.rental.payment.service;
+
+import com.rental.payment.dto.RefundRequest;
+import com.rental.payment.dto.RefundResponse;
+import com.rental.payment.entity.PaymentEntity;
+import com.rental.payment.entity.PaymentStatus;
+import com.rental.payment.entity.RefundEntity;
+import com.rental.payment.entity.RefundStatus;
+import com.rental.payment.repository.PaymentRepository;
+import com.rental.payment.repository.RefundRepository;
+import com.rental.payment.support.StubCashfreeServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import static com.rental.payment.support.TestPayments.payment;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        // Batches are submitted by the tests, not the scheduler
+        "payment.refund.enabled=false",
+        "cashfree.resilience.retry.initial-backoff=10ms"})
+class RefundFlowTest {
+
+    private static final StubCashfreeServer gateway = startGateway();
+
+    @DynamicPropertySource
+    static void gatewayProperties(DynamicPropertyRegistry registry) {
+        registry.add("cashfree.base-url", gateway::getBaseUrl);
+    }
+
+    @AfterAll
+    static void stopGateway() {
+        gateway.close();
+    }
+
+    @Autowired
+    private RefundService refundService;
+
+    @Autowired
+    private RefundProcessor refundProcessor;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private RefundRepository refundRepository;
+
+    @Test
+    void refundsAreQueuedSubmittedAndSettledByWebhooks() throws Exception {
+        PaymentEntity payment = paymentRepository.save(payment(PaymentStatus.SUCCESS));
+        String orderId = payment.getOrderId();
+        String first = refundId();
+        String second = refundId();
+
+        List<RefundResponse> queued = refundService.createRefunds(List.of(
+                new RefundRequest(orderId, first, new BigDecimal("1000.00"), "Deposit"),
+                new RefundRequest(orderId, refundId(), new BigDecimal("2000.00"), null),
+                new RefundRequest(orderId, first, new BigDecimal("1000.00"), null),
+                new RefundRequest(UUID.randomUUID().toString(), refundId(), BigDecimal.ONE, null)));
+        assertThat(queued).extracting(RefundResponse::getMessage).containsExactly(
+                "Refund queued", "Refund exceeds the refundable amount", "Duplicate refund ID in batch",
+                "Payment order not found");
+
+        assertThat(refundService.createRefund(new RefundRequest(orderId, second, new BigDecimal("1500.00"), null))
+                .isSuccess()).isTrue();
+        // A resubmitted request returns the refund already queued under its ID
+        assertThat(refundService.createRefund(new RefundRequest(orderId, first, new BigDecimal("1000.00"), null))
+                .getStatus()).isEqualTo(RefundStatus.QUEUED);
+
+        int refundsBefore = gateway.getRefundCount();
+        refundProcessor.processBatch().join();
+        assertThat(gateway.getRefundCount()).isGreaterThanOrEqualTo(refundsBefore + 2);
+        RefundEntity submitted = refundRepository.findByRefundId(first).orElseThrow();
+        assertThat(submitted.getStatus()).isEqualTo(RefundStatus.PENDING);
+        assertThat(submitted.getCfRefundId()).isNotNull();
+        assertThat(submitted.getClaimToken()).isNull();
+
+        deliverRefundWebhook(submitted, "SUCCESS");
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertThat(
+                paymentRepository.findById(payment.getId()).orElseThrow().getStatus())
+                .isEqualTo(PaymentStatus.PARTIAL_REFUNDED));
+
+        deliverRefundWebhook(refundRepository.findByRefundId(second).orElseThrow(), "SUCCESS");
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertThat(
+                paymentRepository.findById(payment.getId()).orElseThrow().getStatus())
+                .isEqualTo(PaymentStatus.REFUNDED));
+        assertThat(refundService.getRefund(second).orElseThrow().getStatus()).isEqualTo(RefundStatus.SUCCESS);
+    }
+
+    @Test
+    void unreachableGatewayRequeuesAndRejectionReleasesTheAmount() {
+        PaymentEntity payment = paymentRepository.save(payment(PaymentStatus.SUCCESS));
+        String requeued = refundId();
+        refundService.createRefund(new RefundRequest(payment.getOrderId(), requeued, new BigDecimal("500.00"), null));
+
+        gateway.failNext(3, 503);
+        refundProcessor.processBatch().join();
+
+        RefundEntity retry = refundRepository.findByRefundId(requeued).orElseThrow();
+        assertThat(retry.getStatus()).isEqualTo(RefundStatus.QUEUED);
+        assertThat(retry.getAttempts()).isEqualTo(1);
+        assertThat(retry.getClaimToken()).isNull();
+        assertThat(retry.getAvailableAt()).isAfter(LocalDateTime.now());
+
+        String rejected = refundId();
+        refundService.createRefund(new RefundRequest(payment.getOrderId(), rejected, new BigDecimal("2000.00"), null));
+        gateway.failNext(1, 400);
+        refundProcessor.processBatch().join();
+
+        assertThat(refundRepository.findByRefundId(rejected).orElseThrow().getStatus())
+                .isEqualTo(RefundStatus.FAILED);
+        // The failed refund no longer counts against the payment
+        assertThat(refundService.createRefund(new RefundRequest(payment.getOrderId(), refundId(),
+                new BigDecimal("2000.00"), null)).isSuccess()).isTrue();
+    }
+
+    private void deliverRefundWebhook(RefundEntity refund, String refundStatus) throws Exception {
+        String payload = "{\"type\":\"REFUND_STATUS_WEBHOOK\",\"data\":{\"refund\":{"
+                + "\"cf_refund_id\":\"" + refund.getCfRefundId() + "\",\"refund_id\":\"" + refund.getRefundId()
+                + "\",\"refund_amount\":" + refund.getAmount() + ",\"refund_status\":\"" + refundStatus
+                + "\",\"status_description\":\"Refund processed\"}},\"event_time\":\"2026-10-18T10:00:00+05:30\"}";
+        byte[] body = payload.getBytes(StandardCharsets.UTF_8);
+        assertThat(paymentService.handleWebhook(body, null, sign(body)).isSuccess()).isTrue();
+    }
+
+    private static String refundId() {
+        return "rf_" + UUID.randomUUID().toString().replace("-", "").substring(0, 20);
+    }
+
+    private static String sign(byte[] payload) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec("test-webhook-secret".getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return Base64.getEncoder().encodeToString(mac.doFinal(payload));
+    }
+
+    private static StubCashfreeServer startGateway() {
+        try {
+            return new StubCashfreeServer();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
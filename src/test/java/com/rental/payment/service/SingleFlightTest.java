@@ -0,0 +1,92 @@
+package com.rental.payment.service;
+
+import com.rental.payment.dto.PaymentRequest;
+import com.rental.payment.dto.PaymentResponse;
+import com.rental.payment.support.StubCashfreeServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties")
+class SingleFlightTest {
+
+    private static final int CONCURRENT_CLICKS = 10;
+
+    private static final StubCashfreeServer gateway = startGateway();
+
+    @DynamicPropertySource
+    static void gatewayProperties(DynamicPropertyRegistry registry) {
+        registry.add("cashfree.base-url", gateway::getBaseUrl);
+    }
+
+    @AfterAll
+    static void stopGateway() {
+        gateway.close();
+    }
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Test
+    void concurrentCreateOrdersForSameOrderShareOneGatewayCall() throws Exception {
+        gateway.setDelayMillis(300);
+        gateway.resetRequestCount();
+        PaymentRequest request = new PaymentRequest(UUID.randomUUID().toString(), new BigDecimal("1500.00"), "INR",
+                "tenant@example.com", "9999999999", "cust-1", "https://example.com/return");
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(CONCURRENT_CLICKS);
+        try {
+            List<CompletableFuture<PaymentResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_CLICKS; i++) {
+                responses.add(CompletableFuture.supplyAsync(() -> {
+                    await(start);
+                    return request;
+                }, callers).thenCompose(paymentService::createPaymentOrder));
+            }
+            start.countDown();
+
+            String cfOrderId = responses.get(0).get().getCfOrderId();
+            for (CompletableFuture<PaymentResponse> response : responses) {
+                assertThat(response.get().isSuccess()).isTrue();
+                assertThat(response.get().getCfOrderId()).isEqualTo(cfOrderId);
+            }
+        } finally {
+            callers.shutdown();
+        }
+        assertThat(gateway.getRequestCount()).isEqualTo(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static StubCashfreeServer startGateway() {
+        try {
+            return new StubCashfreeServer();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.rental.payment.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal in-process stand-in for the Cashfree PG API, serving {@code POST /pg/orders},
+ * {@code GET /pg/orders/{id}}, {@code GET /pg/orders/{id}/payments} and
+ * {@code POST /pg/orders/{id}/refunds} with a configurable response delay.
+ * Like Cashfree on our API version, a second order with the same {@code order_id} is
+ * rejected with 409 whatever its {@code x-idempotency-key}. {@link #failNext} makes the
+ * next requests fail with a given status, {@link #loseNextOrderResponses} creates orders
+ * but answers as if the gateway had failed, and
+ * {@link #setQuota} enforces a per-second quota with Cashfree's rate limit headers.
+ */
+public class StubCashfreeServer implements AutoCloseable {
+
+    private static final Pattern ORDER_ID = Pattern.compile("\"order_id\"\\s*:\\s*\"([^\"]*)\"");
+
+    private static final Pattern REFUND_ID = Pattern.compile("\"refund_id\"\\s*:\\s*\"([^\"]*)\"");
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicLong orderSequence = new AtomicLong(1000);
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    private final AtomicInteger failuresRemaining = new AtomicInteger();
+    private final AtomicInteger lostOrderResponsesRemaining = new AtomicInteger();
+    private final List<String> idempotencyKeys = new CopyOnWriteArrayList<>();
+    private final Map<String, Long> ordersByOrderId = new ConcurrentHashMap<>();
+
+    private final AtomicInteger throttledCount = new AtomicInteger();
+
+    private volatile int failureStatus;
+    private volatile int quota;
+    private long quotaWindowStart;
+    private boolean quotaWindowOpen;
+    private int quotaUsed;
+    private volatile long delayMillis;
+    private volatile String paymentStatus = "SUCCESS";
+    private volatile String refundStatus = "PENDING";
+
+    private final AtomicLong refundSequence = new AtomicLong(5000);
+    private final Map<String, Long> refundsByIdempotencyKey = new ConcurrentHashMap<>();
+
+    public StubCashfreeServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(executor);
+        server.createContext("/pg/orders", this::handle);
+        server.start();
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/pg";
+    }
+
+    public void setDelayMillis(long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    /** Status of the one attempt listed for every order, or {@code null} to list none. */
+    public void setPaymentStatus(String paymentStatus) {
+        this.paymentStatus = paymentStatus;
+    }
+
+    public void setRefundStatus(String refundStatus) {
+        this.refundStatus = refundStatus;
+    }
+
+    /** Distinct refunds created, counting resubmissions under the same key once. */
+    public int getRefundCount() {
+        return refundsByIdempotencyKey.size();
+    }
+
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    public void resetRequestCount() {
+        requestCount.set(0);
+    }
+
+    /** Answers the next {@code count} requests with {@code status} and an error body. */
+    public void failNext(int count, int status) {
+        failureStatus = status;
+        failuresRemaining.set(count);
+    }
+
+    /**
+     * Creates the orders of the next {@code count} create-order requests but
+     * answers them with 503, as when the response is lost on the way back.
+     */
+    public void loseNextOrderResponses(int count) {
+        lostOrderResponsesRemaining.set(count);
+    }
+
+    /**
+     * Allows {@code requestsPerSecond} requests per one-second window, the first
+     * window opening with the next request; later requests get 429. Zero turns
+     * the quota off.
+     */
+    public synchronized void setQuota(int requestsPerSecond) {
+        quota = requestsPerSecond;
+        quotaWindowOpen = false;
+        quotaUsed = 0;
+    }
+
+    public int getThrottledCount() {
+        return throttledCount.get();
+    }
+
+    /** Idempotency keys of the create-order requests received, in arrival order. */
+    public List<String> getIdempotencyKeys() {
+        return List.copyOf(idempotencyKeys);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        sleep();
+
+        String path = exchange.getRequestURI().getPath();
+        boolean createOrder = "POST".equals(exchange.getRequestMethod()) && path.equals("/pg/orders");
+        String idempotencyKey = exchange.getRequestHeaders().getFirst("x-idempotency-key");
+        if (createOrder && idempotencyKey != null) {
+            idempotencyKeys.add(idempotencyKey);
+        }
+
+        if (quota > 0 && !withinQuota(exchange)) {
+            throttledCount.incrementAndGet();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            respond(exchange, 429, "{\"message\":\"rate limit exceeded\"}");
+        } else if (failuresRemaining.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            respond(exchange, failureStatus, "{\"message\":\"injected failure\"}");
+        } else if (createOrder) {
+            Matcher orderId = ORDER_ID.matcher(body);
+            String key = orderId.find() ? orderId.group(1) : UUID.randomUUID().toString();
+            long cfOrderId = orderSequence.incrementAndGet();
+            if (ordersByOrderId.putIfAbsent(key, cfOrderId) != null) {
+                respond(exchange, 409, "{\"message\":\"order with same id is already present\","
+                        + "\"code\":\"order_already_exists\",\"type\":\"invalid_request_error\"}");
+            } else if (lostOrderResponsesRemaining.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                respond(exchange, 503, "{\"message\":\"injected failure\"}");
+            } else {
+                respond(exchange, 200, orderJson(cfOrderId));
+            }
+        } else if ("POST".equals(exchange.getRequestMethod()) && path.endsWith("/refunds")) {
+            Matcher refundId = REFUND_ID.matcher(body);
+            long cfRefundId = idempotencyKey == null
+                    ? refundSequence.incrementAndGet()
+                    : refundsByIdempotencyKey.computeIfAbsent(idempotencyKey, key -> refundSequence.incrementAndGet());
+            respond(exchange, 200, "{\"cf_refund_id\":\"" + cfRefundId + "\",\"refund_id\":\""
+                    + (refundId.find() ? refundId.group(1) : "") + "\",\"refund_status\":\"" + refundStatus + "\"}");
+        } else if ("GET".equals(exchange.getRequestMethod()) && path.endsWith("/payments")) {
+            String status = paymentStatus;
+            respond(exchange, 200, status == null ? "[]" : "[{\"cf_payment_id\":\"pay_" + requestCount.get()
+                    + "\",\"payment_status\":\"" + status + "\",\"payment_method\":\"upi\"}]");
+        } else if ("GET".equals(exchange.getRequestMethod())
+                && ordersByOrderId.containsKey(path.substring(path.lastIndexOf('/') + 1))) {
+            respond(exchange, 200, orderJson(ordersByOrderId.get(path.substring(path.lastIndexOf('/') + 1))));
+        } else {
+            respond(exchange, 404, "{\"message\":\"not found\"}");
+        }
+    }
+
+    private synchronized boolean withinQuota(HttpExchange exchange) {
+        if (!quotaWindowOpen) {
+            quotaWindowStart = System.nanoTime();
+            quotaWindowOpen = true;
+        }
+        long elapsed = System.nanoTime() - quotaWindowStart;
+        if (elapsed >= 1_000_000_000L) {
+            quotaWindowStart += elapsed / 1_000_000_000L * 1_000_000_000L;
+            quotaUsed = 0;
+        }
+        boolean allowed = quotaUsed < quota;
+        if (allowed) {
+            quotaUsed++;
+        }
+        exchange.getResponseHeaders().set("x-ratelimit-limit", String.valueOf(quota));
+        exchange.getResponseHeaders().set("x-ratelimit-remaining", String.valueOf(quota - quotaUsed));
+        exchange.getResponseHeaders().set("x-ratelimit-reset", "1");
+        return allowed;
+    }
+
+    private void sleep() {
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static String orderJson(long cfOrderId) {
+        return "{\"cf_order_id\":\"" + cfOrderId + "\",\"payment_session_id\":\"session_" + cfOrderId
+                + "\",\"order_status\":\"ACTIVE\"}";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,29 @@
+package com.rental.payment.support;
+
+import com.rental.payment.entity.PaymentEntity;
+import com.rental.payment.entity.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Builds payment rows for tests: 2500.00 INR for tenant@example.com, with
+ * fresh order ids so that tests sharing a database never collide.
+ */
+public final class TestPayments {
+
+    private TestPayments() {
+    }
+
+    /** An unsaved payment in {@code status}; callers adjust fields before saving. */
+    public static PaymentEntity payment(PaymentStatus status) {
+        PaymentEntity payment = new PaymentEntity();
+        payment.setOrderId(UUID.randomUUID().toString());
+        payment.setCfOrderId("cf_" + UUID.randomUUID());
+        payment.setAmount(new BigDecimal("2500.00"));
+        payment.setCurrency("INR");
+        payment.setCustomerEmail("tenant@example.com");
+        payment.setStatus(status);
+        return payment;
+    }
+}